@@ -6,7 +6,6 @@ plugins {
     id("com.google.devtools.ksp")
     id("org.jetbrains.kotlin.plugin.compose") //id("com.google.devtools.ksp")
     id("com.google.firebase.crashlytics") // ✅ ADD THIS LINE
-    kotlin("plugin.serialization") version "2.0.21"
 
 }
 
@@ -68,6 +67,26 @@ android {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
         }
     }
+
+    // Exported Room schemas, read by MigrationTestHelper in instrumented tests
+    sourceSets {
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
+}
+
+// Room writes the schema of the current database version to schemas/; commit it with every bump.
+// scripts/export-room-schemas.sh re-exports every version from the commit that defined it.
+ksp {
+    arg("room.schemaLocation", "$projectDir/schemas")
+}
+
+// Compose compiler stability reports: ./gradlew assembleRelease -PcomposeCompilerReports=true
+// writes <module>-composables.txt / -classes.txt / -module.json to build/compose_compiler
+composeCompiler {
+    if (project.findProperty("composeCompilerReports") == "true") {
+        reportsDestination = layout.buildDirectory.dir("compose_compiler")
+        metricsDestination = layout.buildDirectory.dir("compose_compiler")
+    }
 }
 
 dependencies {
@@ -104,15 +123,20 @@ dependencies {
     // Room
     implementation("androidx.room:room-runtime:2.8.3")
     implementation("androidx.room:room-ktx:2.8.3")
+    implementation("androidx.room:room-paging:2.8.3")
     ksp("androidx.room:room-compiler:2.8.3")
     //ksp("androidx.room:room-compiler:2.5.0")
 
+    // Paging
+    implementation("androidx.paging:paging-runtime-ktx:3.3.6")
+    implementation("androidx.paging:paging-compose:3.3.6")
+
     // DataStore
     implementation("androidx.datastore:datastore-preferences:1.1.7")
     implementation("androidx.datastore:datastore-core:1.1.7")
 
-    // Kotlinx Serialization
-    implementation("org.jetbrains.kotlinx:kotlinx-serialization-json:1.7.3")
+    // Persistent collections for stable Compose UI state
+    implementation("org.jetbrains.kotlinx:kotlinx-collections-immutable:0.4.0")
 
     // WorkManager
     implementation("androidx.work:work-runtime-ktx:2.11.0")
@@ -142,9 +166,12 @@ dependencies {
     testImplementation("junit:junit:4.13.2")
     testImplementation("com.google.truth:truth:1.4.5")
     testImplementation("org.jetbrains.kotlinx:kotlinx-coroutines-test:1.10.2")
+    // Legacy widget state JSON, for the serializer size and timing comparison
+    testImplementation("org.jetbrains.kotlinx:kotlinx-serialization-json:1.7.3")
     
     androidTestImplementation("androidx.test.ext:junit:1.3.0")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.7.0")
+    androidTestImplementation("androidx.room:room-testing:2.8.3")
     androidTestImplementation(platform("androidx.compose:compose-bom:2025.10.01"))
     androidTestImplementation("androidx.compose.ui:ui-test-junit4")
     
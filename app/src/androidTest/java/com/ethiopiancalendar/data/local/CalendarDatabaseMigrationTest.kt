@@ -0,0 +1,189 @@
+package com.ethiopiancalendar.data.local
+
+import androidx.room.Room
+import androidx.room.testing.MigrationTestHelper
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.ethiopiancalendar.data.local.converter.DateConverter
+import com.ethiopiancalendar.data.local.dao.DUE_REMINDERS_QUERY
+import com.ethiopiancalendar.data.local.dao.EARLIEST_REMINDER_QUERY
+import com.ethiopiancalendar.data.local.dao.EVENTS_FOR_DATE_QUERY
+import com.ethiopiancalendar.data.local.dao.INSTANCES_FOR_DAYS_QUERY
+import com.ethiopiancalendar.data.local.dao.INSTANCES_IN_RANGE_QUERY
+import com.ethiopiancalendar.data.local.dao.MONTH_CELL_ROWS_QUERY
+import com.ethiopiancalendar.data.local.dao.PENDING_REMINDER_ROWS_QUERY
+import com.ethiopiancalendar.data.local.dao.RECURRING_EVENTS_QUERY
+import com.ethiopiancalendar.data.local.dao.SEARCH_EVENTS_QUERY
+import com.ethiopiancalendar.data.local.dao.UPCOMING_EVENTS_QUERY
+import com.ethiopiancalendar.data.local.dao.UPCOMING_INSTANCES_QUERY
+import com.ethiopiancalendar.data.local.dao.UPCOMING_WIDGET_ROWS_QUERY
+import com.ethiopiancalendar.data.repository.EventRepository
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Migrates databases created from the exported schemas in app/schemas and validates the
+ * result against the schema of the target version, one step at a time and from version 1
+ * straight to the current version with data.
+ */
+@RunWith(AndroidJUnit4::class)
+class CalendarDatabaseMigrationTest {
+
+    companion object {
+        private const val TEST_DB = "migration-test"
+        private const val CURRENT_VERSION = 6
+
+        // Written by version 1 through DateConverter; New York so the offset and zone differ
+        private const val START = "2025-03-09T09:00:00-04:00[America/New_York]"
+        private const val END = "2025-03-09T10:30:00-04:00[America/New_York]"
+        private const val RECURRENCE_END = "2025-12-31T09:00:00-05:00[America/New_York]"
+        private const val HOLIDAY_START = "2025-09-27T00:00:00+03:00[Africa/Addis_Ababa]"
+
+        // "SCAN TABLE events" before SQLite 3.36, "SCAN events" after
+        private val TABLE_SCAN = Regex("""SCAN (TABLE )?(events|event_instances|reminder_queue)\b""")
+    }
+
+    @get:Rule
+    val helper = MigrationTestHelper(
+        InstrumentationRegistry.getInstrumentation(),
+        CalendarDatabase::class.java
+    )
+
+    @Test
+    fun eachMigrationMatchesTheNextSchema() {
+        for (migration in CalendarDatabase.ALL_MIGRATIONS) {
+            val name = "$TEST_DB-${migration.startVersion}"
+            helper.createDatabase(name, migration.startVersion).close()
+            helper.runMigrationsAndValidate(name, migration.endVersion, true, migration).close()
+        }
+    }
+
+    @Test
+    fun migrateVersion1ToCurrentKeepsEvents() {
+        helper.createDatabase(TEST_DB, 1).use { db ->
+            insertVersion1Event(db, "recurring", "Standup", START, END, "RRULE:FREQ=WEEKLY;BYDAY=SU", RECURRENCE_END)
+            insertVersion1Event(db, "holiday", "መስቀል", HOLIDAY_START, null, null, null)
+        }
+
+        helper.runMigrationsAndValidate(TEST_DB, CURRENT_VERSION, true, *CalendarDatabase.ALL_MIGRATIONS).use { db ->
+            db.query(
+                "SELECT startEpochMillis, endEpochMillis, recurrenceEndEpochMillis, timeZone FROM events WHERE id = ?",
+                arrayOf("recurring")
+            ).use { cursor ->
+                assertTrue(cursor.moveToFirst())
+                assertEquals(epochMillis(START), cursor.getLong(0))
+                assertEquals(epochMillis(END), cursor.getLong(1))
+                assertEquals(epochMillis(RECURRENCE_END), cursor.getLong(2))
+                assertEquals("America/New_York", cursor.getString(3))
+            }
+            db.query(
+                "SELECT events.id FROM events JOIN events_fts ON events.rowid = events_fts.docid " +
+                    "WHERE events_fts MATCH ?",
+                arrayOf("መስ*")
+            ).use { cursor ->
+                assertTrue(cursor.moveToFirst())
+                assertEquals("holiday", cursor.getString(0))
+            }
+        }
+
+        // Room itself accepts the migrated database and the FTS triggers keep working
+        val database = Room.databaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            CalendarDatabase::class.java,
+            TEST_DB
+        ).addMigrations(*CalendarDatabase.ALL_MIGRATIONS).build()
+        try {
+            runBlocking {
+                val dao = database.eventDao()
+                val event = dao.getEventById("recurring")
+                assertNotNull(event)
+                assertEquals(epochMillis(START), event!!.startEpochMillis)
+                assertEquals(DateConverter().toZonedDateTime(START), event.startTime)
+
+                dao.updateEvent(event.copy(summary = "Retro"))
+                assertEquals(listOf("recurring"), dao.searchEvents(EventRepository.toFtsMatch("retro")!!).first().map { it.id })
+                assertTrue(dao.searchEvents(EventRepository.toFtsMatch("standup")!!).first().isEmpty())
+            }
+        } finally {
+            database.close()
+        }
+    }
+
+    @Test
+    fun currentSchemaIndexesTheHotQueries() {
+        helper.createDatabase(TEST_DB, 1).close()
+        helper.runMigrationsAndValidate(TEST_DB, CURRENT_VERSION, true, *CalendarDatabase.ALL_MIGRATIONS).use { db ->
+            // EventDao
+            db.assertIndexSearch(EVENTS_FOR_DATE_QUERY, 2018, 1, 1)
+            db.assertIndexSearch(UPCOMING_EVENTS_QUERY, 0L, 10)
+            db.assertIndexSearch(RECURRING_EVENTS_QUERY)
+            db.assertIndexSearch(PENDING_REMINDER_ROWS_QUERY, 0L)
+            db.assertIndexSearch(SEARCH_EVENTS_QUERY, "standup*")
+
+            // EventInstanceDao
+            db.assertIndexSearch(INSTANCES_FOR_DAYS_QUERY, 0L, 42L)
+            db.assertIndexSearch(INSTANCES_IN_RANGE_QUERY, 0L, 1L)
+            db.assertIndexSearch(UPCOMING_INSTANCES_QUERY, 0L, 10)
+            db.assertIndexSearch(MONTH_CELL_ROWS_QUERY, 0L, 42L)
+            db.assertIndexSearch(UPCOMING_WIDGET_ROWS_QUERY, 0L, 4)
+
+            // ReminderQueueDao; the earliest reminder walks the index in order and stops at one row
+            db.assertIndexSearch(DUE_REMINDERS_QUERY, 0L)
+            val earliest = db.queryPlan(EARLIEST_REMINDER_QUERY)
+            assertTrue(earliest, earliest.contains("index_reminder_queue_triggerMillis"))
+            assertFalse(earliest, earliest.contains("TEMP B-TREE"))
+        }
+    }
+
+    private fun insertVersion1Event(
+        db: SupportSQLiteDatabase,
+        id: String,
+        summary: String,
+        startTime: String,
+        endTime: String?,
+        recurrenceRule: String?,
+        recurrenceEndDate: String?
+    ) {
+        db.execSQL(
+            """
+            INSERT INTO events (
+                id, summary, description, startTime, endTime, isAllDay, timeZone, recurrenceRule,
+                recurrenceEndDate, category, color, reminderMinutesBefore, notificationChannelId,
+                ethiopianYear, ethiopianMonth, ethiopianDay, googleCalendarEventId, googleCalendarId,
+                isSynced, syncedAt, createdAt, updatedAt
+            ) VALUES (?, ?, NULL, ?, ?, 0, 'Africa/Addis_Ababa', ?, ?, 'PERSONAL', 0, 15, 'event_reminders',
+                2017, 7, 1, NULL, NULL, 0, NULL, 0, 0)
+            """.trimIndent(),
+            arrayOf<Any?>(id, summary, startTime, endTime, recurrenceRule, recurrenceEndDate)
+        )
+    }
+
+    private fun epochMillis(isoZoned: String): Long =
+        requireNotNull(DateConverter().toZonedDateTime(isoZoned)).toInstant().toEpochMilli()
+
+    /**
+     * Asserts that SQLite reads the tables of [sql] through index lookups only.
+     * Virtual table scans (events_fts) are the FTS index itself and are allowed.
+     */
+    private fun SupportSQLiteDatabase.assertIndexSearch(sql: String, vararg args: Any) {
+        val plan = queryPlan(sql, *args)
+        assertTrue(plan, plan.contains("SEARCH"))
+        assertFalse(plan, TABLE_SCAN.containsMatchIn(plan))
+    }
+
+    private fun SupportSQLiteDatabase.queryPlan(sql: String, vararg args: Any): String =
+        query("EXPLAIN QUERY PLAN $sql", args).use { cursor ->
+            buildString {
+                while (cursor.moveToNext()) appendLine(cursor.getString(3))
+            }
+        }
+}
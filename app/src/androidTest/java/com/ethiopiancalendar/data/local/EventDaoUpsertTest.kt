@@ -0,0 +1,84 @@
+package com.ethiopiancalendar.data.local
+
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceEntity
+import com.ethiopiancalendar.data.local.entity.ReminderQueueEntity
+import com.ethiopiancalendar.data.repository.EventRepository
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Inserting an event whose id exists updates the row in place: its instances and queued
+ * reminder survive and events_fts follows the new text.
+ */
+@RunWith(AndroidJUnit4::class)
+class EventDaoUpsertTest {
+
+    companion object {
+        private const val START_MILLIS = 1_760_000_000_000L
+    }
+
+    private lateinit var database: CalendarDatabase
+
+    @Before
+    fun setUp() {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            CalendarDatabase::class.java
+        ).build()
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun insertingAnExistingEventKeepsItsInstancesAndReminder() = runBlocking {
+        val eventDao = database.eventDao()
+        assertTrue(eventDao.insertEvent(event("Standup")) > 0)
+        database.eventInstanceDao().insertInstances(
+            listOf(EventInstanceEntity(eventId = "event", epochDay = 20_376, startMillis = START_MILLIS))
+        )
+        database.reminderQueueDao().insert(
+            ReminderQueueEntity(eventId = "event", triggerMillis = START_MILLIS - 60_000, occurrenceMillis = START_MILLIS)
+        )
+
+        assertEquals(-1L, eventDao.insertEvent(event("Retro")))
+
+        assertEquals("Retro", eventDao.getEventById("event")?.summary)
+        assertEquals(1, database.eventInstanceDao().getInstancesForDays(20_376, 20_377).first().size)
+        assertNotNull(database.reminderQueueDao().getEarliest())
+    }
+
+    @Test
+    fun insertingAnExistingEventLeavesNoStaleSearchRows() = runBlocking {
+        val eventDao = database.eventDao()
+        eventDao.insertEvents(listOf(event("Standup")))
+        eventDao.insertEvents(listOf(event("Retro")))
+
+        assertEquals(listOf("event"), eventDao.searchEvents(EventRepository.toFtsMatch("retro")!!).first().map { it.id })
+        // A stale index entry for the old text would still match and join to the updated row
+        assertTrue(eventDao.searchEvents(EventRepository.toFtsMatch("standup")!!).first().isEmpty())
+    }
+
+    private fun event(summary: String) = EventEntity(
+        id = "event",
+        summary = summary,
+        startEpochMillis = START_MILLIS,
+        timeZone = "Africa/Addis_Ababa",
+        ethiopianYear = 2018,
+        ethiopianMonth = 2,
+        ethiopianDay = 1
+    )
+}
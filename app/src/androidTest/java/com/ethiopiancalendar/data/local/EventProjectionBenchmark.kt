@@ -0,0 +1,141 @@
+package com.ethiopiancalendar.data.local
+
+import android.util.Log
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceEntity
+import com.ethiopiancalendar.domain.calendar.nextOccurrenceAfter
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Compares the column projections used by the reminder reschedule pass and the month grid
+ * against loading full event rows for the same data.
+ *
+ * Each read runs [WARMUP_RUNS] times untimed and is then timed over [TIMED_RUNS] runs; the medians
+ * are logged under [TAG] and the projection must not be slower than the full-row read.
+ */
+@RunWith(AndroidJUnit4::class)
+class EventProjectionBenchmark {
+
+    companion object {
+        private const val TAG = "EventProjectionBenchmark"
+        private const val EVENT_COUNT = 5_000
+        private const val WARMUP_RUNS = 3
+        private const val TIMED_RUNS = 10
+        private const val DAY_MILLIS = 86_400_000L
+        private const val FIRST_EPOCH_DAY = 20_000L
+    }
+
+    private lateinit var database: CalendarDatabase
+
+    @Before
+    fun setUp() = runBlocking {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            CalendarDatabase::class.java
+        ).build()
+
+        val events = (0 until EVENT_COUNT).map { i ->
+            val epochDay = FIRST_EPOCH_DAY + i % 365
+            EventEntity(
+                id = "event-$i",
+                summary = "Event $i",
+                description = "A description long enough to make copying it out of the cursor count ".repeat(4),
+                startEpochMillis = epochDay * DAY_MILLIS + 9 * 3_600_000L,
+                endEpochMillis = epochDay * DAY_MILLIS + 10 * 3_600_000L,
+                timeZone = "Africa/Addis_Ababa",
+                recurrenceRule = if (i % 10 == 0) "RRULE:FREQ=WEEKLY" else null,
+                reminderMinutesBefore = 15,
+                ethiopianYear = 2017,
+                ethiopianMonth = 1 + i % 13,
+                ethiopianDay = 1 + i % 30,
+                googleCalendarEventId = "google-$i",
+                googleCalendarId = "primary"
+            )
+        }
+        database.eventDao().insertEvents(events)
+        database.eventInstanceDao().insertInstances(events.map { event ->
+            EventInstanceEntity(
+                eventId = event.id,
+                epochDay = event.startEpochMillis / DAY_MILLIS,
+                startMillis = event.startEpochMillis,
+                endMillis = event.endEpochMillis
+            )
+        })
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun reminderRowsAreFasterThanFullEvents() = runBlocking {
+        val dao = database.eventDao()
+        val now = FIRST_EPOCH_DAY * DAY_MILLIS
+
+        val projection = medianNanos {
+            dao.getPendingReminderRows(now).count { it.nextOccurrenceAfter(now) != null }
+        }
+        val full = medianNanos {
+            dao.getAllEvents()
+                .filter { it.reminderMinutesBefore != null }
+                .count { it.nextOccurrenceAfter(now) != null }
+        }
+        assertEquals(EVENT_COUNT, dao.getPendingReminderRows(now).size)
+
+        report("pending reminders", projection, full)
+        assertTrue("projection ${projection}ns slower than full rows ${full}ns", projection <= full)
+    }
+
+    @Test
+    fun monthCellRowsAreFasterThanFullInstances() = runBlocking {
+        val dao = database.eventInstanceDao()
+        // A 42 day month grid
+        val start = FIRST_EPOCH_DAY + 30
+        val end = start + 42
+
+        val projection = medianNanos {
+            dao.getMonthCellRows(start, end).first().size
+        }
+        val full = medianNanos {
+            dao.getInstancesForDays(start, end).first().size
+        }
+        assertEquals(
+            dao.getInstancesForDays(start, end).first().size,
+            dao.getMonthCellRows(start, end).first().size
+        )
+
+        report("month cells", projection, full)
+        assertTrue("projection ${projection}ns slower than full rows ${full}ns", projection <= full)
+    }
+
+    private suspend fun medianNanos(block: suspend () -> Int): Long {
+        repeat(WARMUP_RUNS) { block() }
+        val samples = LongArray(TIMED_RUNS)
+        for (i in samples.indices) {
+            val start = System.nanoTime()
+            block()
+            samples[i] = System.nanoTime() - start
+        }
+        samples.sort()
+        return samples[TIMED_RUNS / 2]
+    }
+
+    private fun report(read: String, projectionNanos: Long, fullNanos: Long) {
+        Log.i(
+            TAG,
+            "$read over $EVENT_COUNT events: projection ${projectionNanos / 1000} us, " +
+                    "full rows ${fullNanos / 1000} us (${"%.2f".format(fullNanos.toDouble() / projectionNanos)}x)"
+        )
+    }
+}
@@ -0,0 +1,149 @@
+package com.ethiopiancalendar.data.local
+
+import android.util.Log
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.repository.EventRepository
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Times EventDao.searchEvents over [EVENT_COUNT] events, against the events_fts index
+ * and, for reference, against the LIKE scan it replaced.
+ *
+ * Every search term matches [EVENT_COUNT] / [WORD_COUNT] events. Each query runs [WARMUP_RUNS]
+ * times untimed and is then timed over [TIMED_RUNS] runs; the median must stay under
+ * [MAX_MEDIAN_MILLIS]. Results are logged under [TAG].
+ */
+@RunWith(AndroidJUnit4::class)
+class EventSearchBenchmark {
+
+    companion object {
+        private const val TAG = "EventSearchBenchmark"
+        private const val EVENT_COUNT = 50_000
+        private const val WORD_COUNT = 1_000
+        private const val INSERT_BATCH = 1_000
+        private const val WARMUP_RUNS = 5
+        private const val TIMED_RUNS = 20
+        private const val MAX_MEDIAN_MILLIS = 10.0
+    }
+
+    private lateinit var database: CalendarDatabase
+
+    @Before
+    fun setUp() = runBlocking {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            CalendarDatabase::class.java
+        ).build()
+
+        (0 until EVENT_COUNT).chunked(INSERT_BATCH).forEach { batch ->
+            database.eventDao().insertEvents(batch.map { i -> event(i) })
+        }
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun latinPrefixSearchIsUnderTenMillis() = runBlocking {
+        assertFastSearch("latin prefix", word(123))
+    }
+
+    @Test
+    fun geezPrefixSearchIsUnderTenMillis() = runBlocking {
+        assertFastSearch("ge'ez prefix", "መስ")
+    }
+
+    @Test
+    fun multiTermSearchIsUnderTenMillis() = runBlocking {
+        assertFastSearch("two terms", "meeting ${word(456)}")
+    }
+
+    private suspend fun assertFastSearch(name: String, query: String) {
+        val dao = database.eventDao()
+        val match = EventRepository.toFtsMatch(query)!!
+        val expected = EVENT_COUNT / WORD_COUNT
+
+        assertEquals(expected, dao.searchEvents(match).first().size)
+
+        val ftsNanos = medianNanos { dao.searchEvents(match).first().size }
+        val likeNanos = medianNanos { likeScan(query.substringBefore(' ')) }
+
+        Log.i(
+            TAG,
+            "$name \"$query\" over $EVENT_COUNT events: fts ${ftsNanos / 1000} us, " +
+                    "like scan ${likeNanos / 1000} us"
+        )
+        val ftsMillis = ftsNanos / 1_000_000.0
+        assertTrue("$name search took $ftsMillis ms", ftsMillis < MAX_MEDIAN_MILLIS)
+    }
+
+    // The query searchEvents used before the FTS index
+    private fun likeScan(term: String): Int {
+        val pattern = "%$term%"
+        database.openHelper.readableDatabase.query(
+            "SELECT * FROM events WHERE summary LIKE ? OR description LIKE ? ORDER BY startEpochMillis DESC",
+            arrayOf(pattern, pattern)
+        ).use { cursor ->
+            var count = 0
+            while (cursor.moveToNext()) count++
+            return count
+        }
+    }
+
+    private suspend fun medianNanos(block: suspend () -> Int): Long {
+        repeat(WARMUP_RUNS) { block() }
+        val samples = LongArray(TIMED_RUNS)
+        for (i in samples.indices) {
+            val start = System.nanoTime()
+            block()
+            samples[i] = System.nanoTime() - start
+        }
+        samples.sort()
+        return samples[TIMED_RUNS / 2]
+    }
+
+    /**
+     * Event [i]: every title has one of [WORD_COUNT] made-up words, every [WORD_COUNT]th
+     * event is a Ge'ez holiday title and odd events carry a Ge'ez description.
+     */
+    private fun event(i: Int): EventEntity {
+        val summary = if (i % WORD_COUNT == 0) {
+            "መስቀል በዓል $i"
+        } else {
+            "Meeting ${word(i % WORD_COUNT)} $i"
+        }
+        return EventEntity(
+            id = "event-$i",
+            summary = summary,
+            description = if (i % 2 == 1) "የቤተሰብ ስብሰባ ቁጥር $i" else "Weekly sync number $i",
+            startEpochMillis = 1_700_000_000_000L + i * 3_600_000L,
+            timeZone = "Africa/Addis_Ababa",
+            ethiopianYear = 2017,
+            ethiopianMonth = 1 + i % 13,
+            ethiopianDay = 1 + i % 30
+        )
+    }
+
+    // "waaa", "wbaa", ...: distinct four letter words, none a prefix of another
+    private fun word(n: Int): String {
+        val letters = StringBuilder("w")
+        var rest = n
+        repeat(3) {
+            letters.append('a' + rest % 26)
+            rest /= 26
+        }
+        return letters.toString()
+    }
+}
@@ -0,0 +1,128 @@
+package com.ethiopiancalendar.data.repository
+
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.ethiopiancalendar.data.local.CalendarDatabase
+import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceHorizonEntity
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.time.LocalDate
+import java.time.LocalTime
+import java.time.ZoneId
+
+/**
+ * Materialized instance window of EventRepository: it rolls forward with the date, and days
+ * outside it are expanded in memory without being stored.
+ */
+@RunWith(AndroidJUnit4::class)
+class EventRepositoryWindowTest {
+
+    companion object {
+        // Must match EventRepository's window
+        private const val PAST_DAYS = 366L
+        private const val FUTURE_DAYS = 2 * 366L
+    }
+
+    private lateinit var database: CalendarDatabase
+    private lateinit var repository: EventRepository
+    private val zone = ZoneId.systemDefault()
+    private val today = LocalDate.now(zone).toEpochDay()
+
+    @Before
+    fun setUp() {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            CalendarDatabase::class.java
+        ).build()
+        repository = EventRepository(database.eventDao(), database.eventInstanceDao())
+
+        // Daily at 09:00 since ten days ago
+        runBlocking {
+            repository.createEvent(
+                EventEntity(
+                    id = "daily",
+                    summary = "Daily",
+                    startEpochMillis = LocalDate.ofEpochDay(today - 10).atTime(LocalTime.of(9, 0))
+                        .atZone(zone).toInstant().toEpochMilli(),
+                    timeZone = zone.id,
+                    recurrenceRule = "RRULE:FREQ=DAILY",
+                    ethiopianYear = 2018,
+                    ethiopianMonth = 1,
+                    ethiopianDay = 1
+                )
+            )
+        }
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun farAwayDaysAreExpandedWithoutBeingStored() = runBlocking {
+        val stored = storedInstances()
+        val farAway = LocalDate.ofEpochDay(today).plusYears(10).toEpochDay()
+
+        val instances = repository.getEventsForDays(farAway, farAway + 30).first()
+
+        assertEquals(30, instances.size)
+        assertEquals(stored, storedInstances())
+        assertEquals(30, repository.getMonthCellRows(farAway, farAway + 30).first().size)
+        assertEquals(stored, storedInstances())
+    }
+
+    @Test
+    fun rangeAcrossTheWindowEndCombinesStoredAndExpandedDays() = runBlocking {
+        val windowEnd = today + FUTURE_DAYS
+
+        val instances = repository.getEventsForDays(windowEnd - 5, windowEnd + 5).first()
+
+        assertEquals((windowEnd - 5 until windowEnd + 5).toList(), instances.map { it.instanceStart.toLocalDate().toEpochDay() })
+        assertEquals(0, storedInstances(windowEnd, windowEnd + 5))
+    }
+
+    @Test
+    fun staleWindowRollsForward() = runBlocking {
+        val dao = database.eventInstanceDao()
+        // As if the window was last materialized 30 days ago, with an instance that is now too old
+        dao.setHorizon(EventInstanceHorizonEntity(startEpochDay = today - 30 - PAST_DAYS, endEpochDay = today - 30 + FUTURE_DAYS))
+        dao.replaceInstancesForEvent("daily", listOf(staleInstance(today - PAST_DAYS - 20)))
+
+        // A fresh repository, as after a process restart
+        val restarted = EventRepository(database.eventDao(), dao)
+        restarted.getEventsForDays(today, today + 1).first()
+
+        assertEquals(
+            EventInstanceHorizonEntity(startEpochDay = today - PAST_DAYS, endEpochDay = today + FUTURE_DAYS),
+            dao.getHorizon()
+        )
+        assertEquals(0, storedInstances(Long.MIN_VALUE, today - PAST_DAYS))
+        // Only the newly covered days were expanded
+        assertEquals(30, storedInstances(today - 30 + FUTURE_DAYS, today + FUTURE_DAYS))
+        assertEquals(0, storedInstances(today, today - 30 + FUTURE_DAYS))
+    }
+
+    private fun staleInstance(epochDay: Long): EventInstanceEntity {
+        val startMillis = LocalDate.ofEpochDay(epochDay).atTime(LocalTime.of(9, 0)).atZone(zone).toInstant().toEpochMilli()
+        return EventInstanceEntity(eventId = "daily", epochDay = epochDay, startMillis = startMillis)
+    }
+
+    private fun storedInstances(fromEpochDay: Long = Long.MIN_VALUE, toEpochDay: Long = Long.MAX_VALUE): Int {
+        database.openHelper.readableDatabase.query(
+            "SELECT COUNT(*) FROM event_instances WHERE epochDay >= ? AND epochDay < ?",
+            arrayOf(fromEpochDay, toEpochDay)
+        ).use { cursor ->
+            cursor.moveToFirst()
+            return cursor.getInt(0)
+        }
+    }
+}
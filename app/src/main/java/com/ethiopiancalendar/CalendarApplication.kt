@@ -7,7 +7,7 @@ import com.ethiopiancalendar.alarm.NotificationHelper
 import com.ethiopiancalendar.data.initialization.AppInitializationManager
 import com.ethiopiancalendar.data.initialization.ReminderReregistrationManager
 import com.ethiopiancalendar.data.remote.RemoteConfigManager
-import com.ethiopiancalendar.widget.CalendarWidgetWorker
+import com.ethiopiancalendar.widget.CalendarWidgetUpdater
 import dagger.hilt.android.HiltAndroidApp
 import timber.log.Timber
 import javax.inject.Inject
@@ -27,6 +27,9 @@ class CalendarApplication : Application(), Configuration.Provider {
     @Inject
     lateinit var reminderReregistrationManager: ReminderReregistrationManager
 
+    @Inject
+    lateinit var calendarWidgetUpdater: CalendarWidgetUpdater
+
     override val workManagerConfiguration: Configuration
         get() = Configuration.Builder()
             .setWorkerFactory(workerFactory)
@@ -45,8 +48,8 @@ class CalendarApplication : Application(), Configuration.Provider {
         // Create notification channels for event reminders
         NotificationHelper.createNotificationChannels(this)
 
-        // Schedule periodic widget updates
-        CalendarWidgetWorker.schedule(this)
+        // Refresh widgets whenever events change (replaces periodic widget updates)
+        calendarWidgetUpdater.start()
 
         // 1.4 Initialize Firebase Remote Config for Muslim holiday offsets
         // This is called in AppInitializationManager but we keep it here for immediate config
@@ -19,8 +19,8 @@ import javax.inject.Inject
  *
  * Responsibilities:
  * - Receive alarm broadcasts from AlarmManager
- * - Show notification to user
- * - For repeating events, schedule the next occurrence
+ * - Deliver due reminders from the reminder queue (ACTION_DELIVER_REMINDERS)
+ * - Show notification for per-event alarms armed by older versions (ACTION_EVENT_ALARM)
  * - Handle edge cases (deleted events, modified events, etc.)
  *
  * Design notes:
@@ -39,6 +39,9 @@ class AlarmReceiver : BroadcastReceiver() {
     @Inject
     lateinit var eventRepository: EventRepository
 
+    @Inject
+    lateinit var reminderRescheduler: ReminderRescheduler
+
     // Use a supervisor job so failure in one coroutine doesn't cancel others
     private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate)
 
@@ -48,6 +51,11 @@ class AlarmReceiver : BroadcastReceiver() {
          */
         const val ACTION_EVENT_ALARM = "com.ethiopiancalendar.ACTION_EVENT_ALARM"
 
+        /**
+         * Action for the reminder queue alarm (see ReminderRescheduler).
+         */
+        const val ACTION_DELIVER_REMINDERS = "com.ethiopiancalendar.ACTION_DELIVER_REMINDERS"
+
         /**
          * Intent extras for event details.
          */
@@ -59,6 +67,20 @@ class AlarmReceiver : BroadcastReceiver() {
     }
 
     override fun onReceive(context: Context, intent: Intent) {
+        if (intent.action == ACTION_DELIVER_REMINDERS) {
+            val pendingResult = goAsync()
+            scope.launch {
+                try {
+                    reminderRescheduler.deliverDueReminders()
+                } catch (e: Exception) {
+                    Timber.e(e, "Error delivering queued reminders")
+                } finally {
+                    pendingResult.finish()
+                }
+            }
+            return
+        }
+
         if (intent.action != ACTION_EVENT_ALARM) {
             return
         }
@@ -86,28 +108,32 @@ class AlarmReceiver : BroadcastReceiver() {
                     return@launch
                 }
 
+                // Alarms armed by older versions carry the series start time; show the time of
+                // the occurrence this reminder is for instead
+                val occurrenceTime = if (isRecurring) {
+                    val after = System.currentTimeMillis() - ReminderRescheduler.COALESCE_WINDOW_MILLIS
+                    eventRepository.getNextOccurrence(eventId, after)?.instanceStart?.toInstant()?.toEpochMilli()
+                        ?: eventTime
+                } else {
+                    eventTime
+                }
+
                 // Show notification
                 NotificationHelper.showEventReminderNotification(
                     context,
                     eventId,
                     eventTitle,
                     eventDescription,
-                    eventTime
+                    occurrenceTime
                 )
 
                 Timber.d("Notification shown for event: $eventTitle")
 
-                // For recurring events, schedule the next occurrence
-                if (isRecurring && event.recurrenceRule != null) {
-                    val alarmScheduler = AlarmScheduler(context)
-                    val scheduled = alarmScheduler.scheduleAlarm(event)
-                    if (scheduled) {
-                        Timber.d("Scheduled next occurrence for recurring event: $eventTitle")
-                    } else {
-                        Timber.w("Failed to schedule next occurrence for recurring event: $eventTitle")
-                    }
+                // Per-event alarms are no longer re-armed: later occurrences of recurring
+                // events are delivered through the reminder queue
+                if (isRecurring) {
+                    Timber.d("Next occurrence of '$eventTitle' is handled by the reminder queue")
                 }
-
             } catch (e: Exception) {
                 Timber.e(e, "Error handling alarm for event: $eventTitle")
             } finally {
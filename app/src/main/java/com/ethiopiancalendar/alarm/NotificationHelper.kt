@@ -41,6 +41,11 @@ object NotificationHelper {
      */
     private const val CHANNEL_DESCRIPTION = "Notifications for upcoming calendar events"
 
+    /**
+     * Notification ID of event reminders; the event ID is the notification tag.
+     */
+    private const val REMINDER_NOTIFICATION_ID = 1
+
     /**
      * Create notification channels.
      * Should be called when the app starts (e.g., in Application.onCreate()).
@@ -135,7 +140,8 @@ object NotificationHelper {
             eventTimeMillis
         ).build()
 
-        // Use event ID hash as unique notification ID so each event has its own notification
-        notificationManager.notify(eventId.hashCode(), notification)
+        // Tag with the event ID so each event has its own notification without relying on
+        // hash codes being unique; a repeated reminder for the same event replaces the old one
+        notificationManager.notify(eventId, REMINDER_NOTIFICATION_ID, notification)
     }
 }
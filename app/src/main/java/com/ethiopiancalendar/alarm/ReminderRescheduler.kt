@@ -0,0 +1,223 @@
+package com.ethiopiancalendar.alarm
+
+import android.content.Context
+import android.os.SystemClock
+import com.ethiopiancalendar.data.local.dao.EventDao
+import com.ethiopiancalendar.data.local.dao.ReminderQueueDao
+import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.ReminderQueueEntity
+import com.ethiopiancalendar.data.local.entity.ReminderRow
+import com.ethiopiancalendar.data.local.entity.toReminderRow
+import com.ethiopiancalendar.data.preferences.SettingsPreferences
+import com.ethiopiancalendar.domain.calendar.nextOccurrenceAfter
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import timber.log.Timber
+import java.time.Instant
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Keeps the persisted reminder queue and its single "next due" alarm.
+ *
+ * Every event with a reminder has one row in reminder_queue holding its next reminder.
+ * Only the earliest row is armed with AlarmManager, using one fixed PendingIntent, so the
+ * number of system alarms and wakeups no longer grows with the number of events. When that
+ * alarm fires, every reminder due within [COALESCE_WINDOW_MILLIS] is delivered together, the
+ * delivered events are advanced to their next reminder, and the new earliest row is armed.
+ *
+ * [rescheduleAll] rebuilds the whole queue in one batched pass (boot and app start):
+ * 1. One DAO query loads the reminder columns of the events whose reminder can still fire
+ * 2. The next reminder time of every event is computed in a single pass
+ * 3. The queue is replaced in one transaction and the earliest reminder is armed
+ *
+ * The first [rescheduleAll] after upgrading from a version that armed one alarm per event
+ * also cancels those alarms, so they do not fire next to the queued reminders.
+ */
+@Singleton
+class ReminderRescheduler @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val eventDao: EventDao,
+    private val reminderQueueDao: ReminderQueueDao,
+    private val settingsPreferences: SettingsPreferences
+) {
+
+    companion object {
+        // Reminders due this soon after the one that fired are delivered with it
+        const val COALESCE_WINDOW_MILLIS = 60_000L
+
+        private const val PROGRESS_LOG_INTERVAL = 500
+    }
+
+    private val alarmScheduler = AlarmScheduler(context)
+
+    // Serializes queue changes so a delivery never races an event edit
+    private val queueMutex = Mutex()
+
+    /**
+     * Rebuild the reminder queue from the database and arm the earliest reminder.
+     * @return Number of queued reminders
+     */
+    suspend fun rescheduleAll(): Int = withContext(Dispatchers.IO) {
+        queueMutex.withLock {
+            val startNanos = SystemClock.elapsedRealtimeNanos()
+
+            val now = System.currentTimeMillis()
+            val candidates = eventDao.getPendingReminderRows(now)
+            val queriedNanos = SystemClock.elapsedRealtimeNanos()
+            Timber.d("Reminder reschedule: ${candidates.size} candidate events")
+
+            // A legacy alarm can only still be pending for an event whose reminder can still fire
+            if (!settingsPreferences.legacyEventAlarmsCancelled.first()) {
+                candidates.forEach { alarmScheduler.cancelLegacyEventAlarm(it.id) }
+                settingsPreferences.setLegacyEventAlarmsCancelled(true)
+                Timber.i("Reminder reschedule: cancelled legacy alarms of ${candidates.size} events")
+            }
+
+            val queue = ArrayList<ReminderQueueEntity>(candidates.size)
+            candidates.forEachIndexed { index, event ->
+                try {
+                    nextReminder(event, now)?.let { queue.add(it) }
+                } catch (e: Exception) {
+                    Timber.e(e, "Error computing next reminder for event: ${event.id}")
+                }
+                if ((index + 1) % PROGRESS_LOG_INTERVAL == 0) {
+                    Timber.d("Reminder reschedule: computed ${index + 1}/${candidates.size}")
+                }
+            }
+            val computedNanos = SystemClock.elapsedRealtimeNanos()
+
+            reminderQueueDao.replaceAll(queue)
+            armEarliest()
+            val armedNanos = SystemClock.elapsedRealtimeNanos()
+
+            Timber.i(
+                "Reminder reschedule: %d candidates, %d queued; query %d ms, compute %d ms, store and arm %d ms",
+                candidates.size,
+                queue.size,
+                (queriedNanos - startNanos) / 1_000_000,
+                (computedNanos - queriedNanos) / 1_000_000,
+                (armedNanos - computedNanos) / 1_000_000
+            )
+            queue.size
+        }
+    }
+
+    /**
+     * Check if exact alarms can be scheduled.
+     * On Android 12+, this requires SCHEDULE_EXACT_ALARM permission.
+     */
+    fun canScheduleExactAlarms(): Boolean {
+        return alarmScheduler.canScheduleExactAlarms()
+    }
+
+    /**
+     * Queue the next reminder of a created or updated event (or drop it if it has none).
+     */
+    suspend fun onEventSaved(event: EventEntity) = withContext(Dispatchers.IO) {
+        queueMutex.withLock {
+            val reminder = nextReminder(event.toReminderRow(), System.currentTimeMillis())
+            if (reminder != null) {
+                reminderQueueDao.insert(reminder)
+                Timber.d("Queued reminder for event '${event.summary}' at ${Instant.ofEpochMilli(reminder.triggerMillis)}")
+            } else {
+                reminderQueueDao.deleteForEvent(event.id)
+            }
+            armEarliest()
+        }
+    }
+
+    /**
+     * Drop the queued reminder of a deleted event.
+     */
+    suspend fun onEventDeleted(eventId: String) = withContext(Dispatchers.IO) {
+        queueMutex.withLock {
+            reminderQueueDao.deleteForEvent(eventId)
+            armEarliest()
+        }
+    }
+
+    /**
+     * Deliver every reminder due within the coalescing window, advance the delivered
+     * events to their next reminder and arm the new earliest one.
+     * Called by AlarmReceiver when the queue alarm fires.
+     *
+     * @return Number of reminders delivered
+     */
+    suspend fun deliverDueReminders(): Int = withContext(Dispatchers.IO) {
+        queueMutex.withLock {
+            val now = System.currentTimeMillis()
+            val due = reminderQueueDao.getDue(now + COALESCE_WINDOW_MILLIS)
+            if (due.isEmpty()) {
+                armEarliest()
+                return@withLock 0
+            }
+
+            val events = eventDao.getEventsByIds(due.map { it.eventId }).associateBy { it.id }
+            val nextReminders = ArrayList<ReminderQueueEntity>()
+            var deliveredCount = 0
+
+            due.forEach { reminder ->
+                val event = events[reminder.eventId] ?: return@forEach
+                try {
+                    NotificationHelper.showEventReminderNotification(
+                        context,
+                        event.id,
+                        event.summary,
+                        event.description,
+                        reminder.occurrenceMillis
+                    )
+                    deliveredCount++
+                    nextReminder(event.toReminderRow(), now, afterOccurrenceMillis = reminder.occurrenceMillis)
+                        ?.let { nextReminders.add(it) }
+                } catch (e: Exception) {
+                    Timber.e(e, "Error delivering reminder for event: ${event.summary}")
+                }
+            }
+
+            reminderQueueDao.advance(due.map { it.eventId }, nextReminders)
+            armEarliest()
+
+            Timber.d("Delivered $deliveredCount reminders, queued ${nextReminders.size} next occurrences")
+            deliveredCount
+        }
+    }
+
+    /**
+     * Arm the queue alarm for the earliest queued reminder, or cancel it if the queue is empty.
+     * Must be called with [queueMutex] held.
+     */
+    private suspend fun armEarliest() {
+        val earliest = reminderQueueDao.getEarliest()
+        if (earliest == null) {
+            alarmScheduler.cancelReminderQueueAlarm()
+        } else {
+            alarmScheduler.armReminderQueueAlarm(earliest.triggerMillis)
+        }
+    }
+
+    /**
+     * The first reminder of [event] that fires after [nowMillis] for an occurrence after
+     * [afterOccurrenceMillis], or null if there is none
+     */
+    private fun nextReminder(
+        event: ReminderRow,
+        nowMillis: Long,
+        afterOccurrenceMillis: Long = Long.MIN_VALUE
+    ): ReminderQueueEntity? {
+        val reminderMillis = (event.reminderMinutesBefore ?: return null) * 60_000L
+        // The occurrence must start late enough for its reminder to be in the future
+        val after = maxOf(nowMillis + reminderMillis, afterOccurrenceMillis)
+        val occurrenceMillis = event.nextOccurrenceAfter(after)?.toInstant()?.toEpochMilli() ?: return null
+
+        return ReminderQueueEntity(
+            eventId = event.id,
+            triggerMillis = occurrenceMillis - reminderMillis,
+            occurrenceMillis = occurrenceMillis
+        )
+    }
+}
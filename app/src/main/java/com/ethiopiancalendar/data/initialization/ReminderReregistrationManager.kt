@@ -1,15 +1,10 @@
 package com.ethiopiancalendar.data.initialization
 
-import android.content.Context
-import com.ethiopiancalendar.alarm.AlarmScheduler
-import com.ethiopiancalendar.data.local.dao.EventDao
-import dagger.hilt.android.qualifiers.ApplicationContext
+import com.ethiopiancalendar.alarm.ReminderRescheduler
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
 import timber.log.Timber
-import java.time.ZonedDateTime
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -27,10 +22,8 @@ import javax.inject.Singleton
  */
 @Singleton
 class ReminderReregistrationManager @Inject constructor(
-    @ApplicationContext private val context: Context,
-    private val eventDao: EventDao
+    private val reminderRescheduler: ReminderRescheduler
 ) {
-    private val alarmScheduler = AlarmScheduler(context)
     private val applicationScope = CoroutineScope(Dispatchers.IO)
 
     /**
@@ -42,49 +35,10 @@ class ReminderReregistrationManager @Inject constructor(
             try {
                 Timber.d("Starting reminder re-registration...")
 
-                // Get all events that have reminders enabled
-                val eventsWithReminders = eventDao.getAllEvents()
-                    .filter { it.reminderMinutesBefore != null }
+                // One batched pass over the events whose reminders can still fire
+                val armedCount = reminderRescheduler.rescheduleAll()
 
-                Timber.d("Found ${eventsWithReminders.size} events with reminders")
-
-                var rescheduledCount = 0
-                var skippedCount = 0
-
-                eventsWithReminders.forEach { event ->
-                    try {
-                        // Check if event is in the future or is recurring
-                        val shouldReschedule = when {
-                            // Recurring events - always reschedule
-                            event.recurrenceRule != null -> true
-
-                            // One-time events - only if in the future
-                            event.startTime.isAfter(ZonedDateTime.now()) -> true
-
-                            // Past one-time events - skip
-                            else -> false
-                        }
-
-                        if (shouldReschedule) {
-                            val scheduled = alarmScheduler.scheduleAlarm(event)
-                            if (scheduled) {
-                                rescheduledCount++
-                                Timber.d("Rescheduled reminder for: ${event.summary}")
-                            } else {
-                                skippedCount++
-                                Timber.w("Failed to reschedule reminder for: ${event.summary}")
-                            }
-                        } else {
-                            skippedCount++
-                            Timber.d("Skipped past event: ${event.summary}")
-                        }
-                    } catch (e: Exception) {
-                        Timber.e(e, "Error rescheduling reminder for event: ${event.summary}")
-                        skippedCount++
-                    }
-                }
-
-                Timber.d("Reminder re-registration completed: $rescheduledCount rescheduled, $skippedCount skipped")
+                Timber.d("Reminder re-registration completed: $armedCount reminders armed")
             } catch (e: Exception) {
                 Timber.e(e, "Error during reminder re-registration")
             }
@@ -96,6 +50,6 @@ class ReminderReregistrationManager @Inject constructor(
      * On Android 12+, this requires SCHEDULE_EXACT_ALARM permission.
      */
     fun canScheduleExactAlarms(): Boolean {
-        return alarmScheduler.canScheduleExactAlarms()
+        return reminderRescheduler.canScheduleExactAlarms()
     }
 }
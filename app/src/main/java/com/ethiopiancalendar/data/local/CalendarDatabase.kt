@@ -2,10 +2,17 @@ package com.ethiopiancalendar.data.local
 
 import androidx.room.Database
 import androidx.room.RoomDatabase
-import androidx.room.TypeConverters
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 import com.ethiopiancalendar.data.local.converter.DateConverter
 import com.ethiopiancalendar.data.local.dao.EventDao
+import com.ethiopiancalendar.data.local.dao.EventInstanceDao
+import com.ethiopiancalendar.data.local.dao.ReminderQueueDao
 import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.EventFtsEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceHorizonEntity
+import com.ethiopiancalendar.data.local.entity.ReminderQueueEntity
 
 /**
  * Room database for the Calendar application.
@@ -15,19 +22,27 @@ import com.ethiopiancalendar.data.local.entity.EventEntity
  * - (Future: Holiday customizations, user preferences, sync state)
  *
  * Version 1: Initial schema with EventEntity
+ * Version 2: Materialized event instances (event_instances, event_instance_horizon)
+ * Version 3: events.startEpochMillis and indices for the EventDao query patterns
+ * Version 4: Date/times stored as epoch millis + zone id instead of ISO strings
+ * Version 5: Persisted reminder queue (reminder_queue)
+ * Version 6: Full-text search index over events (events_fts)
  *
  * Migration strategy:
- * - For development: Use fallbackToDestructiveMigration()
- * - For production: Provide migration paths for schema changes
+ * - Every schema change ships a Migration below; there is no destructive fallback
+ * - The schema of every version is exported to app/schemas and checked by CalendarDatabaseMigrationTest
  */
 @Database(
     entities = [
-        EventEntity::class
+        EventEntity::class,
+        EventInstanceEntity::class,
+        EventInstanceHorizonEntity::class,
+        ReminderQueueEntity::class,
+        EventFtsEntity::class
     ],
-    version = 1,
+    version = 6,
     exportSchema = true  // Enable schema export for version control
 )
-@TypeConverters(DateConverter::class)
 abstract class CalendarDatabase : RoomDatabase() {
 
     /**
@@ -35,7 +50,243 @@ abstract class CalendarDatabase : RoomDatabase() {
      */
     abstract fun eventDao(): EventDao
 
+    /**
+     * Provides access to the materialized event instances.
+     */
+    abstract fun eventInstanceDao(): EventInstanceDao
+
+    /**
+     * Provides access to the reminder queue.
+     */
+    abstract fun reminderQueueDao(): ReminderQueueDao
+
     companion object {
         const val DATABASE_NAME = "calendar_database"
+
+        /**
+         * Adds the event instance tables. They start empty and are filled by
+         * EventRepository on first use, since materializing needs the RRULE engine.
+         */
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    """
+                    CREATE TABLE IF NOT EXISTS `event_instances` (
+                        `eventId` TEXT NOT NULL,
+                        `epochDay` INTEGER NOT NULL,
+                        `startMillis` INTEGER NOT NULL,
+                        `endMillis` INTEGER,
+                        PRIMARY KEY(`eventId`, `startMillis`),
+                        FOREIGN KEY(`eventId`) REFERENCES `events`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE
+                    )
+                    """.trimIndent()
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_event_instances_epochDay` ON `event_instances` (`epochDay`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_event_instances_startMillis` ON `event_instances` (`startMillis`)")
+                db.execSQL(
+                    """
+                    CREATE TABLE IF NOT EXISTS `event_instance_horizon` (
+                        `id` INTEGER NOT NULL,
+                        `startEpochDay` INTEGER NOT NULL,
+                        `endEpochDay` INTEGER NOT NULL,
+                        PRIMARY KEY(`id`)
+                    )
+                    """.trimIndent()
+                )
+            }
+        }
+
+        /**
+         * Adds startEpochMillis and the indices used by EventDao.
+         *
+         * startTime is an ISO zoned string whose zone id SQLite cannot parse,
+         * so the new column is backfilled row by row through DateConverter.
+         */
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE `events` ADD COLUMN `startEpochMillis` INTEGER NOT NULL DEFAULT 0")
+
+                val converter = DateConverter()
+                db.query("SELECT `id`, `startTime` FROM `events`").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        val startMillis = converter.toZonedDateTime(cursor.getString(1))
+                            ?.toInstant()
+                            ?.toEpochMilli()
+                        if (startMillis != null) {
+                            db.execSQL(
+                                "UPDATE `events` SET `startEpochMillis` = ? WHERE `id` = ?",
+                                arrayOf<Any>(startMillis, cursor.getString(0))
+                            )
+                        }
+                    }
+                }
+
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_events_ethiopianYear_ethiopianMonth_ethiopianDay` " +
+                        "ON `events` (`ethiopianYear`, `ethiopianMonth`, `ethiopianDay`)"
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_events_startEpochMillis` ON `events` (`startEpochMillis`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_events_recurrenceRule` ON `events` (`recurrenceRule`)")
+            }
+        }
+
+        /**
+         * Replaces the ISO string columns startTime, endTime and recurrenceEndDate with
+         * epoch millis (startEpochMillis already exists), keeping the zone in timeZone.
+         *
+         * SQLite cannot drop columns before 3.35, so events is rebuilt. Materialized
+         * instances are cleared first; EventRepository rebuilds them on next use.
+         */
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("DELETE FROM `event_instances`")
+                db.execSQL("DELETE FROM `event_instance_horizon`")
+
+                db.execSQL(
+                    """
+                    CREATE TABLE IF NOT EXISTS `events_new` (
+                        `id` TEXT NOT NULL,
+                        `summary` TEXT NOT NULL,
+                        `description` TEXT,
+                        `startEpochMillis` INTEGER NOT NULL,
+                        `endEpochMillis` INTEGER,
+                        `isAllDay` INTEGER NOT NULL,
+                        `timeZone` TEXT NOT NULL,
+                        `recurrenceRule` TEXT,
+                        `recurrenceEndEpochMillis` INTEGER,
+                        `category` TEXT NOT NULL,
+                        `color` INTEGER NOT NULL,
+                        `reminderMinutesBefore` INTEGER,
+                        `notificationChannelId` TEXT NOT NULL,
+                        `ethiopianYear` INTEGER NOT NULL,
+                        `ethiopianMonth` INTEGER NOT NULL,
+                        `ethiopianDay` INTEGER NOT NULL,
+                        `googleCalendarEventId` TEXT,
+                        `googleCalendarId` TEXT,
+                        `isSynced` INTEGER NOT NULL,
+                        `syncedAt` INTEGER,
+                        `createdAt` INTEGER NOT NULL,
+                        `updatedAt` INTEGER NOT NULL,
+                        PRIMARY KEY(`id`)
+                    )
+                    """.trimIndent()
+                )
+                db.execSQL(
+                    """
+                    INSERT INTO `events_new` (
+                        `id`, `summary`, `description`, `startEpochMillis`, `isAllDay`, `timeZone`,
+                        `recurrenceRule`, `category`, `color`, `reminderMinutesBefore`, `notificationChannelId`,
+                        `ethiopianYear`, `ethiopianMonth`, `ethiopianDay`, `googleCalendarEventId`,
+                        `googleCalendarId`, `isSynced`, `syncedAt`, `createdAt`, `updatedAt`
+                    )
+                    SELECT
+                        `id`, `summary`, `description`, `startEpochMillis`, `isAllDay`, `timeZone`,
+                        `recurrenceRule`, `category`, `color`, `reminderMinutesBefore`, `notificationChannelId`,
+                        `ethiopianYear`, `ethiopianMonth`, `ethiopianDay`, `googleCalendarEventId`,
+                        `googleCalendarId`, `isSynced`, `syncedAt`, `createdAt`, `updatedAt`
+                    FROM `events`
+                    """.trimIndent()
+                )
+
+                // One last ISO parse per row; the start zone becomes the row's timeZone
+                val converter = DateConverter()
+                db.query("SELECT `id`, `startTime`, `endTime`, `recurrenceEndDate` FROM `events`").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        val start = converter.toZonedDateTime(cursor.getString(1))
+                        if (start != null) {
+                            val endMillis = converter.toZonedDateTime(cursor.getString(2))?.toInstant()?.toEpochMilli()
+                            val recurrenceEndMillis = converter.toZonedDateTime(cursor.getString(3))?.toInstant()?.toEpochMilli()
+                            db.execSQL(
+                                """
+                                UPDATE `events_new`
+                                SET `startEpochMillis` = ?, `endEpochMillis` = ?, `recurrenceEndEpochMillis` = ?, `timeZone` = ?
+                                WHERE `id` = ?
+                                """.trimIndent(),
+                                arrayOf<Any?>(
+                                    start.toInstant().toEpochMilli(),
+                                    endMillis,
+                                    recurrenceEndMillis,
+                                    start.zone.id,
+                                    cursor.getString(0)
+                                )
+                            )
+                        }
+                    }
+                }
+
+                db.execSQL("DROP TABLE `events`")
+                db.execSQL("ALTER TABLE `events_new` RENAME TO `events`")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_events_ethiopianYear_ethiopianMonth_ethiopianDay` " +
+                        "ON `events` (`ethiopianYear`, `ethiopianMonth`, `ethiopianDay`)"
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_events_startEpochMillis` ON `events` (`startEpochMillis`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_events_recurrenceRule` ON `events` (`recurrenceRule`)")
+            }
+        }
+
+        /**
+         * Adds the reminder queue. It starts empty and is filled by the
+         * reminder reschedule that runs on every app start.
+         */
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    """
+                    CREATE TABLE IF NOT EXISTS `reminder_queue` (
+                        `eventId` TEXT NOT NULL,
+                        `triggerMillis` INTEGER NOT NULL,
+                        `occurrenceMillis` INTEGER NOT NULL,
+                        PRIMARY KEY(`eventId`),
+                        FOREIGN KEY(`eventId`) REFERENCES `events`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE
+                    )
+                    """.trimIndent()
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_reminder_queue_triggerMillis` ON `reminder_queue` (`triggerMillis`)")
+            }
+        }
+
+        /**
+         * Adds the full-text index over event summaries and descriptions, with the triggers
+         * Room uses to keep an external content FTS table in sync, and indexes existing events.
+         */
+        val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS `events_fts` USING FTS4(" +
+                        "`summary` TEXT NOT NULL, `description` TEXT, tokenize=unicode61, content=`events`)"
+                )
+                db.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_BEFORE_UPDATE " +
+                        "BEFORE UPDATE ON `events` BEGIN DELETE FROM `events_fts` WHERE `docid`=OLD.`rowid`; END"
+                )
+                db.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_BEFORE_DELETE " +
+                        "BEFORE DELETE ON `events` BEGIN DELETE FROM `events_fts` WHERE `docid`=OLD.`rowid`; END"
+                )
+                db.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_AFTER_UPDATE " +
+                        "AFTER UPDATE ON `events` BEGIN INSERT INTO `events_fts`(`docid`, `summary`, `description`) " +
+                        "VALUES (NEW.`rowid`, NEW.`summary`, NEW.`description`); END"
+                )
+                db.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_AFTER_INSERT " +
+                        "AFTER INSERT ON `events` BEGIN INSERT INTO `events_fts`(`docid`, `summary`, `description`) " +
+                        "VALUES (NEW.`rowid`, NEW.`summary`, NEW.`description`); END"
+                )
+                db.execSQL("INSERT INTO `events_fts`(`events_fts`) VALUES('rebuild')")
+            }
+        }
+
+        /**
+         * Every migration, oldest first. Register these on every database builder.
+         */
+        val ALL_MIGRATIONS: Array<Migration> = arrayOf(
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6
+        )
     }
 }
@@ -14,6 +14,9 @@ import java.time.format.DateTimeFormatter
  * - Accurate event scheduling across timezones
  * - Google Calendar API integration (which requires timezone info)
  * - Handling daylight saving time changes
+ *
+ * Since schema version 4 events store epoch millis plus a zone id instead (see EventEntity),
+ * so this is only used by migrations to read rows written by older versions.
  */
 class DateConverter {
 
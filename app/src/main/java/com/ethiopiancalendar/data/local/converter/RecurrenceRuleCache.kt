@@ -0,0 +1,29 @@
+package com.ethiopiancalendar.data.local.converter
+
+import android.util.LruCache
+import com.ethiopiancalendar.data.local.entity.RecurrenceRule
+import com.ethiopiancalendar.data.local.entity.compileRRule
+
+/**
+ * Parsed RecurrenceRule per RRULE string.
+ *
+ * Most events share a few rule strings, so each distinct string is parsed once and the
+ * immutable rule is reused by month rendering, reminder scheduling and widget refreshes.
+ * The cache is bounded so arbitrary imported rules cannot grow it without limit.
+ */
+object RecurrenceRuleCache {
+
+    private const val MAX_SIZE = 256
+
+    // LruCache cannot hold nulls; strings that are not RRULEs map to this instance
+    private val UNPARSABLE = RecurrenceRule()
+
+    private val rules = object : LruCache<String, RecurrenceRule>(MAX_SIZE) {
+        override fun create(key: String): RecurrenceRule = compileRRule(key) ?: UNPARSABLE
+    }
+
+    fun get(rrule: String): RecurrenceRule? {
+        val rule = rules.get(rrule)
+        return if (rule === UNPARSABLE) null else rule
+    }
+}
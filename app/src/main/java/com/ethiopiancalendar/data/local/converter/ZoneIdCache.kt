@@ -0,0 +1,26 @@
+package com.ethiopiancalendar.data.local.converter
+
+import java.time.ZoneId
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Resolved ZoneId per IANA zone id string.
+ *
+ * Events use a handful of zones, so resolving each id once avoids the ZoneId.of
+ * parsing and rules lookup on every row read. Unknown ids fall back to the
+ * device zone instead of failing the read.
+ */
+object ZoneIdCache {
+
+    private val zones = ConcurrentHashMap<String, ZoneId>()
+
+    fun get(zoneId: String): ZoneId {
+        zones[zoneId]?.let { return it }
+        val zone = try {
+            ZoneId.of(zoneId)
+        } catch (e: Exception) {
+            ZoneId.systemDefault()
+        }
+        return zones.putIfAbsent(zoneId, zone) ?: zone
+    }
+}
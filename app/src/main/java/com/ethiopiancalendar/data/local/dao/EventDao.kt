@@ -1,9 +1,45 @@
 package com.ethiopiancalendar.data.local.dao
 
+import androidx.paging.PagingSource
 import androidx.room.*
 import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.EventListRow
+import com.ethiopiancalendar.data.local.entity.ReminderRow
 import kotlinx.coroutines.flow.Flow
 
+// Hot queries, shared with the query plan test in CalendarDatabaseMigrationTest.
+// "recurrenceRule > ''" rather than IS NOT NULL so SQLite can range scan its index.
+internal const val EVENTS_FOR_DATE_QUERY = """
+    SELECT * FROM events
+    WHERE ethiopianYear = :year
+    AND ethiopianMonth = :month
+    AND ethiopianDay = :day
+    ORDER BY startEpochMillis ASC
+"""
+
+internal const val UPCOMING_EVENTS_QUERY = """
+    SELECT * FROM events
+    WHERE startEpochMillis >= :startOfDayMillis
+    ORDER BY startEpochMillis ASC
+    LIMIT :limit
+"""
+
+internal const val RECURRING_EVENTS_QUERY = "SELECT * FROM events WHERE recurrenceRule > ''"
+
+internal const val PENDING_REMINDER_ROWS_QUERY = """
+    SELECT id, startEpochMillis, timeZone, recurrenceRule, recurrenceEndEpochMillis, reminderMinutesBefore
+    FROM events
+    WHERE reminderMinutesBefore IS NOT NULL
+    AND (recurrenceRule > '' OR startEpochMillis >= :fromMillis)
+"""
+
+internal const val SEARCH_EVENTS_QUERY = """
+    SELECT events.* FROM events
+    JOIN events_fts ON events.rowid = events_fts.docid
+    WHERE events_fts MATCH :match
+    ORDER BY events.startEpochMillis DESC
+"""
+
 /**
  * Data Access Object for Event operations.
  *
@@ -16,17 +52,20 @@ interface EventDao {
     // ========== CREATE ==========
 
     /**
-     * Insert a new event.
-     * @return The row ID of the inserted event
+     * Insert a new event, or update it in place if an event with its id exists.
+     *
+     * Never REPLACE: it deletes the old row first, which cascades to the event's instances
+     * and queued reminder, and skips the events_fts delete trigger (recursive triggers are off).
+     * @return The row ID of the inserted event, or -1 if an existing event was updated
      */
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    @Upsert
     suspend fun insertEvent(event: EventEntity): Long
 
     /**
-     * Insert multiple events.
-     * @return Array of row IDs
+     * Insert or update multiple events, as [insertEvent].
+     * @return Row IDs, -1 for each updated event
      */
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    @Upsert
     suspend fun insertEvents(events: List<EventEntity>): List<Long>
 
     // ========== READ ==========
@@ -35,21 +74,41 @@ interface EventDao {
      * Get all events as Flow (reactive).
      * UI will automatically update when events change.
      */
-    @Query("SELECT * FROM events ORDER BY startTime ASC")
+    @Query("SELECT * FROM events ORDER BY startEpochMillis ASC")
     fun getAllEventsFlow(): Flow<List<EventEntity>>
 
     /**
      * Get all events (non-reactive, for one-time fetch).
      */
-    @Query("SELECT * FROM events ORDER BY startTime ASC")
+    @Query("SELECT * FROM events ORDER BY startEpochMillis ASC")
     suspend fun getAllEvents(): List<EventEntity>
 
+    /**
+     * All events ordered by start time, with the event list's columns only,
+     * as a paging source for the event list.
+     * Room invalidates the source when the events table changes.
+     */
+    @Query("""
+        SELECT id, summary, startEpochMillis, endEpochMillis, timeZone, isAllDay, category, color,
+            reminderMinutesBefore, ethiopianYear, ethiopianMonth, ethiopianDay,
+            recurrenceRule IS NOT NULL AS isRecurring
+        FROM events
+        ORDER BY startEpochMillis ASC, id ASC
+    """)
+    fun getEventsPagingSource(): PagingSource<Int, EventListRow>
+
     /**
      * Get event by ID.
      */
     @Query("SELECT * FROM events WHERE id = :eventId")
     suspend fun getEventById(eventId: String): EventEntity?
 
+    /**
+     * Get events by IDs.
+     */
+    @Query("SELECT * FROM events WHERE id IN (:eventIds)")
+    suspend fun getEventsByIds(eventIds: List<String>): List<EventEntity>
+
     /**
      * Get event by ID as Flow (reactive).
      */
@@ -60,13 +119,7 @@ interface EventDao {
      * Get events for a specific Ethiopian date.
      * Useful for showing events on a calendar day.
      */
-    @Query("""
-        SELECT * FROM events
-        WHERE ethiopianYear = :year
-        AND ethiopianMonth = :month
-        AND ethiopianDay = :day
-        ORDER BY startTime ASC
-    """)
+    @Query(EVENTS_FOR_DATE_QUERY)
     fun getEventsForDate(year: Int, month: Int, day: Int): Flow<List<EventEntity>>
 
     /**
@@ -77,7 +130,7 @@ interface EventDao {
         SELECT * FROM events
         WHERE ethiopianYear = :year
         AND ethiopianMonth = :month
-        ORDER BY ethiopianDay ASC, startTime ASC
+        ORDER BY ethiopianDay ASC, startEpochMillis ASC
     """)
     fun getEventsForMonth(year: Int, month: Int): Flow<List<EventEntity>>
 
@@ -87,7 +140,7 @@ interface EventDao {
     @Query("""
         SELECT * FROM events
         WHERE ethiopianYear = :year
-        ORDER BY ethiopianMonth ASC, ethiopianDay ASC, startTime ASC
+        ORDER BY ethiopianMonth ASC, ethiopianDay ASC, startEpochMillis ASC
     """)
     fun getEventsForYear(year: Int): Flow<List<EventEntity>>
 
@@ -100,45 +153,50 @@ interface EventDao {
      */
     @Query("""
         SELECT * FROM events
-        WHERE startTime >= :startTimeMillis
-        AND startTime < :endTimeMillis
-        ORDER BY startTime ASC
+        WHERE startEpochMillis >= :startTimeMillis
+        AND startEpochMillis < :endTimeMillis
+        ORDER BY startEpochMillis ASC
     """)
     fun getEventsInRange(startTimeMillis: Long, endTimeMillis: Long): Flow<List<EventEntity>>
 
     /**
      * Get all recurring events (events with recurrence rules).
      */
-    @Query("SELECT * FROM events WHERE recurrenceRule IS NOT NULL")
+    @Query(RECURRING_EVENTS_QUERY)
     suspend fun getRecurringEvents(): List<EventEntity>
 
+    /**
+     * Recurring events as Flow, for expanding days outside the materialized instance window.
+     */
+    @Query(RECURRING_EVENTS_QUERY)
+    fun getRecurringEventsFlow(): Flow<List<EventEntity>>
+
+    /**
+     * Get events whose reminder can still fire: recurring events and
+     * single events starting at or after [fromMillis] that have a reminder.
+     * Used to reschedule alarms on boot and app start; loads only the reminder columns.
+     */
+    @Query(PENDING_REMINDER_ROWS_QUERY)
+    suspend fun getPendingReminderRows(fromMillis: Long): List<ReminderRow>
+
     /**
      * Get events by category.
      */
-    @Query("SELECT * FROM events WHERE category = :category ORDER BY startTime ASC")
+    @Query("SELECT * FROM events WHERE category = :category ORDER BY startEpochMillis ASC")
     fun getEventsByCategory(category: String): Flow<List<EventEntity>>
 
     /**
-     * Search events by title or description.
+     * Search events by title or description through the events_fts full-text index.
+     * @param match FTS MATCH expression, see EventRepository.toFtsMatch
      */
-    @Query("""
-        SELECT * FROM events
-        WHERE summary LIKE '%' || :query || '%'
-        OR description LIKE '%' || :query || '%'
-        ORDER BY startTime DESC
-    """)
-    fun searchEvents(query: String): Flow<List<EventEntity>>
+    @Query(SEARCH_EVENTS_QUERY)
+    fun searchEvents(match: String): Flow<List<EventEntity>>
 
     /**
      * Get upcoming events (from start of today onwards).
      * Shows all events for today and future events.
      */
-    @Query("""
-        SELECT * FROM events
-        WHERE startTime >= :startOfDayMillis
-        ORDER BY startTime ASC
-        LIMIT :limit
-    """)
+    @Query(UPCOMING_EVENTS_QUERY)
     fun getUpcomingEvents(startOfDayMillis: Long, limit: Int = 10): Flow<List<EventEntity>>
 
     // ========== UPDATE ==========
@@ -208,7 +266,7 @@ interface EventDao {
      * Delete past events (older than specified date).
      * Useful for cleanup.
      */
-    @Query("DELETE FROM events WHERE startTime < :beforeTimeMillis AND recurrenceRule IS NULL")
+    @Query("DELETE FROM events WHERE startEpochMillis < :beforeTimeMillis AND recurrenceRule IS NULL")
     suspend fun deletePastEvents(beforeTimeMillis: Long): Int
 
     // ========== COUNT ==========
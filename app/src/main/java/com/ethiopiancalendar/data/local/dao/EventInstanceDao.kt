@@ -0,0 +1,176 @@
+package com.ethiopiancalendar.data.local.dao
+
+import androidx.room.*
+import com.ethiopiancalendar.data.local.entity.EventInstanceEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceHorizonEntity
+import com.ethiopiancalendar.data.local.entity.EventWithInstance
+import com.ethiopiancalendar.data.local.entity.MonthCellRow
+import com.ethiopiancalendar.data.local.entity.WidgetEventRow
+import kotlinx.coroutines.flow.Flow
+
+private const val DELETE_BATCH_SIZE = 500
+
+// Hot queries, shared with the query plan test in CalendarDatabaseMigrationTest
+internal const val INSTANCES_FOR_DAYS_QUERY = """
+    SELECT events.*,
+        event_instances.epochDay AS instanceEpochDay,
+        event_instances.startMillis AS instanceStartMillis,
+        event_instances.endMillis AS instanceEndMillis
+    FROM event_instances
+    INNER JOIN events ON events.id = event_instances.eventId
+    WHERE event_instances.epochDay >= :startEpochDay
+    AND event_instances.epochDay < :endEpochDay
+    ORDER BY event_instances.epochDay ASC, event_instances.startMillis ASC
+"""
+
+internal const val INSTANCES_IN_RANGE_QUERY = """
+    SELECT events.*,
+        event_instances.epochDay AS instanceEpochDay,
+        event_instances.startMillis AS instanceStartMillis,
+        event_instances.endMillis AS instanceEndMillis
+    FROM event_instances
+    INNER JOIN events ON events.id = event_instances.eventId
+    WHERE event_instances.startMillis >= :startMillis
+    AND event_instances.startMillis < :endMillis
+    ORDER BY event_instances.startMillis ASC
+"""
+
+internal const val UPCOMING_INSTANCES_QUERY = """
+    SELECT events.*,
+        event_instances.epochDay AS instanceEpochDay,
+        event_instances.startMillis AS instanceStartMillis,
+        event_instances.endMillis AS instanceEndMillis
+    FROM event_instances
+    INNER JOIN events ON events.id = event_instances.eventId
+    WHERE event_instances.startMillis >= :fromMillis
+    ORDER BY event_instances.startMillis ASC
+    LIMIT :limit
+"""
+
+internal const val MONTH_CELL_ROWS_QUERY = """
+    SELECT event_instances.eventId, event_instances.epochDay, events.color
+    FROM event_instances
+    INNER JOIN events ON events.id = event_instances.eventId
+    WHERE event_instances.epochDay >= :startEpochDay
+    AND event_instances.epochDay < :endEpochDay
+    ORDER BY event_instances.epochDay ASC, event_instances.startMillis ASC
+"""
+
+internal const val UPCOMING_WIDGET_ROWS_QUERY = """
+    SELECT events.id, events.summary, events.isAllDay, events.color, events.category,
+        event_instances.startMillis AS instanceStartMillis,
+        event_instances.endMillis AS instanceEndMillis
+    FROM event_instances
+    INNER JOIN events ON events.id = event_instances.eventId
+    WHERE event_instances.startMillis >= :fromMillis
+    ORDER BY event_instances.startMillis ASC
+    LIMIT :limit
+"""
+
+/**
+ * Data Access Object for the materialized event instances.
+ *
+ * Day, month and range reads are index range scans on event_instances joined
+ * back to their event. The table is written only by EventRepository.
+ */
+@Dao
+interface EventInstanceDao {
+
+    // ========== READ ==========
+
+    /**
+     * Instances on local days [startEpochDay, endEpochDay).
+     * Useful for day and month views.
+     */
+    @Query(INSTANCES_FOR_DAYS_QUERY)
+    fun getInstancesForDays(startEpochDay: Long, endEpochDay: Long): Flow<List<EventWithInstance>>
+
+    /**
+     * Instances starting in [startMillis, endMillis).
+     */
+    @Query(INSTANCES_IN_RANGE_QUERY)
+    fun getInstancesInRange(startMillis: Long, endMillis: Long): Flow<List<EventWithInstance>>
+
+    /**
+     * First [limit] instances starting at or after [fromMillis].
+     */
+    @Query(UPCOMING_INSTANCES_QUERY)
+    fun getUpcomingInstances(fromMillis: Long, limit: Int): Flow<List<EventWithInstance>>
+
+    /**
+     * Event id and color of the instances on local days [startEpochDay, endEpochDay),
+     * for month grid cell markers.
+     */
+    @Query(MONTH_CELL_ROWS_QUERY)
+    fun getMonthCellRows(startEpochDay: Long, endEpochDay: Long): Flow<List<MonthCellRow>>
+
+    /**
+     * First [limit] instances starting at or after [fromMillis], with the widget's columns only.
+     */
+    @Query(UPCOMING_WIDGET_ROWS_QUERY)
+    suspend fun getUpcomingWidgetRows(fromMillis: Long, limit: Int): List<WidgetEventRow>
+
+    @Query("SELECT * FROM event_instance_horizon LIMIT 1")
+    suspend fun getHorizon(): EventInstanceHorizonEntity?
+
+    // ========== WRITE ==========
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertInstances(instances: List<EventInstanceEntity>)
+
+    @Query("DELETE FROM event_instances WHERE eventId = :eventId")
+    suspend fun deleteInstancesForEvent(eventId: String): Int
+
+    @Query("DELETE FROM event_instances")
+    suspend fun deleteAllInstances(): Int
+
+    /**
+     * Delete the instances of [eventIds] on days outside [startEpochDay, endEpochDay).
+     */
+    @Query("""
+        DELETE FROM event_instances
+        WHERE eventId IN (:eventIds)
+        AND (epochDay < :startEpochDay OR epochDay >= :endEpochDay)
+    """)
+    suspend fun deleteInstancesOutside(eventIds: List<String>, startEpochDay: Long, endEpochDay: Long): Int
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun setHorizon(horizon: EventInstanceHorizonEntity)
+
+    /**
+     * Replace all instances of one event.
+     */
+    @Transaction
+    suspend fun replaceInstancesForEvent(eventId: String, instances: List<EventInstanceEntity>) {
+        deleteInstancesForEvent(eventId)
+        insertInstances(instances)
+    }
+
+    /**
+     * Move the materialized window to [horizon]: drop the instances of the recurring events
+     * [recurringEventIds] that fell outside it and add the instances of the newly covered days.
+     */
+    @Transaction
+    suspend fun rollHorizon(
+        recurringEventIds: List<String>,
+        instances: List<EventInstanceEntity>,
+        horizon: EventInstanceHorizonEntity
+    ) {
+        // Stay under SQLite's bound parameter limit
+        recurringEventIds.chunked(DELETE_BATCH_SIZE).forEach { ids ->
+            deleteInstancesOutside(ids, horizon.startEpochDay, horizon.endEpochDay)
+        }
+        insertInstances(instances)
+        setHorizon(horizon)
+    }
+
+    /**
+     * Drop everything and materialize from scratch.
+     */
+    @Transaction
+    suspend fun rebuild(instances: List<EventInstanceEntity>, horizon: EventInstanceHorizonEntity) {
+        deleteAllInstances()
+        insertInstances(instances)
+        setHorizon(horizon)
+    }
+}
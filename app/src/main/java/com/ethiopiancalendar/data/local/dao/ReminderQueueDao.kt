@@ -0,0 +1,66 @@
+package com.ethiopiancalendar.data.local.dao
+
+import androidx.room.*
+import com.ethiopiancalendar.data.local.entity.ReminderQueueEntity
+
+// Hot queries, shared with the query plan test in CalendarDatabaseMigrationTest
+internal const val EARLIEST_REMINDER_QUERY = "SELECT * FROM reminder_queue ORDER BY triggerMillis ASC LIMIT 1"
+
+internal const val DUE_REMINDERS_QUERY = "SELECT * FROM reminder_queue WHERE triggerMillis <= :untilMillis ORDER BY triggerMillis ASC"
+
+/**
+ * Data Access Object for the persisted reminder queue.
+ * Reads are ordered by trigger time through the triggerMillis index.
+ */
+@Dao
+interface ReminderQueueDao {
+
+    // ========== READ ==========
+
+    /**
+     * The reminder that fires first, or null if the queue is empty.
+     */
+    @Query(EARLIEST_REMINDER_QUERY)
+    suspend fun getEarliest(): ReminderQueueEntity?
+
+    /**
+     * Reminders firing at or before [untilMillis], earliest first.
+     */
+    @Query(DUE_REMINDERS_QUERY)
+    suspend fun getDue(untilMillis: Long): List<ReminderQueueEntity>
+
+    // ========== WRITE ==========
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insert(reminder: ReminderQueueEntity)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAll(reminders: List<ReminderQueueEntity>)
+
+    @Query("DELETE FROM reminder_queue WHERE eventId = :eventId")
+    suspend fun deleteForEvent(eventId: String): Int
+
+    @Query("DELETE FROM reminder_queue WHERE eventId IN (:eventIds)")
+    suspend fun deleteForEvents(eventIds: List<String>): Int
+
+    @Query("DELETE FROM reminder_queue")
+    suspend fun deleteAll(): Int
+
+    /**
+     * Replace the whole queue.
+     */
+    @Transaction
+    suspend fun replaceAll(reminders: List<ReminderQueueEntity>) {
+        deleteAll()
+        insertAll(reminders)
+    }
+
+    /**
+     * Remove delivered reminders and queue the next reminder of their events.
+     */
+    @Transaction
+    suspend fun advance(deliveredEventIds: List<String>, nextReminders: List<ReminderQueueEntity>) {
+        deleteForEvents(deliveredEventIds)
+        insertAll(nextReminders)
+    }
+}
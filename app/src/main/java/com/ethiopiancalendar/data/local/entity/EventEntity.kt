@@ -1,9 +1,11 @@
 package com.ethiopiancalendar.data.local.entity
 
 import androidx.room.Entity
+import androidx.room.Ignore
+import androidx.room.Index
 import androidx.room.PrimaryKey
-import androidx.room.TypeConverters
-import com.ethiopiancalendar.data.local.converter.DateConverter
+import com.ethiopiancalendar.data.local.converter.ZoneIdCache
+import java.time.Instant
 import java.time.ZonedDateTime
 import java.util.UUID
 
@@ -22,9 +24,20 @@ import java.util.UUID
  * - googleCalendarEventId: For bidirectional sync with Google Calendar
  *
  * Ethiopian calendar fields are stored separately for local display purposes.
+ *
+ * Date/times are stored as epoch millis plus the timeZone column, and startTime, endTime and
+ * recurrenceEndDate are rebuilt from them the first time they are read. Loading a row therefore
+ * does no date string parsing or ZonedDateTime building, and startEpochMillis doubles as the
+ * indexed column for range queries.
  */
-@Entity(tableName = "events")
-@TypeConverters(DateConverter::class)
+@Entity(
+    tableName = "events",
+    indices = [
+        Index(value = ["ethiopianYear", "ethiopianMonth", "ethiopianDay"]),
+        Index(value = ["startEpochMillis"]),
+        Index(value = ["recurrenceRule"])
+    ]
+)
 data class EventEntity(
     @PrimaryKey
     val id: String = UUID.randomUUID().toString(),
@@ -32,14 +45,14 @@ data class EventEntity(
     // Core event fields (Google Calendar compatible)
     val summary: String,                              // Event title
     val description: String? = null,                   // Event description
-    val startTime: ZonedDateTime,                      // Start date/time with timezone
-    val endTime: ZonedDateTime? = null,                // End date/time with timezone (null for reminders)
+    val startEpochMillis: Long,                        // Start instant (epoch millis, indexed)
+    val endEpochMillis: Long? = null,                  // End instant (null for reminders)
     val isAllDay: Boolean = false,                     // All-day event flag
-    val timeZone: String = "Africa/Addis_Ababa",      // IANA timezone identifier
+    val timeZone: String = "Africa/Addis_Ababa",      // IANA timezone identifier of start, end and recurrence end
 
     // Recurrence fields (Google Calendar compatible)
     val recurrenceRule: String? = null,                // RRULE string (e.g., "RRULE:FREQ=WEEKLY;BYDAY=TU,TH")
-    val recurrenceEndDate: ZonedDateTime? = null,      // When recurrence ends (null = never ends)
+    val recurrenceEndEpochMillis: Long? = null,        // When recurrence ends (null = never ends)
 
     // Category and visual
     val category: String = "PERSONAL",                 // PERSONAL, WORK, RELIGIOUS, etc.
@@ -63,7 +76,31 @@ data class EventEntity(
     // Metadata
     val createdAt: Long = System.currentTimeMillis(),  // Creation timestamp
     val updatedAt: Long = System.currentTimeMillis()   // Last update timestamp
-)
+) {
+    /**
+     * Start date/time with timezone
+     */
+    @delegate:Ignore
+    val startTime: ZonedDateTime by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        Instant.ofEpochMilli(startEpochMillis).atZone(ZoneIdCache.get(timeZone))
+    }
+
+    /**
+     * End date/time with timezone (null for reminders)
+     */
+    @delegate:Ignore
+    val endTime: ZonedDateTime? by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        endEpochMillis?.let { Instant.ofEpochMilli(it).atZone(ZoneIdCache.get(timeZone)) }
+    }
+
+    /**
+     * When recurrence ends (null = never ends)
+     */
+    @delegate:Ignore
+    val recurrenceEndDate: ZonedDateTime? by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        recurrenceEndEpochMillis?.let { Instant.ofEpochMilli(it).atZone(ZoneIdCache.get(timeZone)) }
+    }
+}
 
 /**
  * Represents a single instance of an event (useful for recurring events).
@@ -0,0 +1,20 @@
+package com.ethiopiancalendar.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+/**
+ * Full-text index over event titles and descriptions.
+ *
+ * External content table backed by [EventEntity]: Room keeps it in sync with triggers on
+ * events, and rows share the rowid (docid) of their event. The unicode61 tokenizer splits
+ * words on Unicode categories, so Ge'ez (Ethiopic) words are tokens and the Ethiopic word
+ * space (፡) and other punctuation separate them.
+ */
+@Fts4(contentEntity = EventEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "events_fts")
+data class EventFtsEntity(
+    val summary: String,
+    val description: String?
+)
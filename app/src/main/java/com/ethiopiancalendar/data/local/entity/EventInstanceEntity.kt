@@ -0,0 +1,71 @@
+package com.ethiopiancalendar.data.local.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Embedded
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Materialized occurrence of an event.
+ *
+ * Derived from [EventEntity] by EventRepository: a single event has exactly one row, a recurring
+ * event has one row per occurrence inside the materialized horizon (see [EventInstanceHorizonEntity]).
+ * Rows are deleted with their event through the foreign key.
+ *
+ * - epochDay: Local date of the occurrence in the event's time zone (LocalDate.toEpochDay)
+ * - startMillis / endMillis: Occurrence start and end instants
+ */
+@Entity(
+    tableName = "event_instances",
+    primaryKeys = ["eventId", "startMillis"],
+    foreignKeys = [
+        ForeignKey(
+            entity = EventEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["eventId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [
+        Index("epochDay"),
+        Index("startMillis")
+    ]
+)
+data class EventInstanceEntity(
+    val eventId: String,
+    val epochDay: Long,
+    val startMillis: Long,
+    val endMillis: Long? = null
+)
+
+/**
+ * Epoch day range [startEpochDay, endEpochDay) for which recurring events are materialized.
+ * Single row table; EventRepository rolls the range forward with the date.
+ */
+@Entity(tableName = "event_instance_horizon")
+data class EventInstanceHorizonEntity(
+    @PrimaryKey
+    val id: Int = SINGLE_ROW_ID,
+    val startEpochDay: Long,
+    val endEpochDay: Long
+) {
+    companion object {
+        const val SINGLE_ROW_ID = 0
+    }
+}
+
+/**
+ * An event joined with one of its materialized instances
+ */
+data class EventWithInstance(
+    @Embedded
+    val event: EventEntity,
+    @ColumnInfo(name = "instanceEpochDay")
+    val epochDay: Long,
+    @ColumnInfo(name = "instanceStartMillis")
+    val startMillis: Long,
+    @ColumnInfo(name = "instanceEndMillis")
+    val endMillis: Long?
+)
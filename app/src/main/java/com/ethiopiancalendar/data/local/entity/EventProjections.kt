@@ -0,0 +1,77 @@
+package com.ethiopiancalendar.data.local.entity
+
+import androidx.room.ColumnInfo
+
+/**
+ * Column projections of events for read paths that only need a few fields.
+ *
+ * Loading full EventEntity rows means copying description, sync and metadata columns out
+ * of the cursor and allocating an entity per row; these rows carry only what
+ * their consumer reads.
+ */
+
+/**
+ * An upcoming event instance as shown in the widget list
+ */
+data class WidgetEventRow(
+    val id: String,
+    val summary: String,
+    @ColumnInfo(name = "instanceStartMillis")
+    val startMillis: Long,
+    @ColumnInfo(name = "instanceEndMillis")
+    val endMillis: Long?,
+    val isAllDay: Boolean,
+    val color: Int,
+    val category: String
+)
+
+/**
+ * An event as shown in the paged event list.
+ * Editing loads the full entity by id, so the list never pages descriptions or sync columns.
+ */
+data class EventListRow(
+    val id: String,
+    val summary: String,
+    val startEpochMillis: Long,
+    val endEpochMillis: Long?,
+    val timeZone: String,
+    val isAllDay: Boolean,
+    val category: String,
+    val color: Int,
+    val reminderMinutesBefore: Int?,
+    val ethiopianYear: Int,
+    val ethiopianMonth: Int,
+    val ethiopianDay: Int,
+    val isRecurring: Boolean
+)
+
+/**
+ * What reminder scheduling needs to find an event's next occurrence.
+ * Dates stay as epoch millis; nextOccurrenceAfter only builds ZonedDateTimes for recurring rows.
+ */
+data class ReminderRow(
+    val id: String,
+    val startEpochMillis: Long,
+    val timeZone: String,
+    val recurrenceRule: String?,
+    val recurrenceEndEpochMillis: Long?,
+    val reminderMinutesBefore: Int?
+)
+
+/**
+ * An event instance on a month grid day, for the cell's event marker
+ */
+data class MonthCellRow(
+    val eventId: String,
+    val epochDay: Long,
+    val color: Int
+)
+
+fun EventEntity.toReminderRow(): ReminderRow = ReminderRow(
+    id = id,
+    startEpochMillis = startEpochMillis,
+    timeZone = timeZone,
+    recurrenceRule = recurrenceRule,
+    recurrenceEndEpochMillis = recurrenceEndEpochMillis,
+    reminderMinutesBefore = reminderMinutesBefore
+)
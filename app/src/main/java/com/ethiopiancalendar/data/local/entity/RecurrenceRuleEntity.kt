@@ -1,6 +1,9 @@
 package com.ethiopiancalendar.data.local.entity
 
+import com.ethiopiancalendar.data.local.converter.RecurrenceRuleCache
 import java.time.DayOfWeek
+import java.util.Collections
+import java.util.EnumSet
 
 /**
  * Data class representing a recurrence rule for events.
@@ -11,16 +14,32 @@ import java.time.DayOfWeek
  * - Weekly on Tuesday and Thursday: "RRULE:FREQ=WEEKLY;BYDAY=TU,TH"
  * - Weekly on Monday until specific date: "RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20251231T235959Z"
  * - Daily for 10 occurrences: "RRULE:FREQ=DAILY;COUNT=10"
+ * - Every other week on Friday: "RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=FR"
+ * - Every Meskerem 1: "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY"
+ *
+ * MONTHLY and YEARLY rules repeat on the day (and month) of the event start. With
+ * RSCALE=ETHIOPIC they follow Ethiopian months and years instead of Gregorian ones.
+ *
+ * Rules parsed from RRULE text are shared through [RecurrenceRuleCache], so a rule is immutable:
+ * [weekDays] cannot be modified and the sorted day numbers used for expansion are computed once.
  *
  * Reference: https://datatracker.ietf.org/doc/html/rfc5545#section-3.3.10
+ * RSCALE: https://datatracker.ietf.org/doc/html/rfc7529
  */
 data class RecurrenceRule(
     val frequency: RecurrenceFrequency = RecurrenceFrequency.NONE,
     val weekDays: Set<DayOfWeek> = emptySet(),         // Days of week (for WEEKLY frequency)
     val endOption: RecurrenceEndOption = RecurrenceEndOption.NEVER,
     val endDate: Long? = null,                          // End date timestamp (for UNTIL end option)
-    val count: Int? = null                              // Number of occurrences (for COUNT end option)
-)
+    val count: Int? = null,                             // Number of occurrences (for COUNT end option)
+    val interval: Int = 1,                              // Repeat every N days/weeks/months/years
+    val calendarScale: RecurrenceCalendar = RecurrenceCalendar.GREGORIAN // Calendar for MONTHLY/YEARLY
+) {
+    /**
+     * ISO day numbers (Monday = 1) of [weekDays] in ascending order. Do not modify.
+     */
+    internal val weekDayValues: IntArray = weekDays.map { it.value }.sorted().toIntArray()
+}
 
 enum class RecurrenceFrequency(val rruleValue: String) {
     NONE(""),
@@ -30,6 +49,14 @@ enum class RecurrenceFrequency(val rruleValue: String) {
     YEARLY("YEARLY")
 }
 
+/**
+ * Calendar the month and year steps of a rule are counted in (RFC 7529 RSCALE)
+ */
+enum class RecurrenceCalendar(val rruleValue: String) {
+    GREGORIAN("GREGORIAN"),
+    ETHIOPIC("ETHIOPIC")
+}
+
 enum class RecurrenceEndOption {
     NEVER,      // No end date
     UNTIL,      // Ends on specific date
@@ -43,12 +70,20 @@ enum class RecurrenceEndOption {
  * - Weekly on Tu, Th, never ends: "RRULE:FREQ=WEEKLY;BYDAY=TU,TH"
  * - Weekly on Mo, until date: "RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20251231T235959Z"
  * - Daily, 10 times: "RRULE:FREQ=DAILY;COUNT=10"
+ * - Every Meskerem 1: "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY"
  */
 fun RecurrenceRule.toRRuleString(): String? {
     if (frequency == RecurrenceFrequency.NONE) return null
 
     val parts = mutableListOf<String>()
+    // RFC 7529 puts RSCALE first; Gregorian is the default and is left out
+    if (calendarScale != RecurrenceCalendar.GREGORIAN) {
+        parts.add("RSCALE=${calendarScale.rruleValue}")
+    }
     parts.add("FREQ=${frequency.rruleValue}")
+    if (interval > 1) {
+        parts.add("INTERVAL=$interval")
+    }
 
     // Add weekdays for WEEKLY frequency
     if (frequency == RecurrenceFrequency.WEEKLY && weekDays.isNotEmpty()) {
@@ -93,43 +128,85 @@ fun DayOfWeek.toRRuleDay(): String = when (this) {
  * Extension function to parse RRULE string into RecurrenceRule object.
  *
  * Example: "RRULE:FREQ=WEEKLY;BYDAY=TU,TH" -> RecurrenceRule(WEEKLY, [TU, TH], NEVER)
+ *
+ * Parsed rules are interned in [RecurrenceRuleCache], so calling this for every event on
+ * every month render, alarm pass or widget refresh only parses each distinct rule once.
  */
-fun String.parseRRule(): RecurrenceRule? {
-    if (!this.startsWith("RRULE:")) return null
+fun String.parseRRule(): RecurrenceRule? = RecurrenceRuleCache.get(this)
 
-    val ruleParts = this.removePrefix("RRULE:").split(";")
+/**
+ * Parse RRULE text without the cache. Use [parseRRule].
+ */
+internal fun compileRRule(rrule: String): RecurrenceRule? {
+    if (!rrule.startsWith(RRULE_PREFIX)) return null
+
+    val ruleParts = rrule.substring(RRULE_PREFIX.length).split(';')
     var frequency = RecurrenceFrequency.NONE
-    val weekDays = mutableSetOf<DayOfWeek>()
+    val weekDays = EnumSet.noneOf(DayOfWeek::class.java)
     var endOption = RecurrenceEndOption.NEVER
     var endDate: Long? = null
     var count: Int? = null
+    var interval = 1
+    var calendarScale = RecurrenceCalendar.GREGORIAN
 
     for (part in ruleParts) {
-        val (key, value) = part.split("=", limit = 2)
+        val separator = part.indexOf('=')
+        if (separator <= 0) continue
+        val key = part.substring(0, separator)
+        val value = part.substring(separator + 1)
         when (key) {
             "FREQ" -> frequency = RecurrenceFrequency.entries.find { it.rruleValue == value } ?: RecurrenceFrequency.NONE
             "BYDAY" -> {
-                weekDays.addAll(value.split(",").mapNotNull { it.parseDayOfWeek() })
+                value.split(',').forEach { day -> day.parseDayOfWeek()?.let { weekDays.add(it) } }
             }
             "UNTIL" -> {
                 endOption = RecurrenceEndOption.UNTIL
-                endDate = try {
-                    java.time.ZonedDateTime.parse(
-                        value,
-                        java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
-                    ).toInstant().toEpochMilli()
-                } catch (e: Exception) {
-                    null
-                }
+                endDate = parseUntil(value)
             }
             "COUNT" -> {
                 endOption = RecurrenceEndOption.COUNT
                 count = value.toIntOrNull()
             }
+            "INTERVAL" -> interval = value.toIntOrNull()?.coerceAtLeast(1) ?: 1
+            "RSCALE" -> calendarScale = RecurrenceCalendar.entries.find { it.rruleValue == value.uppercase() }
+                ?: RecurrenceCalendar.GREGORIAN
         }
     }
 
-    return RecurrenceRule(frequency, weekDays, endOption, endDate, count)
+    return RecurrenceRule(
+        frequency,
+        Collections.unmodifiableSet(weekDays),
+        endOption,
+        endDate,
+        count,
+        interval,
+        calendarScale
+    )
+}
+
+private const val RRULE_PREFIX = "RRULE:"
+
+private val UNTIL_DATE_TIME_FORMAT = java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss")
+
+/**
+ * Parse an UNTIL value as epoch millis.
+ *
+ * UNTIL is either a UTC date-time ("20251231T235959Z") or a date ("20251231", end of day UTC).
+ * The pattern has no zone field, so it is parsed as a LocalDateTime and pinned to UTC.
+ */
+private fun parseUntil(value: String): Long? = try {
+    if (value.length == 8) {
+        java.time.LocalDate.parse(value, java.time.format.DateTimeFormatter.BASIC_ISO_DATE)
+            .atTime(java.time.LocalTime.MAX)
+            .toInstant(java.time.ZoneOffset.UTC)
+            .toEpochMilli()
+    } else {
+        java.time.LocalDateTime.parse(value.removeSuffix("Z"), UNTIL_DATE_TIME_FORMAT)
+            .toInstant(java.time.ZoneOffset.UTC)
+            .toEpochMilli()
+    }
+} catch (e: Exception) {
+    null
 }
 
 /**
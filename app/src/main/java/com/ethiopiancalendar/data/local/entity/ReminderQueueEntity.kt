@@ -0,0 +1,37 @@
+package com.ethiopiancalendar.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Next pending reminder of an event, kept in a time-ordered queue.
+ *
+ * Each event with a reminder has at most one row: the next reminder that has not fired yet.
+ * Only the earliest row is armed with AlarmManager (see ReminderRescheduler), and rows are
+ * deleted with their event through the foreign key.
+ *
+ * - triggerMillis: When the reminder fires (occurrence start - reminder offset)
+ * - occurrenceMillis: Start of the occurrence the reminder is for
+ */
+@Entity(
+    tableName = "reminder_queue",
+    foreignKeys = [
+        ForeignKey(
+            entity = EventEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["eventId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [
+        Index("triggerMillis")
+    ]
+)
+data class ReminderQueueEntity(
+    @PrimaryKey
+    val eventId: String,
+    val triggerMillis: Long,
+    val occurrenceMillis: Long
+)
@@ -7,6 +7,7 @@ import androidx.datastore.preferences.core.intPreferencesKey
 import androidx.datastore.preferences.core.longPreferencesKey
 import androidx.datastore.preferences.core.stringPreferencesKey
 import androidx.datastore.preferences.preferencesDataStore
+import com.ethiopiancalendar.domain.model.HolidayOffsets
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.map
 
@@ -26,6 +27,17 @@ enum class Language(val displayName: String) {
     FRENCH("French")
 }
 
+/**
+ * Preferences that affect the home screen widget, read together in one DataStore read
+ */
+data class WidgetPreferences(
+    val use24HourFormat: Boolean,
+    val displayTwoClocks: Boolean,
+    val primaryTimezone: String,     // IANA zone id, empty if not set
+    val secondaryTimezone: String,   // IANA zone id, empty if not set
+    val useTransparentBackground: Boolean
+)
+
 class SettingsPreferences(private val context: Context) {
 
     // App Version and First-Run Settings
@@ -34,6 +46,7 @@ class SettingsPreferences(private val context: Context) {
     private val IS_FIRST_RUN_KEY = booleanPreferencesKey("is_first_run")
     private val LAST_USED_TIMESTAMP_KEY = longPreferencesKey("last_used_timestamp")
     private val FIREBASE_INSTALLATION_ID_KEY = stringPreferencesKey("firebase_installation_id")
+    private val LEGACY_EVENT_ALARMS_CANCELLED_KEY = booleanPreferencesKey("legacy_event_alarms_cancelled")
 
     // Locale Settings
     private val PRIMARY_LOCALE_KEY = stringPreferencesKey("primary_locale")
@@ -85,6 +98,11 @@ class SettingsPreferences(private val context: Context) {
         preferences[FIREBASE_INSTALLATION_ID_KEY] ?: ""
     }
 
+    // Whether the per-event reminder alarms of versions before the reminder queue were cancelled
+    val legacyEventAlarmsCancelled: Flow<Boolean> = context.settingsDataStore.data.map { preferences ->
+        preferences[LEGACY_EVENT_ALARMS_CANCELLED_KEY] ?: false
+    }
+
     // Flow properties for locale settings
     val primaryLocale: Flow<String> = context.settingsDataStore.data.map { preferences ->
         preferences[PRIMARY_LOCALE_KEY] ?: ""
@@ -161,6 +179,16 @@ class SettingsPreferences(private val context: Context) {
         preferences[USE_TRANSPARENT_BACKGROUND_KEY] ?: false
     }
 
+    val widgetPreferences: Flow<WidgetPreferences> = context.settingsDataStore.data.map { preferences ->
+        WidgetPreferences(
+            use24HourFormat = preferences[USE_24_HOUR_FORMAT_KEY] ?: false,
+            displayTwoClocks = preferences[DISPLAY_TWO_CLOCKS_KEY] ?: false,
+            primaryTimezone = preferences[PRIMARY_WIDGET_TIMEZONE_KEY] ?: "",
+            secondaryTimezone = preferences[SECONDARY_WIDGET_TIMEZONE_KEY] ?: "",
+            useTransparentBackground = preferences[USE_TRANSPARENT_BACKGROUND_KEY] ?: false
+        )
+    }
+
     val language: Flow<Language> = context.settingsDataStore.data.map { preferences ->
         val languageString = preferences[LANGUAGE_KEY] ?: Language.AMHARIC.name
         try {
@@ -187,6 +215,16 @@ class SettingsPreferences(private val context: Context) {
         preferences[DAY_OFFSET_ETHIO_YEAR_KEY] ?: 0
     }
 
+    // All Muslim holiday offsets read from a single preferences snapshot
+    val holidayOffsets: Flow<HolidayOffsets> = context.settingsDataStore.data.map { preferences ->
+        HolidayOffsets(
+            eidAlAdha = preferences[DAY_OFFSET_EID_AL_ADHA_KEY] ?: 0,
+            eidAlFitr = preferences[DAY_OFFSET_EID_AL_FITR_KEY] ?: 0,
+            mawlid = preferences[DAY_OFFSET_MAWLID_KEY] ?: 0,
+            configuredYear = preferences[DAY_OFFSET_ETHIO_YEAR_KEY] ?: 0
+        )
+    }
+
     // Setter functions for app version and first-run
     suspend fun setVersionCode(versionCode: Int) {
         context.settingsDataStore.edit { preferences ->
@@ -218,6 +256,12 @@ class SettingsPreferences(private val context: Context) {
         }
     }
 
+    suspend fun setLegacyEventAlarmsCancelled(value: Boolean) {
+        context.settingsDataStore.edit { preferences ->
+            preferences[LEGACY_EVENT_ALARMS_CANCELLED_KEY] = value
+        }
+    }
+
     // Setter functions for locale settings
     suspend fun setPrimaryLocale(locale: String) {
         context.settingsDataStore.edit { preferences ->
@@ -1,11 +1,40 @@
 package com.ethiopiancalendar.data.repository
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
 import com.ethiopiancalendar.data.local.dao.EventDao
+import com.ethiopiancalendar.data.local.dao.EventInstanceDao
 import com.ethiopiancalendar.data.local.entity.EventEntity
 import com.ethiopiancalendar.data.local.entity.EventInstance
+import com.ethiopiancalendar.data.local.entity.EventInstanceEntity
+import com.ethiopiancalendar.data.local.entity.EventInstanceHorizonEntity
+import com.ethiopiancalendar.data.local.entity.EventListRow
+import com.ethiopiancalendar.data.local.entity.EventWithInstance
+import com.ethiopiancalendar.data.local.entity.MonthCellRow
+import com.ethiopiancalendar.data.local.entity.WidgetEventRow
+import com.ethiopiancalendar.data.local.entity.RecurrenceFrequency
+import com.ethiopiancalendar.data.local.entity.RecurrenceRule
+import com.ethiopiancalendar.data.local.entity.parseRRule
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
+import com.ethiopiancalendar.domain.calendar.RecurrenceExpander
+import com.ethiopiancalendar.domain.calendar.nextOccurrenceAfter
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
-import java.time.DayOfWeek
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.time.Instant
+import java.time.LocalDate
+import java.time.ZoneId
 import java.time.ZonedDateTime
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -24,12 +53,54 @@ import javax.inject.Singleton
  * - Recurring event instance generation
  * - Event queries by date, month, year
  * - Future: Google Calendar sync
+ *
+ * Day, month, range and upcoming queries read the materialized event_instances table.
+ * Every write refreshes the instances of the written event. Recurring events are materialized
+ * over a window of days around today that rolls forward with the date; days outside it are
+ * expanded in memory when queried and never stored.
  */
 @Singleton
 class EventRepository @Inject constructor(
-    private val eventDao: EventDao
+    private val eventDao: EventDao,
+    private val eventInstanceDao: EventInstanceDao
 ) {
 
+    companion object {
+        // Recurring events are materialized this far around today
+        private const val HORIZON_PAST_DAYS = 366L
+        private const val HORIZON_FUTURE_DAYS = 2 * 366L
+
+        // Event list paging: rows per page, rows ahead of the visible window that trigger the
+        // next load, and rows kept in memory before pages far from the window are dropped
+        private const val EVENT_PAGE_SIZE = 30
+        private const val EVENT_PREFETCH_DISTANCE = 30
+        private const val EVENT_MAX_LOADED = 150
+
+        // Quiet period after the last keystroke before a search query runs
+        private const val SEARCH_DEBOUNCE_MILLIS = 250L
+
+        // Anything that is not a letter, combining mark or digit separates search terms
+        // (including the Ethiopic word space and full stop)
+        private val SEARCH_TERM_SEPARATOR = Regex("[^\\p{L}\\p{M}\\p{N}]+")
+
+        /**
+         * Build an FTS MATCH expression from free text: every term must match as a word
+         * prefix, so "መስ" finds "መስቀል" and "meet" finds "Meeting". Terms are quoted, which
+         * keeps FTS operators in user input from being interpreted. Null if there are no terms.
+         */
+        internal fun toFtsMatch(query: String): String? {
+            val terms = query.split(SEARCH_TERM_SEPARATOR).filter { it.isNotEmpty() }
+            if (terms.isEmpty()) return null
+            return terms.joinToString(" ") { "\"$it\"*" }
+        }
+    }
+
+    private val horizonMutex = Mutex()
+
+    // Window last read from or written to the database, so queries on the same day skip the lock
+    @Volatile
+    private var knownHorizon: EventInstanceHorizonEntity? = null
+
     // ========== QUERY OPERATIONS (Flow-based) ==========
 
     /**
@@ -40,6 +111,23 @@ class EventRepository @Inject constructor(
         return eventDao.getAllEventsFlow()
     }
 
+    /**
+     * All events in start time order, paged from the database as list rows.
+     * Only the pages around the visible window are kept in memory; placeholders stand in
+     * for the rest so the list keeps its full size and scroll position.
+     */
+    fun getEventsPaged(): Flow<PagingData<EventListRow>> {
+        return Pager(
+            config = PagingConfig(
+                pageSize = EVENT_PAGE_SIZE,
+                prefetchDistance = EVENT_PREFETCH_DISTANCE,
+                enablePlaceholders = true,
+                maxSize = EVENT_MAX_LOADED
+            ),
+            pagingSourceFactory = { eventDao.getEventsPagingSource() }
+        ).flow
+    }
+
     /**
      * Get event by ID as Flow.
      */
@@ -47,14 +135,20 @@ class EventRepository @Inject constructor(
         return eventDao.getEventByIdFlow(eventId)
     }
 
+    /**
+     * Load a single event by ID, e.g. to edit it.
+     */
+    suspend fun findEventById(eventId: String): EventEntity? {
+        return eventDao.getEventById(eventId)
+    }
+
     /**
      * Get events for a specific Ethiopian date.
      * Returns both single events and instances of recurring events.
      */
     fun getEventsForDate(year: Int, month: Int, day: Int): Flow<List<EventInstance>> {
-        return eventDao.getEventsForDate(year, month, day).map { events ->
-            events.map { it.toEventInstance() }
-        }
+        val epochDay = EthiopicDays.toEpochDay(year, month, day)
+        return getEventsForDays(epochDay, epochDay + 1)
     }
 
     /**
@@ -62,33 +156,71 @@ class EventRepository @Inject constructor(
      * Includes instances of recurring events.
      */
     fun getEventsForMonth(year: Int, month: Int): Flow<List<EventInstance>> {
-        return eventDao.getEventsForMonth(year, month).map { events ->
-            // Generate instances for each event (including recurring events)
-            events.flatMap { event ->
-                if (event.recurrenceRule != null) {
-                    generateRecurringInstances(event, year, month)
-                } else {
-                    listOf(event.toEventInstance())
-                }
-            }
+        val firstDay = EthiopicDays.toEpochDay(year, month, 1)
+        return getEventsForDays(firstDay, firstDay + EthiopicDays.lengthOfMonth(year, month))
+    }
+
+    /**
+     * Get events on the local days [startEpochDay, endEpochDay).
+     * Includes instances of recurring events.
+     */
+    fun getEventsForDays(startEpochDay: Long, endEpochDay: Long): Flow<List<EventInstance>> {
+        return instancesForDays(
+            startEpochDay,
+            endEpochDay,
+            stored = eventInstanceDao.getInstancesForDays(startEpochDay, endEpochDay)
+        ) { stored, expanded ->
+            (stored + expanded).sortedWith(compareBy<EventWithInstance>({ it.epochDay }, { it.startMillis }))
+        }.map { rows -> rows.map { it.toEventInstance() } }
+    }
+
+    /**
+     * Event markers (event id and color) on the local days [startEpochDay, endEpochDay),
+     * for month grid cells. Includes instances of recurring events.
+     */
+    fun getMonthCellRows(startEpochDay: Long, endEpochDay: Long): Flow<List<MonthCellRow>> {
+        return instancesForDays(
+            startEpochDay,
+            endEpochDay,
+            stored = eventInstanceDao.getMonthCellRows(startEpochDay, endEpochDay)
+        ) { stored, expanded ->
+            (stored + expanded.map { MonthCellRow(it.event.id, it.epochDay, it.event.color) })
+                .sortedBy { it.epochDay }
         }
     }
 
+    /**
+     * Upcoming event instances (from start of today onwards) with only the widget's columns.
+     */
+    suspend fun getUpcomingWidgetRows(limit: Int): List<WidgetEventRow> {
+        val today = LocalDate.now()
+        val startOfToday = today
+                .atStartOfDay(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli()
+
+        ensureWindow()
+        return eventInstanceDao.getUpcomingWidgetRows(startOfToday, limit)
+    }
+
     /**
      * Get upcoming events (from start of today onwards).
      * Shows all events for today and future events.
      */
-    fun getUpcomingEvents(limit: Int = 10): Flow<List<EventInstance>> {
+    fun getUpcomingEvents(limit: Int = 10): Flow<List<EventInstance>> = flow {
         // Get start of today (midnight) to include all events for today
-        val startOfToday = ZonedDateTime.now()
-                .toLocalDate()
-                .atStartOfDay(ZonedDateTime.now().zone)
+        val today = LocalDate.now()
+        val startOfToday = today
+                .atStartOfDay(ZoneId.systemDefault())
                 .toInstant()
                 .toEpochMilli()
 
-        return eventDao.getUpcomingEvents(startOfToday, limit).map { events ->
-            events.map { it.toEventInstance() }
-        }
+        ensureWindow()
+        emitAll(
+            eventInstanceDao.getUpcomingInstances(startOfToday, limit).map { rows ->
+                rows.map { it.toEventInstance() }
+            }
+        )
     }
 
     /**
@@ -98,26 +230,42 @@ class EventRepository @Inject constructor(
     fun getEventsInRange(start: ZonedDateTime, end: ZonedDateTime): Flow<List<EventInstance>> {
         val startMillis = start.toInstant().toEpochMilli()
         val endMillis = end.toInstant().toEpochMilli()
-        return eventDao.getEventsInRange(startMillis, endMillis).map { events ->
-            events.flatMap { event ->
-                if (event.recurrenceRule != null) {
-                    generateRecurringInstancesInRange(event, start, end)
-                } else {
-                    listOf(event.toEventInstance())
-                }
-            }
-        }
+
+        // Instance days are local to each event's zone, so cover a day either side
+        return instancesForDays(
+            start.toLocalDate().toEpochDay() - 1,
+            end.toLocalDate().toEpochDay() + 2,
+            stored = eventInstanceDao.getInstancesInRange(startMillis, endMillis)
+        ) { stored, expanded ->
+            (stored + expanded.filter { it.startMillis in startMillis until endMillis })
+                .sortedBy { it.startMillis }
+        }.map { rows -> rows.map { it.toEventInstance() } }
     }
 
     /**
      * Search events by query (title or description).
+     * Terms are matched as word prefixes against the full-text index; a blank query matches nothing.
      */
     fun searchEvents(query: String): Flow<List<EventInstance>> {
-        return eventDao.searchEvents(query).map { events ->
+        val match = toFtsMatch(query) ?: return flowOf(emptyList())
+        return eventDao.searchEvents(match).map { events ->
             events.map { it.toEventInstance() }
         }
     }
 
+    /**
+     * Search-as-you-type: runs [searchEvents] for the latest query once typing pauses,
+     * cancelling the search for the previous query as soon as a new one arrives.
+     */
+    @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+    fun searchEvents(queries: Flow<String>): Flow<List<EventInstance>> {
+        return queries
+            .map { it.trim() }
+            .debounce(SEARCH_DEBOUNCE_MILLIS)
+            .distinctUntilChanged()
+            .flatMapLatest { searchEvents(it) }
+    }
+
     /**
      * Get events by category.
      */
@@ -130,11 +278,13 @@ class EventRepository @Inject constructor(
     // ========== WRITE OPERATIONS (suspend functions) ==========
 
     /**
-     * Create a new event.
-     * @return The row ID of the created event
+     * Create a new event, or update it if an event with its id exists.
+     * @return The row ID of the created event, or -1 if an existing event was updated
      */
     suspend fun createEvent(event: EventEntity): Long {
-        return eventDao.insertEvent(event)
+        val rowId = eventDao.insertEvent(event)
+        refreshInstances(event)
+        return rowId
     }
 
     /**
@@ -142,11 +292,15 @@ class EventRepository @Inject constructor(
      * @return Number of rows updated
      */
     suspend fun updateEvent(event: EventEntity): Int {
-        return eventDao.updateEvent(event.copy(updatedAt = System.currentTimeMillis()))
+        val updated = event.copy(updatedAt = System.currentTimeMillis())
+        val rows = eventDao.updateEvent(updated)
+        if (rows > 0) refreshInstances(updated)
+        return rows
     }
 
     /**
      * Delete an event.
+     * Its instances are removed by the foreign key cascade.
      * @return Number of rows deleted
      */
     suspend fun deleteEvent(event: EventEntity): Int {
@@ -155,6 +309,7 @@ class EventRepository @Inject constructor(
 
     /**
      * Delete event by ID.
+     * Its instances are removed by the foreign key cascade.
      * @return Number of rows deleted
      */
     suspend fun deleteEventById(eventId: String): Int {
@@ -168,131 +323,203 @@ class EventRepository @Inject constructor(
         return eventDao.getEventCountForDate(year, month, day)
     }
 
-    // ========== RECURRING EVENT LOGIC ==========
-
     /**
-     * Generate instances of a recurring event for a specific Ethiopian month.
-     *
-     * This is a simplified implementation. For production, you would:
-     * 1. Parse the RRULE string
-     * 2. Generate all instances within the month range
-     * 3. Handle complex recurrence patterns (MONTHLY, YEARLY, etc.)
-     * 4. Respect recurrence end date or count
-     *
-     * For now, we implement WEEKLY recurrence with selected weekdays.
+     * Next occurrence of an event starting after [afterMillis], computed directly from its
+     * recurrence rule rather than the materialized horizon, so it works however far ahead it is.
+     * @return null if the event does not exist or has no later occurrence
      */
-    private fun generateRecurringInstances(
-        event: EventEntity,
-        year: Int,
-        month: Int
-    ): List<EventInstance> {
-        // For this implementation, we'll keep it simple and just return the original event
-        // In a full implementation, you would parse the RRULE and generate instances
-        return listOf(event.toEventInstance())
+    suspend fun getNextOccurrence(
+        eventId: String,
+        afterMillis: Long = System.currentTimeMillis()
+    ): EventInstance? {
+        val event = eventDao.getEventById(eventId) ?: return null
+        val start = event.nextOccurrenceAfter(afterMillis) ?: return null
+        val startMillis = start.toInstant().toEpochMilli()
+        val durationMillis = event.endEpochMillis?.let { it - event.startEpochMillis }
+        return EventWithInstance(
+            event = event,
+            epochDay = start.toLocalDate().toEpochDay(),
+            startMillis = startMillis,
+            endMillis = durationMillis?.let { startMillis + it }
+        ).toEventInstance()
     }
 
+    // ========== INSTANCE MATERIALIZATION ==========
+
     /**
-     * Generate instances of a recurring event within a Gregorian date range.
+     * Rows of [stored] for the days [startEpochDay, endEpochDay), combined by [merge] with the
+     * instances of recurring events on the days of that range outside the materialized window.
      *
-     * This handles WEEKLY recurrence patterns.
+     * Ranges inside the window are read from the database only. For the rest, recurring events
+     * are expanded in memory on every emission and never stored, so paging far away or a
+     * distant date query does not grow the table.
      */
-    private fun generateRecurringInstancesInRange(
-        event: EventEntity,
-        rangeStart: ZonedDateTime,
-        rangeEnd: ZonedDateTime
-    ): List<EventInstance> {
-        val instances = mutableListOf<EventInstance>()
-        val rrule = event.recurrenceRule ?: return listOf(event.toEventInstance())
-
-        // Parse RRULE to determine recurrence pattern
-        // For WEEKLY recurrence: "RRULE:FREQ=WEEKLY;BYDAY=TU,TH"
-        if (!rrule.contains("FREQ=WEEKLY")) {
-            // For non-weekly recurrence, return original event for now
-            return listOf(event.toEventInstance())
+    private fun <T> instancesForDays(
+        startEpochDay: Long,
+        endEpochDay: Long,
+        stored: Flow<List<T>>,
+        merge: (stored: List<T>, expanded: List<EventWithInstance>) -> List<T>
+    ): Flow<List<T>> = flow {
+        val window = ensureWindow()
+        if (window.covers(startEpochDay, endEpochDay)) {
+            emitAll(stored)
+        } else {
+            emitAll(
+                combine(stored, eventDao.getRecurringEventsFlow()) { rows, recurring ->
+                    merge(rows, expandOutsideWindow(recurring, window, startEpochDay, endEpochDay))
+                }
+            )
         }
+    }
 
-        // Extract weekdays from BYDAY parameter
-        val weekDays = extractWeekDaysFromRRule(rrule)
-        if (weekDays.isEmpty()) {
-            return listOf(event.toEventInstance())
-        }
+    /**
+     * Instances of the recurring [events] on the days of [startEpochDay, endEpochDay) that lie
+     * before or after [window].
+     */
+    private fun expandOutsideWindow(
+        events: List<EventEntity>,
+        window: EventInstanceHorizonEntity,
+        startEpochDay: Long,
+        endEpochDay: Long
+    ): List<EventWithInstance> = events.flatMap { event ->
+        val before = materializeInstances(
+            event, startEpochDay, minOf(endEpochDay, window.startEpochDay), includeSingle = false
+        )
+        val after = materializeInstances(
+            event, maxOf(startEpochDay, window.endEpochDay), endEpochDay, includeSingle = false
+        )
+        (before + after).map { EventWithInstance(event, it.epochDay, it.startMillis, it.endMillis) }
+    }
 
-        // Start from the event's start time
-        var currentDate = event.startTime
+    /**
+     * Days recurring events are materialized on for [today]:
+     * [HORIZON_PAST_DAYS] before it to [HORIZON_FUTURE_DAYS] after it.
+     */
+    private fun windowFor(today: Long): EventInstanceHorizonEntity =
+        EventInstanceHorizonEntity(
+            startEpochDay = today - HORIZON_PAST_DAYS,
+            endEpochDay = today + HORIZON_FUTURE_DAYS
+        )
 
-        // Adjust to first occurrence in range
-        while (currentDate.isBefore(rangeStart)) {
-            currentDate = currentDate.plusDays(1)
+    /**
+     * Make sure the materialized window is today's and return it.
+     *
+     * The first call materializes every event. After that the window rolls forward with the
+     * date: recurring instances that fell out of it are deleted and only the newly covered days
+     * are expanded. Single events keep their one instance whatever the window.
+     */
+    private suspend fun ensureWindow(): EventInstanceHorizonEntity {
+        val window = windowFor(LocalDate.now().toEpochDay())
+        if (knownHorizon == window) return window
+
+        horizonMutex.withLock {
+            val horizon = eventInstanceDao.getHorizon()
+            when {
+                horizon == null -> rebuildWindow(window)
+                horizon != window -> rollWindow(horizon, window)
+            }
+            knownHorizon = window
         }
+        return window
+    }
 
-        // Generate instances until we exceed range end or recurrence end
-        val recurrenceEnd = event.recurrenceEndDate ?: rangeEnd.plusYears(1) // Default max 1 year
-        val effectiveEnd = if (recurrenceEnd.isBefore(rangeEnd)) recurrenceEnd else rangeEnd
-
-        while (currentDate.isBefore(effectiveEnd)) {
-            // Check if current day matches one of the specified weekdays
-            if (weekDays.contains(currentDate.dayOfWeek)) {
-                // Create instance with same time as original event
-                val instanceStart = currentDate.withHour(event.startTime.hour)
-                        .withMinute(event.startTime.minute)
-                        .withSecond(event.startTime.second)
-
-                val instanceEnd = event.endTime?.let {
-                    currentDate.withHour(it.hour)
-                            .withMinute(it.minute)
-                            .withSecond(it.second)
-                }
-
-                // Convert to Ethiopian calendar for display
-                // For now, use the original event's Ethiopian date (simplified)
-                instances.add(
-                    EventInstance(
-                        eventId = event.id,
-                        summary = event.summary,
-                        description = event.description,
-                        instanceStart = instanceStart,
-                        instanceEnd = instanceEnd,
-                        isAllDay = event.isAllDay,
-                        category = event.category,
-                        color = event.color,
-                        reminderMinutesBefore = event.reminderMinutesBefore,
-                        ethiopianYear = event.ethiopianYear,
-                        ethiopianMonth = event.ethiopianMonth,
-                        ethiopianDay = event.ethiopianDay,
-                        isRecurring = true,
-                        originalEvent = event
-                    )
-                )
-            }
+    /**
+     * Re-materialize one event after it was written.
+     */
+    private suspend fun refreshInstances(event: EventEntity) {
+        val window = ensureWindow()
+        horizonMutex.withLock {
+            eventInstanceDao.replaceInstancesForEvent(
+                event.id,
+                materializeInstances(event, window.startEpochDay, window.endEpochDay, includeSingle = true)
+            )
+        }
+    }
 
-            currentDate = currentDate.plusDays(1)
+    /**
+     * Materialize all events from scratch (fresh install or right after the migration that
+     * added the table). Must be called with [horizonMutex] held.
+     */
+    private suspend fun rebuildWindow(window: EventInstanceHorizonEntity) {
+        val instances = eventDao.getAllEvents().flatMap { event ->
+            materializeInstances(event, window.startEpochDay, window.endEpochDay, includeSingle = true)
         }
+        eventInstanceDao.rebuild(instances, window)
+    }
 
-        return instances
+    /**
+     * Move the materialized window from [old] to [new]: delete recurring instances outside [new]
+     * and expand recurring events over the days of [new] that [old] did not cover.
+     * Must be called with [horizonMutex] held.
+     */
+    private suspend fun rollWindow(old: EventInstanceHorizonEntity, new: EventInstanceHorizonEntity) {
+        val recurring = eventDao.getRecurringEvents().filter { recurrenceOf(it) != null }
+        val added = recurring.flatMap { event ->
+            materializeInstances(
+                event, new.startEpochDay, minOf(old.startEpochDay, new.endEpochDay), includeSingle = false
+            ) + materializeInstances(
+                event, maxOf(old.endEpochDay, new.startEpochDay), new.endEpochDay, includeSingle = false
+            )
+        }
+        eventInstanceDao.rollHorizon(recurring.map { it.id }, added, new)
     }
 
     /**
-     * Extract weekdays from RRULE BYDAY parameter.
-     * Example: "RRULE:FREQ=WEEKLY;BYDAY=TU,TH" -> [TUESDAY, THURSDAY]
+     * Recurrence rule of [event], or null if it is a single event (no rule or FREQ missing)
      */
-    private fun extractWeekDaysFromRRule(rrule: String): Set<DayOfWeek> {
-        val byDayMatch = Regex("BYDAY=([A-Z,]+)").find(rrule) ?: return emptySet()
-        val days = byDayMatch.groupValues[1].split(",")
-
-        return days.mapNotNull { day ->
-            when (day) {
-                "MO" -> DayOfWeek.MONDAY
-                "TU" -> DayOfWeek.TUESDAY
-                "WE" -> DayOfWeek.WEDNESDAY
-                "TH" -> DayOfWeek.THURSDAY
-                "FR" -> DayOfWeek.FRIDAY
-                "SA" -> DayOfWeek.SATURDAY
-                "SU" -> DayOfWeek.SUNDAY
-                else -> null
-            }
-        }.toSet()
+    private fun recurrenceOf(event: EventEntity): RecurrenceRule? =
+        event.recurrenceRule?.parseRRule()?.takeIf { it.frequency != RecurrenceFrequency.NONE }
+
+    /**
+     * Instances of [event] on the days [startEpochDay, endEpochDay), in the event's zone.
+     *
+     * A single event always has its one instance, whatever the day range, when [includeSingle] is set.
+     * Recurring events are expanded with [RecurrenceExpander].
+     */
+    private fun materializeInstances(
+        event: EventEntity,
+        startEpochDay: Long,
+        endEpochDay: Long,
+        includeSingle: Boolean
+    ): List<EventInstanceEntity> {
+        val startMillis = event.startTime.toInstant().toEpochMilli()
+        val durationMillis = event.endTime?.let { it.toInstant().toEpochMilli() - startMillis }
+
+        val rule = recurrenceOf(event)
+        if (rule == null) {
+            if (!includeSingle) return emptyList()
+            return listOf(
+                EventInstanceEntity(
+                    eventId = event.id,
+                    epochDay = event.startTime.toLocalDate().toEpochDay(),
+                    startMillis = startMillis,
+                    endMillis = durationMillis?.let { startMillis + it }
+                )
+            )
+        }
+        if (startEpochDay >= endEpochDay) return emptyList()
+
+        val zone = event.startTime.zone
+        return RecurrenceExpander.expand(
+            start = event.startTime,
+            rule = rule,
+            rangeStart = LocalDate.ofEpochDay(startEpochDay).atStartOfDay(zone),
+            rangeEnd = LocalDate.ofEpochDay(endEpochDay).atStartOfDay(zone),
+            recurrenceEnd = event.recurrenceEndDate
+        ).map { instanceStart ->
+            val instanceStartMillis = instanceStart.toInstant().toEpochMilli()
+            EventInstanceEntity(
+                eventId = event.id,
+                epochDay = instanceStart.toLocalDate().toEpochDay(),
+                startMillis = instanceStartMillis,
+                endMillis = durationMillis?.let { instanceStartMillis + it }
+            )
+        }
     }
 
+    private fun EventInstanceHorizonEntity.covers(startEpochDay: Long, endEpochDay: Long): Boolean =
+        startEpochDay >= this.startEpochDay && endEpochDay <= this.endEpochDay
+
     // ========== HELPER METHODS ==========
 
     /**
@@ -316,4 +543,29 @@ class EventRepository @Inject constructor(
             originalEvent = this
         )
     }
+
+    /**
+     * Convert a materialized instance to an EventInstance.
+     * The Ethiopian date is that of the instance day, in the event's time zone.
+     */
+    private fun EventWithInstance.toEventInstance(): EventInstance {
+        val zone = event.startTime.zone
+        val ethiopianDate = EthiopicDays.fromEpochDay(epochDay)
+        return EventInstance(
+            eventId = event.id,
+            summary = event.summary,
+            description = event.description,
+            instanceStart = Instant.ofEpochMilli(startMillis).atZone(zone),
+            instanceEnd = endMillis?.let { Instant.ofEpochMilli(it).atZone(zone) },
+            isAllDay = event.isAllDay,
+            category = event.category,
+            color = event.color,
+            reminderMinutesBefore = event.reminderMinutesBefore,
+            ethiopianYear = EthiopicDays.year(ethiopianDate),
+            ethiopianMonth = EthiopicDays.month(ethiopianDate),
+            ethiopianDay = EthiopicDays.day(ethiopianDate),
+            isRecurring = event.recurrenceRule != null,
+            originalEvent = event
+        )
+    }
 }
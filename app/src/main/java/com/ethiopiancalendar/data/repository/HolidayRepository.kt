@@ -1,83 +1,76 @@
 package com.ethiopiancalendar.data.repository
 
+import com.ethiopiancalendar.data.preferences.SettingsPreferences
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
 import com.ethiopiancalendar.domain.calculator.MuslimHolidayCalculator
 import com.ethiopiancalendar.domain.calculator.OrthodoxHolidayCalculator
 import com.ethiopiancalendar.domain.calculator.PublicHolidayCalculator
+import com.ethiopiancalendar.domain.model.Holiday
 import com.ethiopiancalendar.domain.model.HolidayOccurrence
+import com.ethiopiancalendar.domain.model.HolidayOffsets
+import com.ethiopiancalendar.domain.model.HolidayYearTable
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
 import org.threeten.extra.chrono.EthiopicDate
 import java.time.temporal.ChronoField
 import javax.inject.Inject
 import javax.inject.Singleton
 
+/**
+ * Repository for holiday data.
+ *
+ * Holidays are computed once per Ethiopian year into an immutable [HolidayYearTable]
+ * and kept in a small LRU cache. Month, date and day range lookups are slices of the cached tables.
+ * Tables are keyed by year and by the include flags and offsets they were built with, so callers
+ * asking for different holiday sets share the cache without evicting each other; tables built
+ * with superseded offsets simply age out.
+ */
 @Singleton
 class HolidayRepository @Inject constructor(
     private val publicHolidayCalculator: PublicHolidayCalculator,
     private val orthodoxHolidayCalculator: OrthodoxHolidayCalculator,
-    private val muslimHolidayCalculator: MuslimHolidayCalculator
+    private val muslimHolidayCalculator: MuslimHolidayCalculator,
+    private val settingsPreferences: SettingsPreferences
 ) {
 
+    companion object {
+        private const val MAX_CACHED_TABLES = 20
+    }
+
+    /**
+     * Inputs a cached table depends on besides the year itself
+     */
+    private data class TableConfig(
+        val includeOrthodox: Boolean,
+        val includeMuslim: Boolean,
+        val includeMuslimWorkingDays: Boolean,
+        val offsets: HolidayOffsets
+    )
+
+    private data class TableKey(val ethiopianYear: Int, val config: TableConfig)
+
+    private val tableCache = object : LinkedHashMap<TableKey, HolidayYearTable>(MAX_CACHED_TABLES, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<TableKey, HolidayYearTable>?): Boolean {
+            return size > MAX_CACHED_TABLES
+        }
+    }
+
+    // Offset preferences that affect the Muslim holiday dates, loaded once per change
+    private val offsetChanges: Flow<HolidayOffsets> = settingsPreferences.holidayOffsets
+        .distinctUntilChanged()
+
     fun getHolidaysForYear(
         ethiopianYear: Int,
         includeOrthodox: Boolean = true,
         includeMuslim: Boolean = true,
         includeMuslimWorkingDays: Boolean = false
     ): Flow<List<HolidayOccurrence>> {
-        return flow {
-            val holidays = mutableListOf<HolidayOccurrence>()
-
-            // Public holidays
-            val publicHolidays = publicHolidayCalculator.getPublicHolidaysForYear(ethiopianYear)
-            holidays.addAll(publicHolidays.map { holiday ->
-                HolidayOccurrence(
-                    holiday = holiday,
-                    ethiopicDate = EthiopicDate.of(
-                        ethiopianYear,
-                        holiday.ethiopianMonth,
-                        holiday.ethiopianDay
-                    ),
-                    adjustment = 0
-                )
-            })
-
-            // Orthodox holidays
-            if (includeOrthodox) {
-                val orthodoxHolidays = orthodoxHolidayCalculator.getOrthodoxHolidaysForYear(ethiopianYear)
-                holidays.addAll(orthodoxHolidays.map { holiday ->
-                    HolidayOccurrence(
-                        holiday = holiday,
-                        ethiopicDate = EthiopicDate.of(
-                            ethiopianYear,
-                            holiday.ethiopianMonth,
-                            holiday.ethiopianDay
-                        ),
-                        adjustment = 0
-                    )
-                })
-            }
-
-            // Muslim holidays
-            if (includeMuslim) {
-                val muslimHolidays = muslimHolidayCalculator.getMuslimHolidaysForEthiopianYear(
-                    ethiopianYear = ethiopianYear,
-                    includePublicHolidays = true,
-                    includeWorkingHolidays = includeMuslimWorkingDays
-                )
-                holidays.addAll(muslimHolidays.map { holiday ->
-                    HolidayOccurrence(
-                        holiday = holiday,
-                        ethiopicDate = EthiopicDate.of(
-                            ethiopianYear,
-                            holiday.ethiopianMonth,
-                            holiday.ethiopianDay
-                        ),
-                        adjustment = 0
-                    )
-                })
-            }
-
-            emit(holidays)
+        return offsetChanges.map { offsets ->
+            getHolidayTable(
+                ethiopianYear,
+                TableConfig(includeOrthodox, includeMuslim, includeMuslimWorkingDays, offsets)
+            ).holidays
         }
     }
 
@@ -87,29 +80,91 @@ class HolidayRepository @Inject constructor(
         includeOrthodox: Boolean = true,
         includeMuslim: Boolean = true
     ): Flow<List<HolidayOccurrence>> {
-        return flow {
-            val allHolidays = mutableListOf<HolidayOccurrence>()
-            getHolidaysForYear(
-                ethiopianYear = ethiopianYear,
-                includeOrthodox = includeOrthodox,
-                includeMuslim = includeMuslim
-            ).collect { yearHolidays ->
-                allHolidays.addAll(yearHolidays)
+        return offsetChanges.map { offsets ->
+            getHolidayTable(
+                ethiopianYear,
+                TableConfig(includeOrthodox, includeMuslim, false, offsets)
+            ).holidaysForMonth(ethiopianMonth)
+        }
+    }
+
+    /**
+     * Holidays on the epoch days [startEpochDay, endEpochDay), e.g. every cell of a month grid
+     * including the days spilling over from the adjacent months. The range may span two
+     * Ethiopian years; each year is served from its cached table.
+     */
+    fun getHolidaysForDays(
+        startEpochDay: Long,
+        endEpochDay: Long,
+        includeOrthodox: Boolean = true,
+        includeMuslim: Boolean = true
+    ): Flow<List<HolidayOccurrence>> {
+        val firstYear = EthiopicDays.year(EthiopicDays.fromEpochDay(startEpochDay))
+        val lastYear = EthiopicDays.year(EthiopicDays.fromEpochDay(endEpochDay - 1))
+        return offsetChanges.map { offsets ->
+            val config = TableConfig(includeOrthodox, includeMuslim, false, offsets)
+            if (firstYear == lastYear) {
+                getHolidayTable(firstYear, config).holidaysForDays(startEpochDay, endEpochDay)
+            } else {
+                (firstYear..lastYear).flatMap { year ->
+                    getHolidayTable(year, config).holidaysForDays(startEpochDay, endEpochDay)
+                }
             }
-            val monthHolidays = allHolidays.filter { it.ethiopicDate.get(ChronoField.MONTH_OF_YEAR) == ethiopianMonth }
-            emit(monthHolidays)
         }
     }
 
     fun getHolidaysForDate(ethiopicDate: EthiopicDate): Flow<List<HolidayOccurrence>> {
-        return flow {
-            val allHolidays = mutableListOf<HolidayOccurrence>()
-            getHolidaysForMonth(ethiopicDate.get(ChronoField.YEAR_OF_ERA), ethiopicDate.get(ChronoField.MONTH_OF_YEAR)).collect { monthHolidays ->
-                allHolidays.addAll(monthHolidays)
+        val year = ethiopicDate.get(ChronoField.YEAR_OF_ERA)
+        val month = ethiopicDate.get(ChronoField.MONTH_OF_YEAR)
+        val day = ethiopicDate.get(ChronoField.DAY_OF_MONTH)
+        return offsetChanges.map { offsets ->
+            getHolidayTable(year, TableConfig(true, true, false, offsets))
+                .holidaysForDate(month, day)
+        }
+    }
+
+    private fun getHolidayTable(ethiopianYear: Int, config: TableConfig): HolidayYearTable {
+        synchronized(tableCache) {
+            return tableCache.getOrPut(TableKey(ethiopianYear, config)) {
+                buildHolidayTable(ethiopianYear, config)
             }
+        }
+    }
+
+    private fun buildHolidayTable(ethiopianYear: Int, config: TableConfig): HolidayYearTable {
+        val holidays = mutableListOf<Holiday>()
+
+        // Public holidays
+        holidays.addAll(publicHolidayCalculator.getPublicHolidaysForYear(ethiopianYear))
+
+        // Orthodox holidays
+        if (config.includeOrthodox) {
+            holidays.addAll(orthodoxHolidayCalculator.getOrthodoxHolidaysForYear(ethiopianYear))
+        }
+
+        // Muslim holidays
+        if (config.includeMuslim) {
+            holidays.addAll(
+                muslimHolidayCalculator.getMuslimHolidaysForEthiopianYear(
+                    ethiopianYear = ethiopianYear,
+                    offsets = config.offsets,
+                    includePublicHolidays = true,
+                    includeWorkingHolidays = config.includeMuslimWorkingDays
+                )
+            )
+        }
 
-            val dateHolidays = allHolidays.filter { it.ethiopicDate.get(ChronoField.DAY_OF_MONTH) == ethiopicDate.get(ChronoField.DAY_OF_MONTH) }
-            emit(dateHolidays)
+        val occurrences = holidays.map { holiday ->
+            HolidayOccurrence(
+                holiday = holiday,
+                ethiopicDate = EthiopicDate.of(
+                    ethiopianYear,
+                    holiday.ethiopianMonth,
+                    holiday.ethiopianDay
+                ),
+                adjustment = 0
+            )
         }
+        return HolidayYearTable(ethiopianYear, occurrences)
     }
 }
@@ -2,10 +2,13 @@ package com.ethiopiancalendar.di
 
 import android.content.Context
 import androidx.room.Room
+import com.ethiopiancalendar.alarm.ReminderRescheduler
 import com.ethiopiancalendar.data.initialization.AppInitializationManager
 import com.ethiopiancalendar.data.initialization.ReminderReregistrationManager
 import com.ethiopiancalendar.data.local.CalendarDatabase
 import com.ethiopiancalendar.data.local.dao.EventDao
+import com.ethiopiancalendar.data.local.dao.EventInstanceDao
+import com.ethiopiancalendar.data.local.dao.ReminderQueueDao
 import com.ethiopiancalendar.data.preferences.SettingsPreferences
 import com.ethiopiancalendar.data.preferences.ThemePreferences
 import com.ethiopiancalendar.data.remote.RemoteConfigManager
@@ -54,8 +57,7 @@ object AppModule {
             context,
             CalendarDatabase::class.java,
             CalendarDatabase.DATABASE_NAME
-        ).fallbackToDestructiveMigration(false) // For development - replace with migrations in production
-                .build()
+        ).addMigrations(*CalendarDatabase.ALL_MIGRATIONS).build()
     }
 
     @Provides
@@ -66,8 +68,20 @@ object AppModule {
 
     @Provides
     @Singleton
-    fun provideEventRepository(eventDao: EventDao): EventRepository {
-        return EventRepository(eventDao)
+    fun provideEventInstanceDao(database: CalendarDatabase): EventInstanceDao {
+        return database.eventInstanceDao()
+    }
+
+    @Provides
+    @Singleton
+    fun provideReminderQueueDao(database: CalendarDatabase): ReminderQueueDao {
+        return database.reminderQueueDao()
+    }
+
+    @Provides
+    @Singleton
+    fun provideEventRepository(eventDao: EventDao, eventInstanceDao: EventInstanceDao): EventRepository {
+        return EventRepository(eventDao, eventInstanceDao)
     }
 
     // ========== Initialization Managers ==========
@@ -86,9 +100,8 @@ object AppModule {
     @Provides
     @Singleton
     fun provideReminderReregistrationManager(
-        @ApplicationContext context: Context,
-        eventDao: EventDao
+        reminderRescheduler: ReminderRescheduler
     ): ReminderReregistrationManager {
-        return ReminderReregistrationManager(context, eventDao)
+        return ReminderReregistrationManager(reminderRescheduler)
     }
 }
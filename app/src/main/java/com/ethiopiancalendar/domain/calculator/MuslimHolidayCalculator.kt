@@ -1,15 +1,9 @@
 package com.ethiopiancalendar.domain.calculator
 
-import com.ethiopiancalendar.data.preferences.SettingsPreferences
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
 import com.ethiopiancalendar.domain.model.Holiday
+import com.ethiopiancalendar.domain.model.HolidayOffsets
 import com.ethiopiancalendar.domain.model.HolidayType
-import kotlinx.coroutines.flow.first
-import kotlinx.coroutines.runBlocking
-import org.threeten.extra.chrono.EthiopicDate
-import java.time.LocalDate
-import java.time.chrono.HijrahDate
-import java.time.temporal.ChronoField
-import java.time.temporal.ChronoUnit
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -18,15 +12,17 @@ import javax.inject.Singleton
  * All dates are calculated astronomically and may vary ±1-2 days based on moon sighting.
  *
  * This implementation:
- *  - Converts the Ethiopian-year interval to Gregorian LocalDate range
- *  - Determines the overlapping Hijrah years (via HijrahDate.from(LocalDate))
- *  - Generates Hijrah dates for standard Muslim holidays and converts them to EthiopicDate
- *  - Filters to only return holidays that fall inside the requested Ethiopian year
+ *  - Converts the Ethiopian-year interval to an epoch-day range
+ *  - Determines the overlapping Hijrah years
+ *  - Generates Hijrah dates for standard Muslim holidays and converts them to Ethiopian month/day
+ *  - Keeps only holidays that fall inside the requested Ethiopian year
+ *
+ * The calculator is a pure function of its arguments: moon-sighting offsets are passed in
+ * as a [HolidayOffsets] snapshot instead of being read from preferences, so it does no I/O
+ * and is safe to call on the main thread.
  */
 @Singleton
-class MuslimHolidayCalculator @Inject constructor(
-    private val settingsPreferences: SettingsPreferences
-) {
+class MuslimHolidayCalculator @Inject constructor() {
 
     companion object {
         const val UID_EID_AL_FITR = 101
@@ -37,215 +33,192 @@ class MuslimHolidayCalculator @Inject constructor(
 
     /**
      * Get Muslim holidays for a specific Ethiopian year
+     *
+     * @param offsets Moon-sighting offsets; only applied when [HolidayOffsets.configuredYear] matches
      */
     fun getMuslimHolidaysForEthiopianYear(
         ethiopianYear: Int,
+        offsets: HolidayOffsets = HolidayOffsets.NONE,
         includePublicHolidays: Boolean = true,
         includeWorkingHolidays: Boolean = false
     ): List<Holiday> {
-        val holidays = mutableListOf<Holiday>()
+        val holidays = ArrayList<Holiday>(8)
 
-        // Ethiopian start (Meskerem 1) and next-year start (exclusive)
-        val startEthiopian = EthiopicDate.of(ethiopianYear, 1, 1)
-        val endEthiopian = EthiopicDate.of(ethiopianYear + 1, 1, 1)
+        // Ethiopian start (Meskerem 1) and next-year start (exclusive) as epoch days
+        val startEpochDay = EthiopicDays.toEpochDay(ethiopianYear, 1, 1)
+        val endEpochDay = EthiopicDays.toEpochDay(ethiopianYear + 1, 1, 1)
+        val range = YearRange(startEpochDay, endEpochDay)
 
-        // Convert Ethiopic boundaries to Gregorian LocalDate for comparison
-        val startGregorian = LocalDate.from(startEthiopian) // throws if conversion not supported
-        val endGregorian = LocalDate.from(endEthiopian)
+        // Determine Hijri years overlapping this interval
+        val startHijriYear = EthiopicDays.year(EthiopicDays.epochDayToHijri(startEpochDay))
+        val endHijriYear = EthiopicDays.year(EthiopicDays.epochDayToHijri(endEpochDay - 1))
 
-        // Determine Hijri years overlapping this Gregorian interval
-        val startHijrah = HijrahDate.from(startGregorian)
-        val endHijrah = HijrahDate.from(endGregorian.minusDays(1)) // make end inclusive for overlap calculation
+        // Only apply offsets if the requested Ethiopian year matches the configured year
+        val activeOffsets = if (offsets.appliesTo(ethiopianYear)) offsets else HolidayOffsets.NONE
 
-        for (hijriYear in startHijrah.get(ChronoField.YEAR_OF_ERA)..endHijrah.get(ChronoField.YEAR_OF_ERA)) {
+        for (hijriYear in startHijriYear..endHijriYear) {
             if (includePublicHolidays) {
-                holidays.addAll(getPublicMuslimHolidays(hijriYear, ethiopianYear))
+                addPublicMuslimHolidays(holidays, hijriYear, activeOffsets, range)
             }
 
             if (includeWorkingHolidays) {
-                holidays.addAll(getWorkingMuslimHolidays(hijriYear))
+                addWorkingMuslimHolidays(holidays, hijriYear, range)
             }
         }
 
-        // Filter to only holidays whose Gregorian date falls inside the Ethiopian year range
-        return holidays.filter { holiday ->
-            // Convert holiday's Ethiopic date back to Gregorian for comparison
-            val ethiopicDate = EthiopicDate.of(ethiopianYear, holiday.ethiopianMonth, holiday.ethiopianDay)
-            val holidayGregorian = LocalDate.from(ethiopicDate)
-            !holidayGregorian.isBefore(startGregorian) && holidayGregorian.isBefore(endGregorian)
-        }
+        return holidays
     }
 
-    // Public (typically day-off) Muslim holidays for a given Hijri year
-    private fun getPublicMuslimHolidays(hijriYear: Int, ethiopianYear: Int): List<Holiday> {
-        val holidays = mutableListOf<Holiday>()
-
-        // Get offset values from preferences
-        val offsets = runBlocking {
-            HolidayOffsets(
-                eidAlAdha = settingsPreferences.dayOffsetEidAlAdha.first(),
-                eidAlFitr = settingsPreferences.dayOffsetEidAlFitr.first(),
-                mawlid = settingsPreferences.dayOffsetMawlid.first(),
-                configuredYear = settingsPreferences.dayOffsetEthioYear.first()
-            )
-        }
-
-        // Only apply offsets if the current Ethiopian year matches the configured year
-        val shouldApplyOffsets = offsets.configuredYear == ethiopianYear
+    /**
+     * Half-open epoch-day range [start, end) of an Ethiopian year
+     */
+    private class YearRange(val start: Long, val end: Long) {
+        operator fun contains(epochDay: Long): Boolean = epochDay >= start && epochDay < end
+    }
 
+    // Public (typically day-off) Muslim holidays for a given Hijri year
+    private fun addPublicMuslimHolidays(
+        holidays: MutableList<Holiday>,
+        hijriYear: Int,
+        offsets: HolidayOffsets,
+        range: YearRange
+    ) {
         // Eid al-Fitr (Shawwal 1) — Hijrah month 10, day 1
-        var eidFitrDate = HijrahDate.of(hijriYear, 10, 1)
-        if (shouldApplyOffsets && offsets.eidAlFitr != 0) {
-            eidFitrDate = eidFitrDate.plus(offsets.eidAlFitr.toLong(), ChronoUnit.DAYS)
-        }
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_eid_fitr_$hijriYear",
-                name = "Eid al-Fitr",
-                nameAmharic = "ኢድ አል-ፈጥር",
-                hijriDate = eidFitrDate,
-                isDayOff = true,
-                description = "Festival of Breaking the Fast after Ramadan"
+        val eidFitrDay = EthiopicDays.hijriToEpochDay(hijriYear, 10, 1) + offsets.eidAlFitr
+        if (eidFitrDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_eid_fitr_$hijriYear",
+                    name = "Eid al-Fitr",
+                    nameAmharic = "ኢድ አል-ፈጥር",
+                    epochDay = eidFitrDay,
+                    isDayOff = true,
+                    description = "Festival of Breaking the Fast after Ramadan"
+                )
             )
-        )
+        }
 
         // Eid al-Adha (Dhu al-Hijjah 10) — Hijrah month 12, day 10
-        var eidAdhaDate = HijrahDate.of(hijriYear, 12, 10)
-        if (shouldApplyOffsets && offsets.eidAlAdha != 0) {
-            eidAdhaDate = eidAdhaDate.plus(offsets.eidAlAdha.toLong(), ChronoUnit.DAYS)
-        }
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_eid_adha_$hijriYear",
-                name = "Eid al-Adha",
-                nameAmharic = "ኢድ አል-አድሃ",
-                hijriDate = eidAdhaDate,
-                isDayOff = true,
-                description = "Festival of Sacrifice"
+        val eidAdhaDay = EthiopicDays.hijriToEpochDay(hijriYear, 12, 10) + offsets.eidAlAdha
+        if (eidAdhaDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_eid_adha_$hijriYear",
+                    name = "Eid al-Adha",
+                    nameAmharic = "ኢድ አል-አድሃ",
+                    epochDay = eidAdhaDay,
+                    isDayOff = true,
+                    description = "Festival of Sacrifice"
+                )
             )
-        )
+        }
 
         // Mawlid al-Nabi (Rabi' al-Awwal 12) — Hijrah month 3, day 12
-        var mawlidDate = HijrahDate.of(hijriYear, 3, 12)
-        if (shouldApplyOffsets && offsets.mawlid != 0) {
-            mawlidDate = mawlidDate.plus(offsets.mawlid.toLong(), ChronoUnit.DAYS)
-         }
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_mawlid_$hijriYear",
-                name = "Mawlid al-Nabi",
-                nameAmharic = "መውሊድ",
-                hijriDate = mawlidDate,
-                isDayOff = true,
-                description = "Birthday of Prophet Muhammad"
+        val mawlidDay = EthiopicDays.hijriToEpochDay(hijriYear, 3, 12) + offsets.mawlid
+        if (mawlidDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_mawlid_$hijriYear",
+                    name = "Mawlid al-Nabi",
+                    nameAmharic = "መውሊድ",
+                    epochDay = mawlidDay,
+                    isDayOff = true,
+                    description = "Birthday of Prophet Muhammad"
+                )
             )
-        )
-
-        return holidays
+        }
     }
 
-    /**
-     * Data class to hold holiday offset values
-     */
-    private data class HolidayOffsets(
-        val eidAlAdha: Int,
-        val eidAlFitr: Int,
-        val mawlid: Int,
-        val configuredYear: Int
-    )
-
     // Working / observance Muslim holidays for a given Hijri year
-    private fun getWorkingMuslimHolidays(hijriYear: Int): List<Holiday> {
-        val holidays = mutableListOf<Holiday>()
-
+    private fun addWorkingMuslimHolidays(
+        holidays: MutableList<Holiday>,
+        hijriYear: Int,
+        range: YearRange
+    ) {
         // Islamic New Year (Muharram 1) — Hijrah month 1, day 1
-        val newYearDate = HijrahDate.of(hijriYear, 1, 1)
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_new_year_$hijriYear",
-                name = "Islamic New Year",
-                nameAmharic = "የሙስሊም አዲስ ዓመት",
-                hijriDate = newYearDate,
-                isDayOff = false,
-                description = "First day of Muharram"
+        val newYearDay = EthiopicDays.hijriToEpochDay(hijriYear, 1, 1)
+        if (newYearDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_new_year_$hijriYear",
+                    name = "Islamic New Year",
+                    nameAmharic = "የሙስሊም አዲስ ዓመት",
+                    epochDay = newYearDay,
+                    isDayOff = false,
+                    description = "First day of Muharram"
+                )
             )
-        )
+        }
 
         // Ashura (Muharram 10)
-        val ashuraDate = HijrahDate.of(hijriYear, 1, 10)
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_ashura_$hijriYear",
-                name = "Ashura",
-                nameAmharic = "አሹራ",
-                hijriDate = ashuraDate,
-                isDayOff = false,
-                description = "Day of Ashura"
+        val ashuraDay = EthiopicDays.hijriToEpochDay(hijriYear, 1, 10)
+        if (ashuraDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_ashura_$hijriYear",
+                    name = "Ashura",
+                    nameAmharic = "አሹራ",
+                    epochDay = ashuraDay,
+                    isDayOff = false,
+                    description = "Day of Ashura"
+                )
             )
-        )
+        }
 
         // Start of Ramadan (Ramadan 1) — Hijrah month 9, day 1
-        val ramadanDate = HijrahDate.of(hijriYear, 9, 1)
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_ramadan_$hijriYear",
-                name = "Start of Ramadan",
-                nameAmharic = "የረመዳን መጀመሪያ",
-                hijriDate = ramadanDate,
-                isDayOff = false,
-                description = "Beginning of the holy month of fasting"
+        val ramadanDay = EthiopicDays.hijriToEpochDay(hijriYear, 9, 1)
+        if (ramadanDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_ramadan_$hijriYear",
+                    name = "Start of Ramadan",
+                    nameAmharic = "የረመዳን መጀመሪያ",
+                    epochDay = ramadanDay,
+                    isDayOff = false,
+                    description = "Beginning of the holy month of fasting"
+                )
             )
-        )
+        }
 
         // Mid-Sha'ban (Sha'ban 15) — Hijrah month 8, day 15
-        val midShabanDate = HijrahDate.of(hijriYear, 8, 15)
-        holidays.add(
-            createMuslimHoliday(
-                id = "muslim_mid_shaban_$hijriYear",
-                name = "Mid-Sha'ban",
-                nameAmharic = "መካከለኛ ሻዕባን",
-                hijriDate = midShabanDate,
-                isDayOff = false,
-                description = "Night of Mid-Sha'ban"
+        val midShabanDay = EthiopicDays.hijriToEpochDay(hijriYear, 8, 15)
+        if (midShabanDay in range) {
+            holidays.add(
+                createMuslimHoliday(
+                    id = "muslim_mid_shaban_$hijriYear",
+                    name = "Mid-Sha'ban",
+                    nameAmharic = "መካከለኛ ሻዕባን",
+                    epochDay = midShabanDay,
+                    isDayOff = false,
+                    description = "Night of Mid-Sha'ban"
+                )
             )
-        )
-
-        return holidays
+        }
     }
 
     /**
-     * Create a Holiday from a HijrahDate by converting to Gregorian then to EthiopicDate.
-     *
-     * The ThreeTen-Extra EthiopicDate is a ChronoLocalDate; conversion path:
-     *   HijrahDate -> LocalDate -> EthiopicDate
+     * Create a Holiday from an epoch day by converting it to an Ethiopian month/day.
      *
-     * We extract month/day using ChronoField to be robust against chronology implementations.
+     * Hijrah dates are reduced to epoch days (offsets already applied) before
+     * this point, so the only conversion left is epoch day -> packed Ethiopian date.
      */
     private fun createMuslimHoliday(
         id: String,
         name: String,
         nameAmharic: String,
-        hijriDate: HijrahDate,
+        epochDay: Long,
         isDayOff: Boolean,
         description: String
     ): Holiday {
-        // HijrahDate -> Gregorian LocalDate
-        val gregorian: LocalDate = LocalDate.from(hijriDate)
-
-        // Gregorian LocalDate -> EthiopicDate
-        val ethiopic: EthiopicDate = EthiopicDate.from(gregorian)
-
-        // Extract Ethiopic month/day in an implementation-neutral way
-        val ethiopianMonth = ethiopic.get(ChronoField.MONTH_OF_YEAR)
-        val ethiopianDay = ethiopic.get(ChronoField.DAY_OF_MONTH)
+        val ethiopic = EthiopicDays.fromEpochDay(epochDay)
 
         return Holiday(
             id = id,
             name = name,
             nameAmharic = nameAmharic,
             type = HolidayType.MUSLIM,
-            ethiopianMonth = ethiopianMonth,
-            ethiopianDay = ethiopianDay,
+            ethiopianMonth = EthiopicDays.month(ethiopic),
+            ethiopianDay = EthiopicDays.day(ethiopic),
             isDayOff = isDayOff,
             description = description
         )
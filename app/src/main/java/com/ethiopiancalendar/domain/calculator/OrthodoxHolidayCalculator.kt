@@ -1,10 +1,9 @@
 package com.ethiopiancalendar.domain.calculator
 
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
 import com.ethiopiancalendar.domain.model.Holiday
 import com.ethiopiancalendar.domain.model.HolidayType
 import org.threeten.extra.chrono.EthiopicDate
-import java.time.temporal.ChronoField
-import java.time.temporal.ChronoUnit
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -32,11 +31,11 @@ class OrthodoxHolidayCalculator @Inject constructor() {
         // Calculate Nineveh first, as it's the reference point for all movable holidays
         val nineveh = calculateNineveh(ethiopianYear)
 
-        // Calculate derived dates using ChronoUnit days
-        val goodFriday = nineveh.plus(67, ChronoUnit.DAYS) as EthiopicDate
-        val easter = nineveh.plus(69, ChronoUnit.DAYS) as EthiopicDate
-        val ascension = nineveh.plus(108, ChronoUnit.DAYS) as EthiopicDate
-        val pentecost = nineveh.plus(118, ChronoUnit.DAYS) as EthiopicDate
+        // Calculate derived dates as packed Ethiopian dates from the Nineveh epoch day
+        val goodFriday = EthiopicDays.fromEpochDay(nineveh + 67)
+        val easter = EthiopicDays.fromEpochDay(nineveh + 69)
+        val ascension = EthiopicDays.fromEpochDay(nineveh + 108)
+        val pentecost = EthiopicDays.fromEpochDay(nineveh + 118)
 
         return listOf(
             // Siklet - Good Friday (Nineveh + 67 days)
@@ -45,8 +44,8 @@ class OrthodoxHolidayCalculator @Inject constructor() {
                 name = "Siklet (Good Friday)",
                 nameAmharic = "ስቅለት",
                 type = HolidayType.ORTHODOX_CHRISTIAN,
-                ethiopianMonth = goodFriday.get(ChronoField.MONTH_OF_YEAR),
-                ethiopianDay = goodFriday.get(ChronoField.DAY_OF_MONTH),
+                ethiopianMonth = EthiopicDays.month(goodFriday),
+                ethiopianDay = EthiopicDays.day(goodFriday),
                 isDayOff = true,
                 description = "Crucifixion of Jesus Christ"
             ),
@@ -57,8 +56,8 @@ class OrthodoxHolidayCalculator @Inject constructor() {
                 name = "Fasika (Easter)",
                 nameAmharic = "ፋሲካ",
                 type = HolidayType.ORTHODOX_CHRISTIAN,
-                ethiopianMonth = easter.get(ChronoField.MONTH_OF_YEAR),
-                ethiopianDay = easter.get(ChronoField.DAY_OF_MONTH),
+                ethiopianMonth = EthiopicDays.month(easter),
+                ethiopianDay = EthiopicDays.day(easter),
                 isDayOff = true,
                 description = "Ethiopian Orthodox Easter"
             ),
@@ -69,8 +68,8 @@ class OrthodoxHolidayCalculator @Inject constructor() {
                 name = "Tensae (Resurrection)",
                 nameAmharic = "ትንሣኤ",
                 type = HolidayType.ORTHODOX_CHRISTIAN,
-                ethiopianMonth = easter.get(ChronoField.MONTH_OF_YEAR),
-                ethiopianDay = easter.get(ChronoField.DAY_OF_MONTH),
+                ethiopianMonth = EthiopicDays.month(easter),
+                ethiopianDay = EthiopicDays.day(easter),
                 isDayOff = false,
                 description = "Resurrection of Jesus Christ"
             ),
@@ -81,8 +80,8 @@ class OrthodoxHolidayCalculator @Inject constructor() {
                 name = "Erget (Ascension)",
                 nameAmharic = "እርገት",
                 type = HolidayType.ORTHODOX_CHRISTIAN,
-                ethiopianMonth = ascension.get(ChronoField.MONTH_OF_YEAR),
-                ethiopianDay = ascension.get(ChronoField.DAY_OF_MONTH),
+                ethiopianMonth = EthiopicDays.month(ascension),
+                ethiopianDay = EthiopicDays.day(ascension),
                 isDayOff = false,
                 description = "Ascension of Jesus into Heaven"
             ),
@@ -93,8 +92,8 @@ class OrthodoxHolidayCalculator @Inject constructor() {
                 name = "Peraklitos (Pentecost)",
                 nameAmharic = "ጴራቅሊጦስ",
                 type = HolidayType.ORTHODOX_CHRISTIAN,
-                ethiopianMonth = pentecost.get(ChronoField.MONTH_OF_YEAR),
-                ethiopianDay = pentecost.get(ChronoField.DAY_OF_MONTH),
+                ethiopianMonth = EthiopicDays.month(pentecost),
+                ethiopianDay = EthiopicDays.day(pentecost),
                 isDayOff = false,
                 description = "Descent of the Holy Spirit"
             )
@@ -104,8 +103,10 @@ class OrthodoxHolidayCalculator @Inject constructor() {
     /**
      * Calculate Nineveh (Fast of Nineveh) - the reference point for all movable Ethiopian Orthodox holidays
      * This uses the traditional Ethiopian calculation based on Metqi and Tewusak
+     *
+     * @return Nineveh as an epoch day
      */
-    private fun calculateNineveh(ethiopianYear: Int): EthiopicDate {
+    private fun calculateNineveh(ethiopianYear: Int): Long {
         val metqi = getMetqiForEthiopianYear(ethiopianYear)
 
         // Metqi can be 8 or less (occurs in Tikimit/October) or greater than 8 (occurs in Meskerem/September)
@@ -127,7 +128,7 @@ class OrthodoxHolidayCalculator @Inject constructor() {
 
         val ninevehDate = (mebajaHamer % 30).let { if (it == 0) 30 else it }
 
-        return EthiopicDate.of(ethiopianYear, ninevehMonth, ninevehDate)
+        return EthiopicDays.toEpochDay(ethiopianYear, ninevehMonth, ninevehDate)
     }
 
     /**
@@ -172,10 +173,10 @@ class OrthodoxHolidayCalculator @Inject constructor() {
      * This remainder of 8 is called Tewsak which always fall on Tuesday.
      */
     private fun getTewusakFromMetiq(ethiopianYear: Int, bealeMetiqMonth: Int, bealeMetiqDate: Int): Int {
-        val metiqDate = EthiopicDate.of(ethiopianYear, bealeMetiqMonth, bealeMetiqDate)
+        val metiqEpochDay = EthiopicDays.toEpochDay(ethiopianYear, bealeMetiqMonth, bealeMetiqDate)
 
         // Get day of week (1 = Monday, 7 = Sunday in ISO standard)
-        val dayOfWeekValue = metiqDate.get(ChronoField.DAY_OF_WEEK)
+        val dayOfWeekValue = EthiopicDays.dayOfWeek(metiqEpochDay)
 
         // Calculate Tewusak based on the day of week
         // Formula: ((128 - dayOfWeek - 2) % 7) with adjustment if result <= 1
@@ -192,6 +193,6 @@ class OrthodoxHolidayCalculator @Inject constructor() {
      */
     fun calculateEaster(ethiopianYear: Int): EthiopicDate {
         val nineveh = calculateNineveh(ethiopianYear)
-        return nineveh.plus(69, ChronoUnit.DAYS) as EthiopicDate
+        return EthiopicDays.toEthiopicDateFromEpochDay(nineveh + 69)
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.ethiopiancalendar.domain.calendar
+
+import org.threeten.extra.chrono.EthiopicDate
+import java.time.chrono.HijrahChronology
+import java.time.temporal.ChronoField
+
+/**
+ * Primitive Ethiopian calendar arithmetic on epoch days.
+ *
+ * Dates are either an epoch day (`Long`, days since 1970-01-01, same as [java.time.LocalDate.toEpochDay])
+ * or a packed `Int` of `year shl 9 or month shl 5 or day`. The Ethiopian and Gregorian conversions are
+ * pure integer arithmetic and allocate nothing, so they can be used in loops over grid cells and holidays
+ * instead of going through [EthiopicDate], [java.time.LocalDate] and ChronoField lookups.
+ *
+ * The Ethiopian formulas match threeten-extra's EthiopicChronology (Amete Mihret era).
+ */
+internal object EthiopicDays {
+
+    const val MONTHS_PER_YEAR = 13
+    const val DAYS_PER_MONTH = 30
+
+    // Days between Ethiopic 0001-01-01 (proleptic day 0) and 1970-01-01
+    private const val EPOCH_DAY_DIFFERENCE = 716367L
+
+    // Days between 0000-03-01 (Gregorian) and 1970-01-01
+    private const val GREGORIAN_EPOCH_SHIFT = 719468L
+
+    // ========== Packed dates ==========
+
+    fun pack(year: Int, month: Int, day: Int): Int = (year shl 9) or (month shl 5) or day
+
+    fun year(packed: Int): Int = packed shr 9
+
+    fun month(packed: Int): Int = (packed shr 5) and 0xF
+
+    fun day(packed: Int): Int = packed and 0x1F
+
+    // ========== Ethiopian calendar ==========
+
+    /**
+     * Leap years are the ones before a year divisible by 4 (Pagume has 6 days)
+     */
+    fun isLeapYear(year: Int): Boolean = Math.floorMod(year, 4) == 3
+
+    fun lengthOfMonth(year: Int, month: Int): Int = when (month) {
+        MONTHS_PER_YEAR -> if (isLeapYear(year)) 6 else 5
+        else -> DAYS_PER_MONTH
+    }
+
+    fun lengthOfYear(year: Int): Int = if (isLeapYear(year)) 366 else 365
+
+    fun toEpochDay(year: Int, month: Int, day: Int): Long {
+        val y = year.toLong()
+        val dayOfYear0 = (month - 1) * DAYS_PER_MONTH + (day - 1)
+        return (y - 1) * 365 + Math.floorDiv(y, 4L) + dayOfYear0 - EPOCH_DAY_DIFFERENCE
+    }
+
+    fun toEpochDay(packed: Int): Long = toEpochDay(year(packed), month(packed), day(packed))
+
+    /**
+     * Ethiopian date of an epoch day, as a packed int
+     */
+    fun fromEpochDay(epochDay: Long): Int {
+        val ethiopicDay = epochDay + EPOCH_DAY_DIFFERENCE
+        val year = Math.floorDiv(ethiopicDay * 4 + 1463, 1461L).toInt()
+        val startOfYear = (year - 1) * 365L + Math.floorDiv(year, 4)
+        val dayOfYear0 = (ethiopicDay - startOfYear).toInt()
+        return pack(year, dayOfYear0 / DAYS_PER_MONTH + 1, dayOfYear0 % DAYS_PER_MONTH + 1)
+    }
+
+    /**
+     * Epoch day of the first day of the month [monthsToAdd] months after (year, month)
+     */
+    fun firstOfMonthPlus(year: Int, month: Int, monthsToAdd: Int): Long {
+        val monthIndex = year * MONTHS_PER_YEAR + (month - 1) + monthsToAdd
+        return toEpochDay(Math.floorDiv(monthIndex, MONTHS_PER_YEAR), Math.floorMod(monthIndex, MONTHS_PER_YEAR) + 1, 1)
+    }
+
+    /**
+     * ISO day of week of an epoch day (1 = Monday, 7 = Sunday)
+     */
+    fun dayOfWeek(epochDay: Long): Int = Math.floorMod(epochDay + 3, 7L).toInt() + 1
+
+    // ========== Gregorian calendar ==========
+
+    fun gregorianToEpochDay(year: Int, month: Int, day: Int): Long {
+        val y = (if (month <= 2) year - 1 else year).toLong()
+        val era = Math.floorDiv(y, 400L)
+        val yearOfEra = y - era * 400
+        val shiftedMonth = (month + 9) % 12
+        val dayOfYear = (153 * shiftedMonth + 2) / 5 + day - 1
+        val dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear
+        return era * 146097 + dayOfEra - GREGORIAN_EPOCH_SHIFT
+    }
+
+    /**
+     * Gregorian date of an epoch day, as a packed int
+     */
+    fun epochDayToGregorian(epochDay: Long): Int {
+        val z = epochDay + GREGORIAN_EPOCH_SHIFT
+        val era = Math.floorDiv(z, 146097L)
+        val dayOfEra = z - era * 146097
+        val yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+        val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+        val shiftedMonth = (5 * dayOfYear + 2) / 153
+        val day = (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1).toInt()
+        val month = (if (shiftedMonth < 10) shiftedMonth + 3 else shiftedMonth - 9).toInt()
+        val year = (yearOfEra + era * 400 + if (month <= 2) 1 else 0).toInt()
+        return pack(year, month, day)
+    }
+
+    fun isGregorianLeapYear(year: Int): Boolean =
+        (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0)
+
+    fun lengthOfGregorianMonth(year: Int, month: Int): Int = when (month) {
+        2 -> if (isGregorianLeapYear(year)) 29 else 28
+        4, 6, 9, 11 -> 30
+        else -> 31
+    }
+
+    // ========== Hijri calendar ==========
+    // The Umm al-Qura calendar is table driven, so these delegate to java.time's HijrahChronology
+    // and cost one short-lived HijrahDate per call.
+
+    fun hijriToEpochDay(year: Int, month: Int, day: Int): Long =
+        HijrahChronology.INSTANCE.date(year, month, day).toEpochDay()
+
+    fun epochDayToHijri(epochDay: Long): Int {
+        val hijrah = HijrahChronology.INSTANCE.dateEpochDay(epochDay)
+        return pack(
+            hijrah.get(ChronoField.YEAR_OF_ERA),
+            hijrah.get(ChronoField.MONTH_OF_YEAR),
+            hijrah.get(ChronoField.DAY_OF_MONTH)
+        )
+    }
+
+    // ========== Interop ==========
+
+    fun toEthiopicDate(packed: Int): EthiopicDate = EthiopicDate.of(year(packed), month(packed), day(packed))
+
+    fun toEthiopicDateFromEpochDay(epochDay: Long): EthiopicDate = toEthiopicDate(fromEpochDay(epochDay))
+}
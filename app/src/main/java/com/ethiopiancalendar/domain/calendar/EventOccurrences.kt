@@ -0,0 +1,48 @@
+package com.ethiopiancalendar.domain.calendar
+
+import com.ethiopiancalendar.data.local.converter.ZoneIdCache
+import com.ethiopiancalendar.data.local.entity.EventEntity
+import com.ethiopiancalendar.data.local.entity.RecurrenceFrequency
+import com.ethiopiancalendar.data.local.entity.ReminderRow
+import com.ethiopiancalendar.data.local.entity.parseRRule
+import java.time.Instant
+import java.time.ZonedDateTime
+
+/**
+ * Start of the first occurrence of this event strictly after [afterMillis], or null if there is none.
+ *
+ * Shared by the alarm scheduling, reminder delivery and repository code so they all agree on the
+ * next occurrence. A single event (or one whose rule cannot be parsed) occurs once at its start time;
+ * recurring events go through [RecurrenceExpander.nextOccurrence], which honours INTERVAL, COUNT,
+ * UNTIL and the event's recurrence end, and keeps the wall-clock time across DST changes.
+ */
+internal fun EventEntity.nextOccurrenceAfter(afterMillis: Long): ZonedDateTime? =
+    nextOccurrenceAfter(startEpochMillis, timeZone, recurrenceRule, recurrenceEndEpochMillis, afterMillis)
+
+/**
+ * Same as [EventEntity.nextOccurrenceAfter], for the reminder projection
+ */
+internal fun ReminderRow.nextOccurrenceAfter(afterMillis: Long): ZonedDateTime? =
+    nextOccurrenceAfter(startEpochMillis, timeZone, recurrenceRule, recurrenceEndEpochMillis, afterMillis)
+
+// Works from the stored columns so rows whose single occurrence is already past never build a date
+private fun nextOccurrenceAfter(
+    startMillis: Long,
+    timeZone: String,
+    recurrenceRule: String?,
+    recurrenceEndMillis: Long?,
+    afterMillis: Long
+): ZonedDateTime? {
+    val rule = recurrenceRule?.parseRRule()
+    if (rule == null || rule.frequency == RecurrenceFrequency.NONE) {
+        if (startMillis <= afterMillis) return null
+        return Instant.ofEpochMilli(startMillis).atZone(ZoneIdCache.get(timeZone))
+    }
+    val zone = ZoneIdCache.get(timeZone)
+    return RecurrenceExpander.nextOccurrence(
+        start = Instant.ofEpochMilli(startMillis).atZone(zone),
+        rule = rule,
+        afterMillis = afterMillis,
+        recurrenceEnd = recurrenceEndMillis?.let { Instant.ofEpochMilli(it).atZone(zone) }
+    )
+}
@@ -0,0 +1,295 @@
+package com.ethiopiancalendar.domain.calendar
+
+import com.ethiopiancalendar.data.local.entity.RecurrenceCalendar
+import com.ethiopiancalendar.data.local.entity.RecurrenceFrequency
+import com.ethiopiancalendar.data.local.entity.RecurrenceRule
+import java.time.LocalDate
+import java.time.LocalTime
+import java.time.ZoneId
+import java.time.ZonedDateTime
+
+/**
+ * Expands a [RecurrenceRule] into the occurrence start times that fall in a range.
+ *
+ * Occurrences are numbered from the event start (occurrence 0), so COUNT is honoured without
+ * walking the series: the expander jumps straight to the first day/week/month/year period that
+ * can reach the range, derives that period's occurrence number arithmetically, and then steps
+ * one period at a time. The work is proportional to the number of occurrences returned, not to
+ * the number of days between the event start and the range.
+ *
+ * Every occurrence keeps the local wall-clock time of the event start in the event's zone, so
+ * occurrences stay at the same local time across DST changes.
+ *
+ * MONTHLY and YEARLY rules repeat on the start's day of month (and month). Periods where that
+ * day does not exist, such as the 31st in a 30-day month or Pagume 6 in a common year, are
+ * skipped as RFC 5545 requires. With [RecurrenceCalendar.ETHIOPIC] the periods are Ethiopian
+ * months and years, which gives rules like "every Meskerem 1".
+ */
+internal object RecurrenceExpander {
+
+    private const val INVALID_DAY = Long.MIN_VALUE
+
+    private const val MILLIS_PER_DAY = 86_400_000L
+
+    // Guards rules that almost never match (e.g. every 100 years on February 29)
+    private const val MAX_PERIOD_STEPS = 10_000
+
+    /**
+     * Occurrence start times in [[rangeStart], [rangeEnd]), in order.
+     *
+     * @param start Start of the first occurrence (DTSTART)
+     * @param recurrenceEnd Extra inclusive end of the series, combined with the rule's UNTIL
+     * @param maxOccurrences Stop after this many occurrences in the range
+     */
+    fun expand(
+        start: ZonedDateTime,
+        rule: RecurrenceRule,
+        rangeStart: ZonedDateTime,
+        rangeEnd: ZonedDateTime,
+        recurrenceEnd: ZonedDateTime? = null,
+        maxOccurrences: Int = Int.MAX_VALUE
+    ): List<ZonedDateTime> = expand(
+        start = start,
+        rule = rule,
+        rangeStartMillis = rangeStart.toInstant().toEpochMilli(),
+        rangeEndMillis = rangeEnd.toInstant().toEpochMilli(),
+        recurrenceEnd = recurrenceEnd,
+        maxOccurrences = maxOccurrences
+    )
+
+    /**
+     * The first occurrence starting strictly after [afterMillis], or null once the series has
+     * ended (COUNT, UNTIL or [recurrenceEnd]).
+     *
+     * Like [expand] this jumps straight to the period containing [afterMillis], so it costs the
+     * same whether the series started last week or decades ago.
+     */
+    fun nextOccurrence(
+        start: ZonedDateTime,
+        rule: RecurrenceRule,
+        afterMillis: Long,
+        recurrenceEnd: ZonedDateTime? = null
+    ): ZonedDateTime? = expand(
+        start = start,
+        rule = rule,
+        rangeStartMillis = if (afterMillis == Long.MAX_VALUE) afterMillis else afterMillis + 1,
+        rangeEndMillis = Long.MAX_VALUE,
+        recurrenceEnd = recurrenceEnd,
+        maxOccurrences = 1
+    ).firstOrNull()
+
+    private fun expand(
+        start: ZonedDateTime,
+        rule: RecurrenceRule,
+        rangeStartMillis: Long,
+        rangeEndMillis: Long,
+        recurrenceEnd: ZonedDateTime?,
+        maxOccurrences: Int
+    ): List<ZonedDateTime> {
+        if (rule.frequency == RecurrenceFrequency.NONE) {
+            val startMillis = start.toInstant().toEpochMilli()
+            return if (startMillis in rangeStartMillis until rangeEndMillis) listOf(start) else emptyList()
+        }
+
+        val untilMillis = minOf(
+            rule.endDate ?: Long.MAX_VALUE,
+            recurrenceEnd?.toInstant()?.toEpochMilli() ?: Long.MAX_VALUE
+        )
+        val collector = Collector(
+            zone = start.zone,
+            time = start.toLocalTime(),
+            rangeStartMillis = rangeStartMillis,
+            rangeEndMillis = rangeEndMillis,
+            untilMillis = untilMillis,
+            count = rule.count?.toLong() ?: Long.MAX_VALUE,
+            maxOccurrences = maxOccurrences
+        )
+
+        val startEpochDay = start.toLocalDate().toEpochDay()
+        // One day of slack so zone differences between the range and the event never skip a match
+        val rangeStartEpochDay = Math.floorDiv(rangeStartMillis, MILLIS_PER_DAY)
+        val fromEpochDay = maxOf(startEpochDay, rangeStartEpochDay - 1)
+        val interval = rule.interval.coerceAtLeast(1)
+
+        when (rule.frequency) {
+            RecurrenceFrequency.DAILY -> expandDaily(startEpochDay, fromEpochDay, interval, collector)
+            RecurrenceFrequency.WEEKLY -> expandWeekly(startEpochDay, fromEpochDay, interval, rule, collector)
+            RecurrenceFrequency.MONTHLY -> expandMonthly(startEpochDay, fromEpochDay, interval, rule.calendarScale, collector)
+            RecurrenceFrequency.YEARLY -> expandYearly(startEpochDay, fromEpochDay, interval, rule.calendarScale, collector)
+            RecurrenceFrequency.NONE -> Unit
+        }
+        return collector.occurrences
+    }
+
+    // ========== Frequencies ==========
+
+    private fun expandDaily(startEpochDay: Long, fromEpochDay: Long, interval: Int, collector: Collector) {
+        // Every day period is valid, so the occurrence number is the period number
+        var occurrence = ceilDiv(fromEpochDay - startEpochDay, interval.toLong())
+        while (collector.accept(startEpochDay + occurrence * interval, occurrence)) {
+            occurrence++
+        }
+    }
+
+    private fun expandWeekly(
+        startEpochDay: Long,
+        fromEpochDay: Long,
+        interval: Int,
+        rule: RecurrenceRule,
+        collector: Collector
+    ) {
+        val startDayOfWeek = EthiopicDays.dayOfWeek(startEpochDay)
+        val daysOfWeek = if (rule.weekDayValues.isEmpty()) intArrayOf(startDayOfWeek) else rule.weekDayValues
+
+        // Weeks run Monday to Sunday (WKST=MO); week 0 contains the event start
+        val firstMonday = startEpochDay - (startDayOfWeek - 1)
+        val fromWeek = Math.floorDiv(fromEpochDay - firstMonday, 7L)
+        var week = maxOf(0L, Math.floorDiv(fromWeek, interval.toLong()) * interval)
+
+        // Week 0 only has the selected days on or after the start; every later week has all of them
+        val missingInFirstWeek = daysOfWeek.count { it < startDayOfWeek }
+        var occurrence = if (week == 0L) 0L else (week / interval) * daysOfWeek.size - missingInFirstWeek
+
+        repeat(MAX_PERIOD_STEPS) {
+            for (dayOfWeek in daysOfWeek) {
+                val epochDay = firstMonday + week * 7 + (dayOfWeek - 1)
+                if (epochDay < startEpochDay) continue
+                if (!collector.accept(epochDay, occurrence)) return
+                occurrence++
+            }
+            week += interval
+        }
+    }
+
+    private fun expandMonthly(
+        startEpochDay: Long,
+        fromEpochDay: Long,
+        interval: Int,
+        calendar: RecurrenceCalendar,
+        collector: Collector
+    ) {
+        val ethiopic = calendar == RecurrenceCalendar.ETHIOPIC
+        val monthsPerYear = if (ethiopic) EthiopicDays.MONTHS_PER_YEAR else 12
+        val start = toPacked(startEpochDay, ethiopic)
+        val from = toPacked(fromEpochDay, ethiopic)
+        val day = EthiopicDays.day(start)
+
+        val startMonthIndex = EthiopicDays.year(start).toLong() * monthsPerYear + EthiopicDays.month(start) - 1
+        val fromMonthIndex = EthiopicDays.year(from).toLong() * monthsPerYear + EthiopicDays.month(from) - 1
+
+        // Every month has at least 28 days (5 for Pagume)
+        val alwaysValid = day <= if (ethiopic) 5 else 28
+
+        expandPeriods(firstPeriod(fromMonthIndex - startMonthIndex, interval), interval, alwaysValid, collector) { period ->
+            val monthIndex = startMonthIndex + period
+            dateOf(
+                ethiopic,
+                Math.floorDiv(monthIndex, monthsPerYear.toLong()).toInt(),
+                Math.floorMod(monthIndex, monthsPerYear.toLong()).toInt() + 1,
+                day
+            )
+        }
+    }
+
+    private fun expandYearly(
+        startEpochDay: Long,
+        fromEpochDay: Long,
+        interval: Int,
+        calendar: RecurrenceCalendar,
+        collector: Collector
+    ) {
+        val ethiopic = calendar == RecurrenceCalendar.ETHIOPIC
+        val start = toPacked(startEpochDay, ethiopic)
+        val startYear = EthiopicDays.year(start)
+        val month = EthiopicDays.month(start)
+        val day = EthiopicDays.day(start)
+        val fromYear = EthiopicDays.year(toPacked(fromEpochDay, ethiopic))
+
+        // Only leap days (Pagume 6, February 29) are missing in some years
+        val alwaysValid = if (ethiopic) !(month == EthiopicDays.MONTHS_PER_YEAR && day == 6) else !(month == 2 && day == 29)
+
+        expandPeriods(firstPeriod((fromYear - startYear).toLong(), interval), interval, alwaysValid, collector) { period ->
+            dateOf(ethiopic, startYear + period.toInt(), month, day)
+        }
+    }
+
+    /**
+     * Step through periods (months or years after the start) from [firstPeriod].
+     *
+     * [periodDay] maps a period to its occurrence epoch day, or [INVALID_DAY] when the period has none.
+     * The occurrence number of [firstPeriod] is only counted period by period when some periods can
+     * be empty and the rule has a COUNT.
+     */
+    private inline fun expandPeriods(
+        firstPeriod: Long,
+        interval: Int,
+        alwaysValid: Boolean,
+        collector: Collector,
+        periodDay: (Long) -> Long
+    ) {
+        var occurrence = firstPeriod / interval
+        if (!alwaysValid && collector.hasCount) {
+            occurrence = 0L
+            var period = 0L
+            while (period < firstPeriod) {
+                if (periodDay(period) != INVALID_DAY) occurrence++
+                period += interval
+            }
+        }
+
+        var period = firstPeriod
+        repeat(MAX_PERIOD_STEPS) {
+            val epochDay = periodDay(period)
+            if (epochDay != INVALID_DAY) {
+                if (!collector.accept(epochDay, occurrence)) return
+                occurrence++
+            }
+            period += interval
+        }
+    }
+
+    // ========== Helpers ==========
+
+    private fun firstPeriod(periodsFromStart: Long, interval: Int): Long =
+        maxOf(0L, Math.floorDiv(periodsFromStart, interval.toLong()) * interval)
+
+    private fun toPacked(epochDay: Long, ethiopic: Boolean): Int =
+        if (ethiopic) EthiopicDays.fromEpochDay(epochDay) else EthiopicDays.epochDayToGregorian(epochDay)
+
+    private fun dateOf(ethiopic: Boolean, year: Int, month: Int, day: Int): Long = if (ethiopic) {
+        if (day > EthiopicDays.lengthOfMonth(year, month)) INVALID_DAY else EthiopicDays.toEpochDay(year, month, day)
+    } else {
+        if (day > EthiopicDays.lengthOfGregorianMonth(year, month)) INVALID_DAY else EthiopicDays.gregorianToEpochDay(year, month, day)
+    }
+
+    private fun ceilDiv(value: Long, divisor: Long): Long = -Math.floorDiv(-value, divisor)
+
+    /**
+     * Turns candidate days into occurrences and decides when expansion stops
+     */
+    private class Collector(
+        private val zone: ZoneId,
+        private val time: LocalTime,
+        private val rangeStartMillis: Long,
+        private val rangeEndMillis: Long,
+        private val untilMillis: Long,
+        private val count: Long,
+        private val maxOccurrences: Int
+    ) {
+        val occurrences = ArrayList<ZonedDateTime>()
+
+        val hasCount: Boolean get() = count != Long.MAX_VALUE
+
+        /**
+         * @return false once no later candidate can be in the range
+         */
+        fun accept(epochDay: Long, occurrence: Long): Boolean {
+            if (occurrence >= count) return false
+            val start = ZonedDateTime.of(LocalDate.ofEpochDay(epochDay), time, zone)
+            val startMillis = start.toInstant().toEpochMilli()
+            if (startMillis > untilMillis || startMillis >= rangeEndMillis) return false
+            if (startMillis >= rangeStartMillis) occurrences.add(start)
+            return occurrences.size < maxOccurrences
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.ethiopiancalendar.domain.model
 
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
 import org.threeten.extra.chrono.EthiopicDate
 import java.time.LocalDate
-import java.time.temporal.ChronoField
-import java.time.temporal.ChronoUnit
 
 /**
  * Represents a holiday in the Ethiopian calendar
@@ -47,37 +46,45 @@ data class HolidayOccurrence(
     val ethiopicDate: EthiopicDate,
     val adjustment: Int = 0  // Days adjusted via Firebase
 ) {
+    /**
+     * Epoch day of the actual date after applying any adjustment
+     */
+    val actualEpochDay: Long
+        get() = ethiopicDate.toEpochDay() + adjustment
+
+    /**
+     * Actual Ethiopian date as a packed int (see [EthiopicDays])
+     */
+    private val actualPackedDate: Int
+        get() = EthiopicDays.fromEpochDay(actualEpochDay)
+
     /**
      * Get the actual Ethiopic date after applying any adjustment
-     * Converts through Gregorian to ensure correct date arithmetic
      */
     val actualEthiopicDate: EthiopicDate
         get() = if (adjustment == 0) {
             ethiopicDate
         } else {
-            // Convert to Gregorian, add days, convert back to Ethiopic
-            val gregorian = LocalDate.from(ethiopicDate)
-            val adjustedGregorian = gregorian.plusDays(adjustment.toLong())
-            EthiopicDate.from(adjustedGregorian)
+            EthiopicDays.toEthiopicDateFromEpochDay(actualEpochDay)
         }
 
     /**
      * Get the Gregorian date for this holiday occurrence
      */
-    fun toGregorian(): LocalDate = LocalDate.from(actualEthiopicDate)
+    fun toGregorian(): LocalDate = LocalDate.ofEpochDay(actualEpochDay)
 
     /**
      * Get Ethiopian month number (1-13)
      */
-    fun getEthiopianMonth(): Int = actualEthiopicDate.get(ChronoField.MONTH_OF_YEAR)
+    fun getEthiopianMonth(): Int = EthiopicDays.month(actualPackedDate)
 
     /**
      * Get Ethiopian day of month (1-30)
      */
-    fun getEthiopianDay(): Int = actualEthiopicDate.get(ChronoField.DAY_OF_MONTH)
+    fun getEthiopianDay(): Int = EthiopicDays.day(actualPackedDate)
 
     /**
      * Get Ethiopian year
      */
-    fun getEthiopianYear(): Int = actualEthiopicDate.get(ChronoField.YEAR_OF_ERA)
-}
\ No newline at end of file
+    fun getEthiopianYear(): Int = EthiopicDays.year(actualPackedDate)
+}
@@ -0,0 +1,19 @@
+package com.ethiopiancalendar.domain.model
+
+/**
+ * Day offsets for moon-sighted Muslim holidays (from Firebase Remote Config).
+ * The offsets only apply to the Ethiopian year in [configuredYear].
+ */
+data class HolidayOffsets(
+    val eidAlAdha: Int = 0,
+    val eidAlFitr: Int = 0,
+    val mawlid: Int = 0,
+    val configuredYear: Int = 0
+) {
+
+    fun appliesTo(ethiopianYear: Int): Boolean = configuredYear == ethiopianYear
+
+    companion object {
+        val NONE = HolidayOffsets()
+    }
+}
@@ -0,0 +1,82 @@
+package com.ethiopiancalendar.domain.model
+
+/**
+ * Immutable, precomputed holiday table for a single Ethiopian year.
+ *
+ * Occurrences are stored in one array sorted by the epoch day of their actual date,
+ * with a month index so month and date lookups are array slices instead of filters.
+ */
+class HolidayYearTable(
+    val ethiopianYear: Int,
+    occurrences: List<HolidayOccurrence>
+) {
+
+    private val sorted: Array<HolidayOccurrence>
+
+    // monthStart[m] is the index of the first occurrence in month m (1-13); monthStart[14] is the end
+    private val monthStart = IntArray(MONTHS_IN_YEAR + 2)
+
+    // Actual epoch day of each entry of sorted, for range lookups
+    private val epochDays: LongArray
+
+    init {
+        sorted = occurrences.sortedBy { it.actualEpochDay }.toTypedArray()
+        epochDays = LongArray(sorted.size) { sorted[it].actualEpochDay }
+
+        val counts = IntArray(MONTHS_IN_YEAR + 2)
+        sorted.forEach { counts[it.getEthiopianMonth().coerceIn(1, MONTHS_IN_YEAR)]++ }
+        monthStart[1] = 0
+        for (month in 1..MONTHS_IN_YEAR) {
+            monthStart[month + 1] = monthStart[month] + counts[month]
+        }
+    }
+
+    /**
+     * All holidays of the year, sorted by date
+     */
+    val holidays: List<HolidayOccurrence> = sorted.asList()
+
+    /**
+     * Holidays in the given Ethiopian month (1-13), sorted by day
+     */
+    fun holidaysForMonth(month: Int): List<HolidayOccurrence> {
+        if (month !in 1..MONTHS_IN_YEAR) return emptyList()
+        return holidays.subList(monthStart[month], monthStart[month + 1])
+    }
+
+    /**
+     * Holidays on the given Ethiopian month and day
+     */
+    fun holidaysForDate(month: Int, day: Int): List<HolidayOccurrence> {
+        if (month !in 1..MONTHS_IN_YEAR) return emptyList()
+        var from = monthStart[month]
+        val end = monthStart[month + 1]
+        while (from < end && sorted[from].getEthiopianDay() < day) from++
+        var to = from
+        while (to < end && sorted[to].getEthiopianDay() == day) to++
+        return holidays.subList(from, to)
+    }
+
+    /**
+     * Holidays whose actual date falls on the epoch days [startEpochDay, endEpochDay), sorted by date
+     */
+    fun holidaysForDays(startEpochDay: Long, endEpochDay: Long): List<HolidayOccurrence> {
+        val from = firstIndexOnOrAfter(startEpochDay)
+        val to = firstIndexOnOrAfter(endEpochDay)
+        return if (from < to) holidays.subList(from, to) else emptyList()
+    }
+
+    private fun firstIndexOnOrAfter(epochDay: Long): Int {
+        var low = 0
+        var high = epochDays.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (epochDays[mid] < epochDay) low = mid + 1 else high = mid
+        }
+        return low
+    }
+
+    companion object {
+        const val MONTHS_IN_YEAR = 13
+    }
+}
@@ -3,7 +3,6 @@ package com.ethiopiancalendar.ui.event
 import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.*
@@ -18,20 +17,20 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
+import androidx.paging.LoadState
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import com.ethiopiancalendar.R
-import com.ethiopiancalendar.data.local.entity.EventInstance
-import java.time.Duration
-import java.time.ZonedDateTime
+import com.ethiopiancalendar.ui.model.EventUiModel
 import kotlin.math.abs
 
 /**
  * Calculate relative time difference from now to the given time.
  * Returns formatted string like "In 3 hours", "2 days ago", etc.
  */
-private fun getRelativeTimeText(targetTime: ZonedDateTime): String {
-    val now = ZonedDateTime.now()
-    val duration = Duration.between(now, targetTime)
-    val seconds = duration.seconds
+private fun getRelativeTimeText(targetMillis: Long): String {
+    val seconds = Math.floorDiv(targetMillis - System.currentTimeMillis(), 1000L)
     val absSeconds = abs(seconds)
 
     val isPast = seconds < 0
@@ -104,8 +103,20 @@ fun EventScreen(
     viewModel: EventViewModel = hiltViewModel()
 ) {
     val uiState by viewModel.uiState.collectAsState()
+    val events = viewModel.events.collectAsLazyPagingItems()
+    val snackbarHostState = remember { SnackbarHostState() }
+
+    // Show a failed event operation once, then clear it
+    val errorMessage = (uiState as? EventUiState.Success)?.errorMessage
+    LaunchedEffect(errorMessage) {
+        if (errorMessage != null) {
+            snackbarHostState.showSnackbar(errorMessage)
+            viewModel.dismissError()
+        }
+    }
 
     Scaffold(
+        snackbarHost = { SnackbarHost(snackbarHostState) },
         floatingActionButton = {
             FloatingActionButton(
                 onClick = { viewModel.showAddEventDialog() },
@@ -125,22 +136,32 @@ fun EventScreen(
                 .padding(paddingValues)
         ) {
             when (val state = uiState) {
-                is EventUiState.Loading -> {
-                    CircularProgressIndicator(
-                        modifier = Modifier.align(Alignment.Center)
-                    )
-                }
-
                 is EventUiState.Success -> {
-                    if (state.events.isEmpty()) {
-                        EmptyEventsPlaceholder()
-                    } else {
-                        EventList(
-                            events = state.events,
-                            onEventClick = { /* TODO: Show event details */ },
-                            onEditEvent = { viewModel.showEditEventDialog(it) },
-                            onDeleteEvent = { viewModel.deleteEvent(it) }
-                        )
+                    val refresh = events.loadState.refresh
+                    when {
+                        refresh is LoadState.Error -> {
+                            ErrorMessage(
+                                message = refresh.error.message ?: "Failed to load events",
+                                modifier = Modifier.align(Alignment.Center)
+                            )
+                        }
+
+                        events.itemCount == 0 && refresh is LoadState.Loading -> {
+                            CircularProgressIndicator(
+                                modifier = Modifier.align(Alignment.Center)
+                            )
+                        }
+
+                        events.itemCount == 0 -> EmptyEventsPlaceholder()
+
+                        else -> {
+                            EventList(
+                                events = events,
+                                onEventClick = { /* TODO: Show event details */ },
+                                onEditEvent = { viewModel.showEditEventDialog(it) },
+                                onDeleteEvent = { viewModel.deleteEvent(it) }
+                            )
+                        }
                     }
 
                     // Show dialog if open
@@ -182,13 +203,6 @@ fun EventScreen(
                         )
                     }
                 }
-
-                is EventUiState.Error -> {
-                    ErrorMessage(
-                        message = state.message,
-                        modifier = Modifier.align(Alignment.Center)
-                    )
-                }
             }
         }
     }
@@ -196,7 +210,7 @@ fun EventScreen(
 
 @Composable
 private fun EventList(
-    events: List<EventInstance>,
+    events: LazyPagingItems<EventUiModel>,
     onEventClick: (String) -> Unit,
     onEditEvent: (String) -> Unit,
     onDeleteEvent: (String) -> Unit
@@ -207,23 +221,41 @@ private fun EventList(
         verticalArrangement = Arrangement.spacedBy(8.dp)
     ) {
         items(
-            items = events,
-            key = { "${it.eventId}_${it.instanceStart.toInstant().toEpochMilli()}" }
-        ) { event ->
-            EventCard(
-                event = event,
-                onClick = { onEventClick(event.eventId) },
-                onEdit = { onEditEvent(event.eventId) },
-                onDelete = { onDeleteEvent(event.eventId) }
-            )
+            count = events.itemCount,
+            key = events.itemKey { it.key }
+        ) { index ->
+            val event = events[index]
+            if (event == null) {
+                // Not loaded yet; keeps the list at its full size while scrolling
+                EventCardPlaceholder()
+            } else {
+                EventCard(
+                    event = event,
+                    onClick = { onEventClick(event.eventId) },
+                    onEdit = { onEditEvent(event.eventId) },
+                    onDelete = { onDeleteEvent(event.eventId) }
+                )
+            }
         }
     }
 }
 
+@Composable
+private fun EventCardPlaceholder() {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(96.dp),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.colorScheme.surfaceVariant.copy(alpha = 0.5f)
+        )
+    ) {}
+}
+
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 private fun EventCard(
-    event: EventInstance,
+    event: EventUiModel,
     onClick: () -> Unit,
     onEdit: () -> Unit,
     onDelete: () -> Unit
@@ -277,14 +309,7 @@ private fun EventCard(
                         event.ethiopianYear
                     )
                 } else {
-                    val timeFormatter = java.time.format.DateTimeFormatter.ofPattern("HH:mm")
-                    val startTime = event.instanceStart.format(timeFormatter)
-                    val endTime = event.instanceEnd?.format(timeFormatter) ?: ""
-                    if (endTime.isNotEmpty()) {
-                        "$startTime - $endTime"
-                    } else {
-                        startTime
-                    }
+                    event.timeRangeText
                 }
 
                 Row(verticalAlignment = Alignment.CenterVertically) {
@@ -304,7 +329,7 @@ private fun EventCard(
 
                 // Relative time display
                 Spacer(modifier = Modifier.height(4.dp))
-                val relativeTimeText = getRelativeTimeText(event.instanceStart)
+                val relativeTimeText = getRelativeTimeText(event.instanceStartMillis)
                 Row(verticalAlignment = Alignment.CenterVertically) {
                     Icon(
                         imageVector = Icons.Default.Info,
@@ -1,39 +1,29 @@
 package com.ethiopiancalendar.ui.event
 
+import androidx.compose.runtime.Immutable
 import com.ethiopiancalendar.data.local.entity.EventEntity
-import com.ethiopiancalendar.data.local.entity.EventInstance
 
 /**
  * Sealed class representing the UI state for EventScreen.
  *
- * Follows the same pattern as HolidayListUiState:
- * - Loading: Initial state or when loading data
- * - Success: Data loaded successfully with list of events
- * - Error: Failed to load data with error message
+ * The event list itself is paged separately ([EventViewModel.events]); this state only
+ * covers the dialog and errors of event operations:
+ * - Success: Normal state, with the add/edit dialog state and the error of the last failed
+ *   operation, if any. Errors are cleared by [EventViewModel.dismissError] once shown, so a
+ *   failed create, update or delete never leaves the screen stuck.
  */
 sealed class EventUiState {
     /**
-     * Loading state - shown when fetching events from database.
-     */
-    data object Loading : EventUiState()
-
-    /**
-     * Success state - events loaded successfully.
+     * Success state - normal screen state.
      *
-     * @param events List of event instances (includes recurring event instances)
      * @param isDialogOpen Whether the add event dialog is currently shown
      * @param editingEvent Event currently being edited (null if creating new event)
+     * @param errorMessage Error of the last failed event operation, null once dismissed
      */
+    @Immutable
     data class Success(
-        val events: List<EventInstance>,
         val isDialogOpen: Boolean = false,
-        val editingEvent: EventEntity? = null
+        val editingEvent: EventEntity? = null,
+        val errorMessage: String? = null
     ) : EventUiState()
-
-    /**
-     * Error state - failed to load events.
-     *
-     * @param message Error message to display to user
-     */
-    data class Error(val message: String) : EventUiState()
 }
@@ -1,19 +1,24 @@
 package com.ethiopiancalendar.ui.event
 
-import android.content.Context
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import com.ethiopiancalendar.alarm.AlarmScheduler
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import androidx.paging.map
+import com.ethiopiancalendar.alarm.ReminderRescheduler
 import com.ethiopiancalendar.data.local.entity.EventEntity
 import com.ethiopiancalendar.data.local.entity.RecurrenceRule
 import com.ethiopiancalendar.data.local.entity.toRRuleString
 import com.ethiopiancalendar.data.repository.EventRepository
+import com.ethiopiancalendar.ui.model.EventUiModel
+import com.ethiopiancalendar.ui.model.toUiModel
 import dagger.hilt.android.lifecycle.HiltViewModel
-import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
-import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import timber.log.Timber
 import java.time.ZonedDateTime
@@ -33,41 +38,36 @@ import javax.inject.Inject
 @HiltViewModel
 class EventViewModel @Inject constructor(
     private val eventRepository: EventRepository,
-    @ApplicationContext private val context: Context
+    private val reminderRescheduler: ReminderRescheduler
 ) : ViewModel() {
 
-    private val alarmScheduler = AlarmScheduler(context)
-
-    private val _uiState = MutableStateFlow<EventUiState>(EventUiState.Loading)
+    private val _uiState = MutableStateFlow<EventUiState>(EventUiState.Success())
     val uiState: StateFlow<EventUiState> = _uiState.asStateFlow()
 
-    init {
-        loadEvents()
+    /**
+     * All events in start time order, loaded page by page as the list scrolls.
+     * Cached in viewModelScope so configuration changes keep the loaded pages.
+     */
+    val events: Flow<PagingData<EventUiModel>> = eventRepository.getEventsPaged()
+        .map { pagingData -> pagingData.map { it.toUiModel() } }
+        .cachedIn(viewModelScope)
+
+    /**
+     * Clear the error of the last failed event operation once it has been shown.
+     */
+    fun dismissError() {
+        _uiState.update { state ->
+            if (state is EventUiState.Success) state.copy(errorMessage = null) else state
+        }
     }
 
     /**
-     * Load all events from repository.
-     * Uses Flow to automatically update UI when data changes.
+     * Report a failed event operation without leaving the Success state, so the list
+     * and the dialog stay usable.
      */
-    private fun loadEvents() {
-        viewModelScope.launch {
-            eventRepository.getAllEvents()
-                .catch { exception ->
-                    Timber.e(exception, "Error loading events")
-                    _uiState.value = EventUiState.Error(
-                        message = exception.message ?: "Failed to load events"
-                    )
-                }
-                .collect { events ->
-                    // Convert EventEntity to EventInstance
-                    val instances = events.map { event ->
-                        event.toEventInstance()
-                    }
-                    _uiState.value = EventUiState.Success(
-                        events = instances,
-                        isDialogOpen = (_uiState.value as? EventUiState.Success)?.isDialogOpen ?: false
-                    )
-                }
+    private fun showError(message: String) {
+        _uiState.update { state ->
+            if (state is EventUiState.Success) state.copy(errorMessage = message) else state
         }
     }
 
@@ -97,10 +97,10 @@ class EventViewModel @Inject constructor(
     fun showEditEventDialog(eventId: String) {
         viewModelScope.launch {
             try {
+                // The list only holds display models; load the full event
+                val eventToEdit = eventRepository.findEventById(eventId)
                 val currentState = _uiState.value
                 if (currentState is EventUiState.Success) {
-                    // Find the event to edit
-                    val eventToEdit = currentState.events.find { it.eventId == eventId }?.originalEvent
                     if (eventToEdit != null) {
                         _uiState.value = currentState.copy(
                             isDialogOpen = true,
@@ -150,17 +150,12 @@ class EventViewModel @Inject constructor(
                     id = UUID.randomUUID().toString(),
                     summary = summary.trim(),
                     description = description?.trim(),
-                    startTime = startTime,
-                    endTime = endTime,
+                    startEpochMillis = startTime.toInstant().toEpochMilli(),
+                    endEpochMillis = endTime?.toInstant()?.toEpochMilli(),
                     isAllDay = isAllDay,
                     timeZone = startTime.zone.id,
                     recurrenceRule = recurrenceRule?.toRRuleString(),
-                    recurrenceEndDate = recurrenceRule?.endDate?.let {
-                        ZonedDateTime.ofInstant(
-                            java.time.Instant.ofEpochMilli(it),
-                            startTime.zone
-                        )
-                    },
+                    recurrenceEndEpochMillis = recurrenceRule?.endDate,
                     reminderMinutesBefore = reminderMinutesBefore,
                     category = category,
                     ethiopianYear = ethiopianYear,
@@ -173,46 +168,35 @@ class EventViewModel @Inject constructor(
                 // Create event in database
                 eventRepository.createEvent(event)
 
-                // Schedule alarm if reminder is enabled
-                if (reminderMinutesBefore != null) {
-                    val scheduled = alarmScheduler.scheduleAlarm(event)
-                    if (scheduled) {
-                        Timber.d("Alarm scheduled for event: $summary")
-                    } else {
-                        Timber.w("Failed to schedule alarm for event: $summary")
-                    }
-                }
+                // Queue the reminder if enabled
+                reminderRescheduler.onEventSaved(event)
 
                 hideAddEventDialog()
                 Timber.d("Event created: $summary")
             } catch (e: Exception) {
                 Timber.e(e, "Error creating event")
-                _uiState.value = EventUiState.Error(
-                    message = e.message ?: "Failed to create event"
-                )
+                showError(e.message ?: "Failed to create event")
             }
         }
     }
 
     /**
      * Delete an event by ID.
-     * Also cancels any scheduled alarms for the event.
+     * Also drops its queued reminder.
      */
     fun deleteEvent(eventId: String) {
         viewModelScope.launch {
             try {
-                // Cancel alarm if it exists
-                alarmScheduler.cancelAlarm(eventId)
-
                 // Delete event from database
                 eventRepository.deleteEventById(eventId)
 
+                // Drop its queued reminder
+                reminderRescheduler.onEventDeleted(eventId)
+
                 Timber.d("Event deleted: $eventId")
             } catch (e: Exception) {
                 Timber.e(e, "Error deleting event")
-                _uiState.value = EventUiState.Error(
-                    message = e.message ?: "Failed to delete event"
-                )
+                showError(e.message ?: "Failed to delete event")
             }
         }
     }
@@ -222,8 +206,8 @@ class EventViewModel @Inject constructor(
      *
      * This method:
      * 1. Updates the event in the database
-     * 2. Cancels the old alarm
-     * 3. Schedules a new alarm if reminder is enabled
+     * 2. Cancels the old per-event alarm, if any
+     * 3. Re-queues the reminder (or drops it if the reminder was removed)
      *
      * @param eventId ID of the event to update
      * @param summary Updated event title
@@ -255,14 +239,11 @@ class EventViewModel @Inject constructor(
         viewModelScope.launch {
             try {
                 // Get the existing event to preserve createdAt timestamp
-                val existingEvent = (_uiState.value as? EventUiState.Success)
-                    ?.events
-                    ?.find { it.eventId == eventId }
-                    ?.originalEvent
+                val existingEvent = eventRepository.findEventById(eventId)
 
                 if (existingEvent == null) {
                     Timber.e("Cannot update event: Event not found with ID $eventId")
-                    _uiState.value = EventUiState.Error("Event not found")
+                    showError("Event not found")
                     return@launch
                 }
 
@@ -270,17 +251,12 @@ class EventViewModel @Inject constructor(
                     id = eventId,
                     summary = summary.trim(),
                     description = description?.trim(),
-                    startTime = startTime,
-                    endTime = endTime,
+                    startEpochMillis = startTime.toInstant().toEpochMilli(),
+                    endEpochMillis = endTime?.toInstant()?.toEpochMilli(),
                     isAllDay = isAllDay,
                     timeZone = startTime.zone.id,
                     recurrenceRule = recurrenceRule?.toRRuleString(),
-                    recurrenceEndDate = recurrenceRule?.endDate?.let {
-                        ZonedDateTime.ofInstant(
-                            java.time.Instant.ofEpochMilli(it),
-                            startTime.zone
-                        )
-                    },
+                    recurrenceEndEpochMillis = recurrenceRule?.endDate,
                     reminderMinutesBefore = reminderMinutesBefore,
                     category = category,
                     ethiopianYear = ethiopianYear,
@@ -292,54 +268,19 @@ class EventViewModel @Inject constructor(
                     isSynced = false // Mark as not synced since we modified it
                 )
 
-                // Cancel old alarm first
-                alarmScheduler.cancelAlarm(eventId)
-                Timber.d("Canceled old alarm for event: $eventId")
-
                 // Update event in database
                 eventRepository.updateEvent(updatedEvent)
                 Timber.d("Event updated in database: $summary")
 
-                // Schedule new alarm if reminder is enabled
-                if (reminderMinutesBefore != null) {
-                    val scheduled = alarmScheduler.scheduleAlarm(updatedEvent)
-                    if (scheduled) {
-                        Timber.d("New alarm scheduled for event: $summary")
-                    } else {
-                        Timber.w("Failed to schedule new alarm for event: $summary")
-                    }
-                } else {
-                    Timber.d("No reminder set for event: $summary")
-                }
+                // Re-queue the reminder, or drop it if the reminder was removed
+                reminderRescheduler.onEventSaved(updatedEvent)
 
                 hideAddEventDialog()
                 Timber.d("Event update completed: $summary")
             } catch (e: Exception) {
                 Timber.e(e, "Error updating event")
-                _uiState.value = EventUiState.Error(
-                    message = e.message ?: "Failed to update event"
-                )
+                showError(e.message ?: "Failed to update event")
             }
         }
     }
-
-    /**
-     * Helper function to convert EventEntity to EventInstance.
-     */
-    private fun EventEntity.toEventInstance() = com.ethiopiancalendar.data.local.entity.EventInstance(
-        eventId = id,
-        summary = summary,
-        description = description,
-        instanceStart = startTime,
-        instanceEnd = endTime,
-        isAllDay = isAllDay,
-        category = category,
-        color = color,
-        reminderMinutesBefore = reminderMinutesBefore,
-        ethiopianYear = ethiopianYear,
-        ethiopianMonth = ethiopianMonth,
-        ethiopianDay = ethiopianDay,
-        isRecurring = recurrenceRule != null,
-        originalEvent = this
-    )
 }
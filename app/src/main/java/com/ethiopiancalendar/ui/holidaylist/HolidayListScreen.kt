@@ -20,11 +20,12 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
 import com.ethiopiancalendar.R
 import androidx.hilt.navigation.compose.hiltViewModel
-import com.ethiopiancalendar.domain.model.HolidayOccurrence
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
 import com.ethiopiancalendar.domain.model.HolidayType
-import org.threeten.extra.chrono.EthiopicDate
+import com.ethiopiancalendar.ui.model.HolidayUiModel
+import kotlinx.collections.immutable.ImmutableList
+import kotlinx.collections.immutable.ImmutableSet
 import java.time.LocalDate
-import java.time.temporal.ChronoField
 import java.util.Locale
 
 @OptIn(ExperimentalMaterial3Api::class)
@@ -92,8 +93,8 @@ fun HolidayListScreen(
 private fun HolidayListContent(
     modifier: Modifier = Modifier,
     currentYear: Int,
-    holidays: List<HolidayOccurrence>,
-    selectedFilters: Set<HolidayType>,
+    holidays: ImmutableList<HolidayUiModel>,
+    selectedFilters: ImmutableSet<HolidayType>,
     onYearIncrement: () -> Unit,
     onYearDecrement: () -> Unit,
     onFilterToggle: (HolidayType) -> Unit
@@ -193,7 +194,7 @@ private fun YearSelectorSection(
 
 @Composable
 private fun FilterSection(
-    selectedFilters: Set<HolidayType>,
+    selectedFilters: ImmutableSet<HolidayType>,
     onFilterToggle: (HolidayType) -> Unit
 ) {
     Card(
@@ -268,7 +269,7 @@ private fun FilterCheckbox(
 
 @Composable
 private fun HolidayListItem(
-    holiday: HolidayOccurrence,
+    holiday: HolidayUiModel,
     monthNames: Array<String>
 ) {
     Card(
@@ -287,7 +288,7 @@ private fun HolidayListItem(
         ) {
 
             Text(
-                text = String.format(Locale.US,"%02d",  holiday.holiday.ethiopianDay ),
+                text = String.format(Locale.US,"%02d",  holiday.day ),
                 style = MaterialTheme.typography.headlineLarge,
                 fontWeight = FontWeight.Thin
             )
@@ -297,7 +298,7 @@ private fun HolidayListItem(
             Box(
                 modifier = Modifier
                         .size(4.dp, 30.dp)
-                        .background(holiday.holiday.type.getColor())
+                        .background(holiday.type.getColor())
             )
 
 
@@ -308,20 +309,20 @@ private fun HolidayListItem(
                 modifier = Modifier.weight(1f)
             ) {
                 Text(
-                    text = holiday.holiday.name,
+                    text = holiday.name,
                     style = MaterialTheme.typography.titleMedium,
                     fontWeight = FontWeight.Medium
                 )
 
                 Text(
-                    text = formatEthiopicDateWithGregorian(holiday.ethiopicDate, monthNames),
+                    text = formatEthiopicDateWithGregorian(holiday.epochDay, monthNames),
                     style = MaterialTheme.typography.bodySmall,
                     color = MaterialTheme.colorScheme.onSurfaceVariant
                 )
 
-                if (holiday.holiday.description.isNotEmpty()) {
+                if (holiday.description.isNotEmpty()) {
                     Text(
-                        text = holiday.holiday.description,
+                        text = holiday.description,
                         style = MaterialTheme.typography.bodySmall,
                         color = MaterialTheme.colorScheme.onSurfaceVariant,
                         modifier = Modifier.padding(top = 4.dp)
@@ -330,7 +331,7 @@ private fun HolidayListItem(
             }
 
             // Day Off Badge
-            if (holiday.holiday.isDayOff) {
+            if (holiday.isDayOff) {
                 Surface(
                     color = MaterialTheme.colorScheme.primaryContainer,
                     shape = MaterialTheme.shapes.small
@@ -347,15 +348,14 @@ private fun HolidayListItem(
 }
 
 /**
- * Format EthiopicDate with both Ethiopian and Gregorian dates
+ * Format an epoch day with both Ethiopian and Gregorian dates
  */
-private fun formatEthiopicDateWithGregorian(date: EthiopicDate, monthNames: Array<String>): String {
-    val year = date.get(ChronoField.YEAR_OF_ERA)
-    val month = date.get(ChronoField.MONTH_OF_YEAR)
-    val day = date.get(ChronoField.DAY_OF_MONTH)
-    val gregorianDate = LocalDate.from(date)
+private fun formatEthiopicDateWithGregorian(epochDay: Long, monthNames: Array<String>): String {
+    val date = EthiopicDays.fromEpochDay(epochDay)
+    val month = EthiopicDays.month(date)
+    val gregorianDate = LocalDate.ofEpochDay(epochDay)
 
     val monthName = if (month in 1..13) monthNames[month - 1] else "Unknown"
 
-    return "$monthName $day, $year (${gregorianDate.month.name.lowercase().replaceFirstChar { it.uppercase() }} ${gregorianDate.dayOfMonth}, ${gregorianDate.year})"
+    return "$monthName ${EthiopicDays.day(date)}, ${EthiopicDays.year(date)} (${gregorianDate.month.name.lowercase().replaceFirstChar { it.uppercase() }} ${gregorianDate.dayOfMonth}, ${gregorianDate.year})"
 }
@@ -1,16 +1,20 @@
 package com.ethiopiancalendar.ui.holidaylist
 
-import com.ethiopiancalendar.domain.model.HolidayOccurrence
+import androidx.compose.runtime.Immutable
 import com.ethiopiancalendar.domain.model.HolidayType
+import com.ethiopiancalendar.ui.model.HolidayUiModel
+import kotlinx.collections.immutable.ImmutableList
+import kotlinx.collections.immutable.ImmutableSet
 
 sealed class HolidayListUiState {
     data object Loading : HolidayListUiState()
 
+    @Immutable
     data class Success(
         val currentYear: Int,
-        val allHolidays: List<HolidayOccurrence>,
-        val filteredHolidays: List<HolidayOccurrence>,
-        val selectedFilters: Set<HolidayType>
+        val allHolidays: ImmutableList<HolidayUiModel>,
+        val filteredHolidays: ImmutableList<HolidayUiModel>,
+        val selectedFilters: ImmutableSet<HolidayType>
     ) : HolidayListUiState()
 
     data class Error(val message: String) : HolidayListUiState()
@@ -4,11 +4,20 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.ethiopiancalendar.data.repository.HolidayRepository
 import com.ethiopiancalendar.domain.model.HolidayType
+import com.ethiopiancalendar.ui.model.toUiModel
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.collections.immutable.PersistentSet
+import kotlinx.collections.immutable.persistentSetOf
+import kotlinx.collections.immutable.toImmutableList
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onStart
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import org.threeten.extra.chrono.EthiopicDate
 import java.time.temporal.ChronoField
@@ -23,25 +32,24 @@ class HolidayListViewModel @Inject constructor(
     private val _uiState = MutableStateFlow<HolidayListUiState>(HolidayListUiState.Loading)
     val uiState: StateFlow<HolidayListUiState> = _uiState.asStateFlow()
 
-    private var currentYear: Int = EthiopicDate.now().get(ChronoField.YEAR)
-    private var selectedFilters: Set<HolidayType> = setOf(
+    // One collector follows the selected year; changing it cancels the previous year's flow
+    private val selectedYear = MutableStateFlow(EthiopicDate.now().get(ChronoField.YEAR))
+    private var selectedFilters: PersistentSet<HolidayType> = persistentSetOf(
         HolidayType.NATIONAL,
         HolidayType.ORTHODOX_CHRISTIAN,
         HolidayType.MUSLIM
     )
 
     init {
-        loadHolidaysForYear()
+        observeHolidays()
     }
 
     fun incrementYear() {
-        currentYear++
-        loadHolidaysForYear()
+        selectedYear.update { it + 1 }
     }
 
     fun decrementYear() {
-        currentYear--
-        loadHolidaysForYear()
+        selectedYear.update { it - 1 }
     }
 
     fun toggleFilter(holidayType: HolidayType) {
@@ -53,31 +61,34 @@ class HolidayListViewModel @Inject constructor(
         applyFilters()
     }
 
-    private fun loadHolidaysForYear() {
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private fun observeHolidays() {
         viewModelScope.launch {
-            _uiState.value = HolidayListUiState.Loading
-            holidayRepository.getHolidaysForYear(
-                ethiopianYear = currentYear,
-                //includeNational = true,//Fix: No parameter with name 'includeNational' found.
-                includeOrthodox = true,
-                includeMuslim = true
-            )
-                .catch { e ->
-                    _uiState.value = HolidayListUiState.Error(
-                        message = e.message ?: "Failed to load holidays"
-                    )
-                }
-                .collect { holidays ->
-                    val sortedHolidays = holidays.sortedBy { it.holiday }
-                    _uiState.value = HolidayListUiState.Success(
-                        currentYear = currentYear,
-                        allHolidays = sortedHolidays,
-                        filteredHolidays = sortedHolidays.filter {
-                            selectedFilters.contains(it.holiday.type)
-                        },
-                        selectedFilters = selectedFilters
-                    )
-                }
+            selectedYear.flatMapLatest { year ->
+                holidayRepository.getHolidaysForYear(
+                    ethiopianYear = year,
+                    //includeNational = true,//Fix: No parameter with name 'includeNational' found.
+                    includeOrthodox = true,
+                    includeMuslim = true
+                )
+                    .onStart { _uiState.value = HolidayListUiState.Loading }
+                    .catch { e ->
+                        _uiState.value = HolidayListUiState.Error(
+                            message = e.message ?: "Failed to load holidays"
+                        )
+                    }
+                    .map { holidays -> year to holidays }
+            }.collect { (year, holidays) ->
+                val sortedHolidays = holidays.sortedBy { it.holiday }.map { it.toUiModel() }
+                _uiState.value = HolidayListUiState.Success(
+                    currentYear = year,
+                    allHolidays = sortedHolidays.toImmutableList(),
+                    filteredHolidays = sortedHolidays.filter {
+                        selectedFilters.contains(it.type)
+                    }.toImmutableList(),
+                    selectedFilters = selectedFilters
+                )
+            }
         }
     }
 
@@ -86,8 +97,8 @@ class HolidayListViewModel @Inject constructor(
         if (currentState is HolidayListUiState.Success) {
             _uiState.value = currentState.copy(
                 filteredHolidays = currentState.allHolidays.filter {
-                    selectedFilters.contains(it.holiday.type)
-                },
+                    selectedFilters.contains(it.type)
+                }.toImmutableList(),
                 selectedFilters = selectedFilters
             )
         }
@@ -0,0 +1,96 @@
+package com.ethiopiancalendar.ui.model
+
+import androidx.compose.runtime.Immutable
+import com.ethiopiancalendar.data.local.converter.ZoneIdCache
+import com.ethiopiancalendar.data.local.entity.EventInstance
+import com.ethiopiancalendar.data.local.entity.EventListRow
+import java.time.Instant
+import java.time.ZoneId
+import java.time.format.DateTimeFormatter
+
+private val TIME_FORMATTER: DateTimeFormatter = DateTimeFormatter.ofPattern("HH:mm")
+
+/**
+ * Display model of an event instance.
+ *
+ * Unlike EventInstance it does not carry the full EventEntity; screens that need the
+ * entity (e.g. to edit it) load it by [eventId]. Dates are kept as epoch millis plus the
+ * zone id, and the time range is formatted when the model is built, so list items neither
+ * hold nor format ZonedDateTimes while composing.
+ */
+@Immutable
+data class EventUiModel(
+    val eventId: String,
+    val summary: String,
+    val instanceStartMillis: Long,
+    val instanceEndMillis: Long?,
+    val zoneId: String,
+    /**
+     * "HH:mm" or "HH:mm - HH:mm" in the event's zone
+     */
+    val timeRangeText: String,
+    val isAllDay: Boolean,
+    val category: String,
+    val color: Int,
+    val reminderMinutesBefore: Int?,
+    val ethiopianYear: Int,
+    val ethiopianMonth: Int,
+    val ethiopianDay: Int,
+    val isRecurring: Boolean
+) {
+    /**
+     * Stable list key, unique per instance of a recurring event
+     */
+    val key: String
+        get() = "${eventId}_$instanceStartMillis"
+}
+
+fun EventInstance.toUiModel(): EventUiModel {
+    val startMillis = instanceStart.toInstant().toEpochMilli()
+    val endMillis = instanceEnd?.toInstant()?.toEpochMilli()
+    return EventUiModel(
+        eventId = eventId,
+        summary = summary,
+        instanceStartMillis = startMillis,
+        instanceEndMillis = endMillis,
+        zoneId = instanceStart.zone.id,
+        timeRangeText = formatTimeRange(startMillis, endMillis, instanceStart.zone),
+        isAllDay = isAllDay,
+        category = category,
+        color = color,
+        reminderMinutesBefore = reminderMinutesBefore,
+        ethiopianYear = ethiopianYear,
+        ethiopianMonth = ethiopianMonth,
+        ethiopianDay = ethiopianDay,
+        isRecurring = isRecurring
+    )
+}
+
+/**
+ * Display model of the event's first occurrence
+ */
+fun EventListRow.toUiModel(): EventUiModel = EventUiModel(
+    eventId = id,
+    summary = summary,
+    instanceStartMillis = startEpochMillis,
+    instanceEndMillis = endEpochMillis,
+    zoneId = timeZone,
+    timeRangeText = formatTimeRange(startEpochMillis, endEpochMillis, ZoneIdCache.get(timeZone)),
+    isAllDay = isAllDay,
+    category = category,
+    color = color,
+    reminderMinutesBefore = reminderMinutesBefore,
+    ethiopianYear = ethiopianYear,
+    ethiopianMonth = ethiopianMonth,
+    ethiopianDay = ethiopianDay,
+    isRecurring = isRecurring
+)
+
+private fun formatTimeRange(startMillis: Long, endMillis: Long?, zone: ZoneId): String {
+    val start = TIME_FORMATTER.format(Instant.ofEpochMilli(startMillis).atZone(zone))
+    return if (endMillis != null) {
+        "$start - ${TIME_FORMATTER.format(Instant.ofEpochMilli(endMillis).atZone(zone))}"
+    } else {
+        start
+    }
+}
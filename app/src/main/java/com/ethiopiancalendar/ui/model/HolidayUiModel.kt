@@ -0,0 +1,37 @@
+package com.ethiopiancalendar.ui.model
+
+import androidx.compose.runtime.Immutable
+import com.ethiopiancalendar.domain.model.HolidayOccurrence
+import com.ethiopiancalendar.domain.model.HolidayType
+
+/**
+ * Display model of a holiday occurrence.
+ *
+ * Only what the holiday rows and calendar cells show, with dates as epoch days, so the
+ * Compose compiler can treat it as stable (unlike HolidayOccurrence, which holds an EthiopicDate).
+ */
+@Immutable
+data class HolidayUiModel(
+    val id: String,
+    val name: String,
+    val description: String,
+    val type: HolidayType,
+    val isDayOff: Boolean,
+    // Day of month the holiday is defined on
+    val day: Int,
+    // Computed date of this occurrence
+    val epochDay: Long,
+    // Date after any adjustment
+    val actualEpochDay: Long
+)
+
+fun HolidayOccurrence.toUiModel(): HolidayUiModel = HolidayUiModel(
+    id = holiday.id,
+    name = holiday.name,
+    description = holiday.description,
+    type = holiday.type,
+    isDayOff = holiday.isDayOff,
+    day = holiday.ethiopianDay,
+    epochDay = ethiopicDate.toEpochDay(),
+    actualEpochDay = actualEpochDay
+)
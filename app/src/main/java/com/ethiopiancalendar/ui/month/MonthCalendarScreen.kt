@@ -31,9 +31,11 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.ethiopiancalendar.R
 import androidx.hilt.navigation.compose.hiltViewModel
-import com.ethiopiancalendar.data.local.entity.EventInstance
+import com.ethiopiancalendar.data.local.entity.MonthCellRow
 import com.ethiopiancalendar.data.preferences.CalendarType
-import com.ethiopiancalendar.domain.model.HolidayOccurrence
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
+import com.ethiopiancalendar.ui.model.HolidayUiModel
+import kotlinx.collections.immutable.ImmutableList
 import kotlinx.coroutines.launch
 import org.threeten.extra.chrono.EthiopicDate
 import java.time.LocalDate
@@ -53,6 +55,16 @@ fun MonthCalendarScreen(
         pageCount = { MonthCalendarViewModel.TOTAL_PAGES }
     )
 
+    // Selection overlay shared by all pages; read lazily by the cells
+    val selectedDate = viewModel.selectedDate.collectAsState()
+
+    // Keep the pages around the current one warm
+    LaunchedEffect(pagerState) {
+        snapshotFlow { pagerState.currentPage }.collect { page ->
+            viewModel.onCurrentPageChanged(page)
+        }
+    }
+
     // Track current page's Ethiopian date
     val currentEthiopicDate = remember(pagerState.currentPage) {
         viewModel.getEthiopicDateForPage(pagerState.currentPage)
@@ -110,12 +122,13 @@ fun MonthCalendarScreen(
             //beyondViewportPageCount = 2, // Preload 2 pages on each side
             flingBehavior = PagerDefaults.flingBehavior(state = pagerState)
         ) { page ->
-            // Load data for this page
-            val monthData by viewModel.loadMonthDataForPage(page)
-                    .collectAsState(initial = MonthCalendarUiState.Loading)
+            // Shared, cached state for this page
+            val monthState = remember(page) { viewModel.monthStateForPage(page) }
+            val monthData by monthState.collectAsState()
 
             MonthCalendarPage(
                 uiState = monthData,
+                selectedDate = selectedDate,
                 onDateClick = { date ->
                     viewModel.selectDate(date)
                     // Optionally navigate to the month of the selected date
@@ -134,6 +147,7 @@ fun MonthCalendarScreen(
 @Composable
 fun MonthCalendarPage(
     uiState: MonthCalendarUiState,
+    selectedDate: State<EthiopicDate?>,
     onDateClick: (EthiopicDate) -> Unit
 ) {
     when (uiState) {
@@ -149,6 +163,7 @@ fun MonthCalendarPage(
         is MonthCalendarUiState.Success -> {
             MonthCalendarContent(
                 state = uiState,
+                selectedDate = selectedDate,
                 onDateClick = onDateClick
             )
         }
@@ -182,6 +197,7 @@ fun MonthCalendarPage(
 @Composable
 fun MonthCalendarContent(
     state: MonthCalendarUiState.Success,
+    selectedDate: State<EthiopicDate?>,
     onDateClick: (EthiopicDate) -> Unit,
     modifier: Modifier = Modifier
 ) {
@@ -202,25 +218,20 @@ fun MonthCalendarContent(
             verticalArrangement = Arrangement.spacedBy(4.dp),
             modifier = Modifier.weight(1f)
         ) {
-            items(state.dateList.size) { index ->
-                val date = state.dateList[index]
+            items(state.grid.size) { index ->
+                val date = state.grid.dates[index]
+                val cells = state.cells
+                // Only the cells whose selection flips recompose when the selected date changes
+                val isSelected by remember(date) { derivedStateOf { selectedDate.value == date } }
                 DateCell(
-                    date = date,
-                    currentMonth = state.currentMonth.get(ChronoField.MONTH_OF_YEAR),
-                    currentGregorianYear = state.currentGregorianYear,
-                    currentGregorianMonth = state.currentGregorianMonth,
-                    isToday = date == EthiopicDate.now(),
-                    isSelected = date == state.selectedDate,
-                    holidays = state.holidays.filter {
-                        it.actualEthiopicDate.get(ChronoField.DAY_OF_MONTH) == date.get(ChronoField.DAY_OF_MONTH) &&
-                                it.actualEthiopicDate.get(ChronoField.MONTH_OF_YEAR) == date.get(ChronoField.MONTH_OF_YEAR) &&
-                                it.actualEthiopicDate.get(ChronoField.YEAR_OF_ERA) == date.get(ChronoField.YEAR_OF_ERA)
-                    },
-                    events = state.events.filter {
-                        it.ethiopianDay == date.get(ChronoField.DAY_OF_MONTH) &&
-                                it.ethiopianMonth == date.get(ChronoField.MONTH_OF_YEAR) &&
-                                it.ethiopianYear == date.get(ChronoField.YEAR_OF_ERA)
-                    },
+                    epochDay = state.grid.epochDayAt(index),
+                    ethiopianDay = cells.ethiopianDayAt(index),
+                    gregorianDay = cells.gregorianDayAt(index),
+                    isCurrentMonth = cells.isInMonthAt(index),
+                    isToday = index == cells.todayIndex,
+                    isSelected = isSelected,
+                    holidays = cells.holidaysAt(index),
+                    events = cells.eventsAt(index),
                     primaryCalendar = state.primaryCalendar,
                     displayDualCalendar = state.displayDualCalendar,
                     secondaryCalendar = state.secondaryCalendar,
@@ -304,8 +315,8 @@ private fun getDisplayMode(
 @Composable
 private fun EthiopianOnlyContent(
     ethiopianDay: Int,
-    holidays: List<HolidayOccurrence>,
-    events: List<EventInstance>,
+    holidays: ImmutableList<HolidayUiModel>,
+    events: ImmutableList<MonthCellRow>,
     textColor: Color,
     isToday: Boolean
 ) {
@@ -331,7 +342,7 @@ private fun EthiopianOnlyContent(
             holidays.take(1).forEach { holiday ->
                 Box(
                     modifier = Modifier.fillMaxSize()
-                        .background(holiday.holiday.type.getColor())
+                        .background(holiday.type.getColor())
                 )
             }
 
@@ -353,8 +364,8 @@ private fun EthiopianOnlyContent(
 @Composable
 private fun GregorianOnlyContent(
     gregorianDay: Int,
-    holidays: List<HolidayOccurrence>,
-    events: List<EventInstance>,
+    holidays: ImmutableList<HolidayUiModel>,
+    events: ImmutableList<MonthCellRow>,
     textColor: Color,
     isToday: Boolean
 ) {
@@ -383,7 +394,7 @@ private fun GregorianOnlyContent(
                         .size(8.dp)
                         .padding(horizontal = 2.dp)
                         .clip(CircleShape)
-                        .background(holiday.holiday.type.getColor())
+                        .background(holiday.type.getColor())
                 )
             }
 
@@ -409,8 +420,8 @@ private fun GregorianOnlyContent(
 private fun DualEthiopianPrimaryContent(
     ethiopianDay: Int,
     gregorianDay: Int,
-    holidays: List<HolidayOccurrence>,
-    events: List<EventInstance>,
+    holidays: ImmutableList<HolidayUiModel>,
+    events: ImmutableList<MonthCellRow>,
     textColor: Color,
     isToday: Boolean
 ) {
@@ -452,7 +463,7 @@ private fun DualEthiopianPrimaryContent(
                 Box(
                     modifier = Modifier
                             .fillMaxSize()
-                            .background(holiday.holiday.type.getColor())
+                            .background(holiday.type.getColor())
                 )
             }
 
@@ -472,8 +483,8 @@ private fun DualEthiopianPrimaryContent(
 private fun DualGregorianPrimaryContent(
     ethiopianDay: Int,
     gregorianDay: Int,
-    holidays: List<HolidayOccurrence>,
-    events: List<EventInstance>,
+    holidays: ImmutableList<HolidayUiModel>,
+    events: ImmutableList<MonthCellRow>,
     textColor: Color,
     isToday: Boolean
 ) {
@@ -514,7 +525,7 @@ private fun DualGregorianPrimaryContent(
                 Box(
                     modifier = Modifier
                             .fillMaxSize()
-                            .background(holiday.holiday.type.getColor())
+                            .background(holiday.type.getColor())
                 )
             }
 
@@ -538,8 +549,8 @@ private fun DateCellContent(
     ethiopianDay: Int,
     gregorianDay: Int,
     displayMode: DateDisplayMode,
-    holidays: List<HolidayOccurrence>,
-    events: List<EventInstance>,
+    holidays: ImmutableList<HolidayUiModel>,
+    events: ImmutableList<MonthCellRow>,
     textColor: Color,
     isToday: Boolean
 ) {
@@ -587,38 +598,21 @@ private fun DateCellContent(
 
 @Composable
 fun DateCell(
-    date: EthiopicDate,
-    currentMonth: Int,
-    currentGregorianYear: Int?,
-    currentGregorianMonth: Int?,
+    epochDay: Long,
+    ethiopianDay: Int,
+    gregorianDay: Int,
+    isCurrentMonth: Boolean,
     isToday: Boolean,
     isSelected: Boolean,
-    holidays: List<HolidayOccurrence>,
-    events: List<EventInstance>,
+    holidays: ImmutableList<HolidayUiModel>,
+    events: ImmutableList<MonthCellRow>,
     primaryCalendar: CalendarType,
     displayDualCalendar: Boolean,
     secondaryCalendar: CalendarType,
     onClick: () -> Unit
 ) {
-    val ethiopianDayOfMonth = date.get(ChronoField.DAY_OF_MONTH)
-    val gregorianDate = LocalDate.from(date)
-    val gregorianDayOfMonth = gregorianDate.dayOfMonth
     val monthNames = stringArrayResource(R.array.ethiopian_months)
 
-    // Determine if the date is in the "current" month based on primary calendar
-    val isCurrentMonth = when (primaryCalendar) {
-        CalendarType.GREGOREAN -> {
-            // Check against Gregorian month when Gregorian is primary
-            currentGregorianYear != null && currentGregorianMonth != null &&
-                    gregorianDate.year == currentGregorianYear &&
-                    gregorianDate.monthValue == currentGregorianMonth
-        }
-        else -> {
-            // Check against Ethiopian month for Ethiopian and other calendars
-            date.get(ChronoField.MONTH_OF_YEAR) == currentMonth
-        }
-    }
-
     // Determine display mode once per cell
     val displayMode = getDisplayMode(
         primaryCalendar = primaryCalendar,
@@ -645,17 +639,6 @@ fun DateCell(
     // Shape based on calendar mode
     val shape = if (isDualCalendar) RoundedCornerShape(4.dp) else CircleShape
 
-    // Accessibility content description
-    val contentDesc = buildString {
-        append(formatEthiopicDateFull(date, monthNames))
-        if (isToday) append(", Today")
-        if (isSelected) append(", Selected")
-        if (holidays.isNotEmpty()) {
-            val holidayNames = holidays.joinToString(", ") { it.holiday.name }
-            append(", Holidays: $holidayNames")
-        }
-    }
-
     Box(
         modifier = Modifier
                 .aspectRatio(1f)
@@ -670,13 +653,22 @@ fun DateCell(
                 .clickable { onClick() }
                 .padding(2.dp)
                 .semantics {
-                    this.contentDescription = contentDesc
+                    // Accessibility content description, built only when semantics are read
+                    this.contentDescription = buildString {
+                        append(formatEthiopicDateFull(epochDay, monthNames))
+                        if (isToday) append(", Today")
+                        if (isSelected) append(", Selected")
+                        if (holidays.isNotEmpty()) {
+                            val holidayNames = holidays.joinToString(", ") { it.name }
+                            append(", Holidays: $holidayNames")
+                        }
+                    }
                 },
         contentAlignment = if (isDualCalendar) Alignment.Center else Alignment.Center
     ) {
         DateCellContent(
-            ethiopianDay = ethiopianDayOfMonth,
-            gregorianDay = gregorianDayOfMonth,
+            ethiopianDay = ethiopianDay,
+            gregorianDay = gregorianDay,
             displayMode = displayMode,
             holidays = holidays,
             events = events,
@@ -688,7 +680,7 @@ fun DateCell(
 
 @Composable
 fun HolidayListSection(
-    holidays: List<HolidayOccurrence>,
+    holidays: ImmutableList<HolidayUiModel>,
     modifier: Modifier = Modifier
 ) {
     val monthNames = stringArrayResource(R.array.ethiopian_months)
@@ -735,7 +727,7 @@ fun HolidayListSection(
 
 @Composable
 fun HolidayItem(
-    holiday: HolidayOccurrence,
+    holiday: HolidayUiModel,
     monthNames: Array<String>
 ) {
     Row(
@@ -743,7 +735,7 @@ fun HolidayItem(
         verticalAlignment = Alignment.CenterVertically
     ) {
         Text(
-            text = String.format(Locale.US,"%02d",  holiday.holiday.ethiopianDay ),
+            text = String.format(Locale.US,"%02d",  holiday.day ),
             style = MaterialTheme.typography.headlineLarge,
             fontWeight = FontWeight.Thin
         )
@@ -751,26 +743,26 @@ fun HolidayItem(
         Box(
             modifier = Modifier
                     .size(4.dp, 30.dp)
-                    .background(holiday.holiday.type.getColor())
+                    .background(holiday.type.getColor())
         )
 
         Spacer(modifier = Modifier.width(8.dp))
 
         Column(modifier = Modifier.weight(1f)) {
             Text(
-                text = holiday.holiday.name,
+                text = holiday.name,
                 style = MaterialTheme.typography.bodyMedium,
                 fontWeight = FontWeight.Medium
             )
 
             Text(
-                text = formatEthiopicDate(holiday.actualEthiopicDate, monthNames),
+                text = formatEthiopicDate(holiday.actualEpochDay, monthNames),
                 style = MaterialTheme.typography.bodySmall,
                 color = MaterialTheme.colorScheme.onSurfaceVariant
             )
         }
 
-        if (holiday.holiday.isDayOff) {
+        if (holiday.isDayOff) {
             Surface(
                 color = MaterialTheme.colorScheme.primaryContainer,
                 shape = MaterialTheme.shapes.small
@@ -799,15 +791,22 @@ private fun formatEthiopicDate(date: EthiopicDate, monthNames: Array<String>): S
 }
 
 /**
- * Format EthiopicDate with full details for accessibility
+ * Format an epoch day as an Ethiopian date
  */
-private fun formatEthiopicDateFull(date: EthiopicDate, monthNames: Array<String>): String {
-    val year = date.get(ChronoField.YEAR_OF_ERA)
-    val month = date.get(ChronoField.MONTH_OF_YEAR)
-    val day = date.get(ChronoField.DAY_OF_MONTH)
-    val gregorianDate = LocalDate.from(date)
+private fun formatEthiopicDate(epochDay: Long, monthNames: Array<String>): String {
+    val date = EthiopicDays.fromEpochDay(epochDay)
+    val month = EthiopicDays.month(date)
 
     val monthName = if (month in 1..13) monthNames[month - 1] else "Unknown"
 
-    return "$monthName $day, $year (${gregorianDate.month.name} ${gregorianDate.dayOfMonth}, ${gregorianDate.year})"
-}
\ No newline at end of file
+    return "$monthName ${EthiopicDays.day(date)}, ${EthiopicDays.year(date)}"
+}
+
+/**
+ * Format an epoch day with full details for accessibility
+ */
+private fun formatEthiopicDateFull(epochDay: Long, monthNames: Array<String>): String {
+    val gregorianDate = LocalDate.ofEpochDay(epochDay)
+
+    return "${formatEthiopicDate(epochDay, monthNames)} (${gregorianDate.month.name} ${gregorianDate.dayOfMonth}, ${gregorianDate.year})"
+}
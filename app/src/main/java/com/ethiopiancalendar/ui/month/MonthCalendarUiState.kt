@@ -1,22 +1,28 @@
 package com.ethiopiancalendar.ui.month
 
-import com.ethiopiancalendar.data.local.entity.EventInstance
+import androidx.compose.runtime.Immutable
 import com.ethiopiancalendar.data.preferences.CalendarType
-import com.ethiopiancalendar.domain.model.HolidayOccurrence
-import org.threeten.extra.chrono.EthiopicDate
+import com.ethiopiancalendar.ui.model.HolidayUiModel
+import kotlinx.collections.immutable.ImmutableList
 
 /**
- * UI state for month calendar screen
+ * UI state for month calendar screen.
+ *
+ * Holds the stable month content only; the selected date is observed separately
+ * through [MonthCalendarViewModel.selectedDate]. [cells] holds the holidays and events
+ * bucketed per grid cell for rendering.
  */
 sealed class MonthCalendarUiState {
     object Loading : MonthCalendarUiState()
 
+    @Immutable
     data class Success(
-        val currentMonth: EthiopicDate,
-        val dateList: List<EthiopicDate>,
-        val holidays: List<HolidayOccurrence>,
-        val events: List<EventInstance>,
-        val selectedDate: EthiopicDate?,
+        val ethiopianYear: Int,
+        val ethiopianMonth: Int,
+        val grid: MonthGrid,
+        val cells: MonthCells,
+        // Holidays in the page's month, for the holiday list
+        val holidays: ImmutableList<HolidayUiModel>,
         val primaryCalendar: CalendarType,
         val displayDualCalendar: Boolean,
         val secondaryCalendar: CalendarType,
@@ -25,4 +31,4 @@ sealed class MonthCalendarUiState {
     ) : MonthCalendarUiState()
 
     data class Error(val message: String) : MonthCalendarUiState()
-}
\ No newline at end of file
+}
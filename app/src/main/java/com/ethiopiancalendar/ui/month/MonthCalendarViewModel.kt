@@ -6,15 +6,25 @@ import com.ethiopiancalendar.data.preferences.CalendarType
 import com.ethiopiancalendar.data.preferences.SettingsPreferences
 import com.ethiopiancalendar.data.repository.EventRepository
 import com.ethiopiancalendar.data.repository.HolidayRepository
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
+import com.ethiopiancalendar.ui.model.toUiModel
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.collections.immutable.toImmutableList
 import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
 import org.threeten.extra.chrono.EthiopicDate
 import timber.log.Timber
+import java.time.Duration
 import java.time.LocalDate
+import java.time.ZonedDateTime
 import java.time.temporal.ChronoField
-import java.time.temporal.ChronoUnit
 import javax.inject.Inject
 
 @HiltViewModel
@@ -29,8 +39,29 @@ class MonthCalendarViewModel @Inject constructor(
         const val MONTHS_BEFORE = 60
         const val MONTHS_AFTER = 60
         const val TOTAL_PAGES = MONTHS_BEFORE + 1 + MONTHS_AFTER // 121 pages
+
+        // Pages kept warm on each side of the current page
+        const val PAGE_WINDOW = 2
+
+        // Longest wait between checks of the date; delays do not run while the device
+        // sleeps and the zone can change, so midnight is not waited for in one go
+        private const val MAX_TODAY_CHECK_MILLIS = 60_000L
+    }
+
+    /**
+     * Shared state of one pager page. Each page gets its own child scope so it can be
+     * dropped when it leaves the window around the current page.
+     */
+    private class PageEntry(
+        val scope: CoroutineScope,
+        val state: StateFlow<MonthCalendarUiState>
+    ) {
+        var prefetchJob: Job? = null
     }
 
+    // Accessed from the main thread only (composition and pager callbacks)
+    private val pageEntries = HashMap<Int, PageEntry>()
+
     // Reference date: current Ethiopian date
     private val referenceDate = EthiopicDate.now() as EthiopicDate
     private val referenceYear = referenceDate.get(ChronoField.YEAR_OF_ERA)
@@ -61,6 +92,27 @@ class MonthCalendarViewModel @Inject constructor(
             initialValue = CalendarType.GREGOREAN
         )
 
+    /**
+     * Today's epoch day in the device zone, updated at midnight so the today highlight of
+     * the visible pages follows the date.
+     */
+    private val todayEpochDay: StateFlow<Long> = flow {
+        while (true) {
+            val now = ZonedDateTime.now()
+            emit(now.toLocalDate().toEpochDay())
+            val nextMidnight = now.toLocalDate().plusDays(1).atStartOfDay(now.zone)
+            delay(minOf(Duration.between(now, nextMidnight).toMillis(), MAX_TODAY_CHECK_MILLIS))
+        }
+    }.stateIn(
+        scope = viewModelScope,
+        started = SharingStarted.WhileSubscribed(5000),
+        initialValue = LocalDate.now().toEpochDay()
+    )
+
+    // Month grids only depend on (year, month, primary calendar), so they are built once
+    private val gridCache = MonthGridCache()
+
+    // Selection overlay, kept out of the per-page month state
     private val _selectedDate = MutableStateFlow<EthiopicDate?>(null)
     val selectedDate: StateFlow<EthiopicDate?> = _selectedDate.asStateFlow()
 
@@ -69,20 +121,8 @@ class MonthCalendarViewModel @Inject constructor(
      */
     fun getEthiopicDateForPage(page: Int): EthiopicDate {
         val monthOffset = page - MONTHS_BEFORE
-        var targetYear = referenceYear
-        var targetMonth = referenceMonth + monthOffset
-
-        // Handle year wrapping
-        while (targetMonth > 13) {
-            targetMonth -= 13
-            targetYear++
-        }
-        while (targetMonth < 1) {
-            targetMonth += 13
-            targetYear--
-        }
-
-        return EthiopicDate.of(targetYear, targetMonth, 1)
+        val firstOfMonth = EthiopicDays.firstOfMonthPlus(referenceYear, referenceMonth, monthOffset)
+        return EthiopicDays.toEthiopicDateFromEpochDay(firstOfMonth)
     }
 
     /**
@@ -100,59 +140,123 @@ class MonthCalendarViewModel @Inject constructor(
     }
 
     /**
-     * Load month data for a specific page
+     * Shared month state for a pager page.
+     *
+     * The same StateFlow is returned every time the page is composed, so swiping back to
+     * a page inside the window renders its last state immediately instead of reloading.
      */
-    fun loadMonthDataForPage(page: Int): Flow<MonthCalendarUiState> {
-        return flow {
-            emit(MonthCalendarUiState.Loading)
+    fun monthStateForPage(page: Int): StateFlow<MonthCalendarUiState> {
+        return pageEntry(page).state
+    }
+
+    /**
+     * Called when the pager settles on a page: drops pages outside the ±[PAGE_WINDOW]
+     * window and prefetches the neighbouring months so swipes render from warm state.
+     */
+    fun onCurrentPageChanged(page: Int) {
+        val window = (page - PAGE_WINDOW)..(page + PAGE_WINDOW)
+
+        val iterator = pageEntries.entries.iterator()
+        while (iterator.hasNext()) {
+            val (cachedPage, entry) = iterator.next()
+            if (cachedPage !in window) {
+                entry.scope.cancel()
+                iterator.remove()
+            }
+        }
+
+        for (neighbour in window) {
+            if (neighbour !in 0 until TOTAL_PAGES) continue
+            val entry = pageEntry(neighbour)
+            if (entry.prefetchJob == null) {
+                // Holding a subscription keeps the WhileSubscribed upstream running
+                entry.prefetchJob = entry.scope.launch { entry.state.collect() }
+            }
+        }
+    }
+
+    private fun pageEntry(page: Int): PageEntry {
+        return pageEntries.getOrPut(page) {
+            val scope = CoroutineScope(
+                viewModelScope.coroutineContext + SupervisorJob(viewModelScope.coroutineContext[Job])
+            )
+            PageEntry(
+                scope = scope,
+                state = loadMonthDataForPage(page).stateIn(
+                    scope = scope,
+                    started = SharingStarted.WhileSubscribed(5000),
+                    initialValue = MonthCalendarUiState.Loading
+                )
+            )
+        }
+    }
 
+    /**
+     * Load month data for a specific page.
+     *
+     * Only month content (grid, holidays, events, display preferences) is combined here.
+     * The selected date is a separate overlay ([selectedDate]) so tapping a cell does not
+     * rebuild the state of every visible page.
+     *
+     * Holidays and events are loaded for the whole visible grid (first to last epoch day),
+     * so leading and trailing days of adjacent months and Gregorian-primary grids spanning
+     * two Ethiopian months show their markers too. The grid depends on the primary calendar,
+     * so a change of primary calendar switches to the new grid's range. Today's cell is
+     * resolved from [todayEpochDay], so it moves to the next cell at midnight.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private fun loadMonthDataForPage(page: Int): Flow<MonthCalendarUiState> {
+        return flow {
             try {
                 val currentMonth = getEthiopicDateForPage(page)
                 val year = currentMonth.get(ChronoField.YEAR_OF_ERA)
                 val month = currentMonth.get(ChronoField.MONTH_OF_YEAR)
 
                 // Combine preferences with holiday and event data
-                // This will automatically react to preference changes and date selection
+                // This will automatically react to preference and data changes
                 emitAll(
-                    combine(
-                        holidayRepository.getHolidaysForMonth(year, month),
-                        eventRepository.getEventsForMonth(year, month),
-                        primaryCalendar,
-                        displayDualCalendar,
-                        secondaryCalendar,
-                        _selectedDate
-                    ) { values: Array<*> ->
-                        val holidays = values[0] as List<*>
-                        val events = values[1] as List<*>
-                        val primary = values[2] as CalendarType
-                        val displayDual = values[3] as Boolean
-                        val secondary = values[4] as CalendarType
-                        val selected = values[5] as EthiopicDate?
-
-                        val dateList = generateDateListForMonth(currentMonth, primary)
-
-                        // Calculate Gregorian month/year when Gregorian is primary
-                        val (gregorianYear, gregorianMonth) = if (primary == CalendarType.GREGOREAN) {
-                            calculateGregorianMonthForDisplay(currentMonth)
-                        } else {
-                            Pair(null, null)
+                    primaryCalendar.flatMapLatest { primary ->
+                        val grid = gridCache.get(year, month, primary)
+                        val endEpochDay = grid.lastEpochDay + 1
+
+                        combine(
+                            holidayRepository.getHolidaysForDays(grid.firstEpochDay, endEpochDay),
+                            eventRepository.getMonthCellRows(grid.firstEpochDay, endEpochDay),
+                            displayDualCalendar,
+                            secondaryCalendar,
+                            todayEpochDay
+                        ) { holidays, events, displayDual, secondary, today ->
+                            // Calculate Gregorian month/year when Gregorian is primary
+                            val (gregorianYear, gregorianMonth) = if (primary == CalendarType.GREGOREAN) {
+                                calculateGregorianMonthForDisplay(currentMonth)
+                            } else {
+                                Pair(null, null)
+                            }
+
+                            val cells = MonthCells.build(grid, holidays, events, today)
+
+                            MonthCalendarUiState.Success(
+                                ethiopianYear = year,
+                                ethiopianMonth = month,
+                                grid = grid,
+                                cells = cells,
+                                // The holiday list shows the page's month, not the spill-over days
+                                holidays = holidays
+                                    .filter { cells.isInMonthAt(grid.indexOf(it.actualEpochDay)) }
+                                    .map { it.toUiModel() }
+                                    .toImmutableList(),
+                                primaryCalendar = primary,
+                                displayDualCalendar = displayDual,
+                                secondaryCalendar = secondary,
+                                currentGregorianYear = gregorianYear,
+                                currentGregorianMonth = gregorianMonth
+                            )
                         }
-
-                        MonthCalendarUiState.Success(
-                            currentMonth = currentMonth,
-                            dateList = dateList,
-                            holidays = holidays,
-                            events = events,
-                            selectedDate = selected,
-                            primaryCalendar = primary,
-                            displayDualCalendar = displayDual,
-                            secondaryCalendar = secondary,
-                            currentGregorianYear = gregorianYear,
-                            currentGregorianMonth = gregorianMonth
-                        )
-                    }.onEach { state ->
-                        Timber.d("Loaded page $page: ${state.holidays.size} holidays, ${state.events.size} events for $currentMonth")
                     }
+                        .distinctUntilChanged()
+                        .onEach { state ->
+                            Timber.d("Loaded page $page: ${state.holidays.size} holidays for $currentMonth")
+                        }
                 )
             } catch (e: CancellationException) {
                 // Don't log cancellation exceptions - they're expected when composition is left
@@ -165,169 +269,24 @@ class MonthCalendarViewModel @Inject constructor(
         }
     }
 
-    /**
-     * Generate 42 date cells for calendar grid (6 weeks × 7 days)
-     * Based on the primary calendar type (Ethiopian or Gregorian)
-     */
-    private fun generateDateListForMonth(month: EthiopicDate, primaryCalendar: CalendarType): List<EthiopicDate> {
-        return when (primaryCalendar) {
-            CalendarType.ETHIOPIAN -> generateEthiopianMonthGrid(month)
-            CalendarType.GREGOREAN -> generateGregorianMonthGrid(month)
-            CalendarType.HIRJI -> generateEthiopianMonthGrid(month) // Fallback to Ethiopian for now
-        }
-    }
-
-    /**
-     * Generate calendar grid based on Ethiopian month
-     */
-    private fun generateEthiopianMonthGrid(month: EthiopicDate): List<EthiopicDate> {
-        val year = month.get(ChronoField.YEAR_OF_ERA)
-        val monthValue = month.get(ChronoField.MONTH_OF_YEAR)
-
-        val firstDayOfMonth = EthiopicDate.of(year, monthValue, 1)
-        val daysInMonth = getDaysInMonth(year, monthValue)
-
-        val dateList = mutableListOf<EthiopicDate>()
-
-        // Add days from previous month to fill first week
-        val gregorianFirstDay = LocalDate.from(firstDayOfMonth)
-        val firstDayWeekday = gregorianFirstDay.dayOfWeek.value
-        val dayOffset = (firstDayWeekday - 1) % 7
-
-        if (dayOffset > 0) {
-            // Use plus with negative value to go backwards
-            var prevDate = firstDayOfMonth.plus(-1, ChronoUnit.DAYS) as EthiopicDate
-            val prevDatesToAdd = mutableListOf<EthiopicDate>()
-
-            // Collect previous dates in reverse
-            for (i in 0 until dayOffset) {
-                prevDatesToAdd.add(prevDate)
-                if (i < dayOffset - 1) {
-                    prevDate = prevDate.plus(-1, ChronoUnit.DAYS) as EthiopicDate
-                }
-            }
-
-            // Add them in correct order (oldest to newest)
-            dateList.addAll(prevDatesToAdd.reversed())
-        }
-
-        // Add days of current month
-        for (day in 1..daysInMonth) {
-            dateList.add(EthiopicDate.of(year, monthValue, day))
-        }
-
-        // Add days from next month to complete the grid
-        val remainingCells = 42 - dateList.size
-        if (remainingCells > 0) {
-            // Use plus with positive value to go forwards
-            var nextDate = EthiopicDate.of(year, monthValue, daysInMonth).plus(1, ChronoUnit.DAYS) as EthiopicDate
-
-            for (i in 0 until remainingCells) {
-                dateList.add(nextDate)
-                if (i < remainingCells - 1) {
-                    nextDate = nextDate.plus(1, ChronoUnit.DAYS) as EthiopicDate
-                }
-            }
-        }
-
-        return dateList
-    }
-
-    /**
-     * Generate calendar grid based on Gregorian month
-     * The input month is Ethiopian, but we'll find the corresponding Gregorian month
-     */
-    private fun generateGregorianMonthGrid(ethiopianMonth: EthiopicDate): List<EthiopicDate> {
-        // Use the last day of the Ethiopian month as reference to find the Gregorian month.
-        // This ensures when an Ethiopian month spans two Gregorian months,
-        // we show the Gregorian month that contains the end of the Ethiopian month,
-        // which is more intuitive when the primary calendar is Gregorian.
-        val ethiopianYear = ethiopianMonth.get(ChronoField.YEAR_OF_ERA)
-        val ethiopianMonthValue = ethiopianMonth.get(ChronoField.MONTH_OF_YEAR)
-        val daysInEthiopianMonth = getDaysInMonth(ethiopianYear, ethiopianMonthValue)
-
-        // Use the last day of the Ethiopian month
-        val referenceDay = daysInEthiopianMonth
-        val referenceEthiopianDate = EthiopicDate.of(ethiopianYear, ethiopianMonthValue, referenceDay)
-
-        // Convert to Gregorian to find the Gregorian month to display
-        val gregorianDate = LocalDate.from(referenceEthiopianDate)
-        val year = gregorianDate.year
-        val month = gregorianDate.monthValue
-
-        // Get first day of the Gregorian month
-        val firstDayOfMonth = LocalDate.of(year, month, 1)
-        val daysInMonth = firstDayOfMonth.lengthOfMonth()
-
-        val dateList = mutableListOf<EthiopicDate>()
-
-        // Add days from previous month to fill first week
-        val firstDayWeekday = firstDayOfMonth.dayOfWeek.value
-        val dayOffset = (firstDayWeekday - 1) % 7
-
-        if (dayOffset > 0) {
-            var prevDate = firstDayOfMonth.minusDays(1)
-            val prevDatesToAdd = mutableListOf<LocalDate>()
-
-            for (i in 0 until dayOffset) {
-                prevDatesToAdd.add(prevDate)
-                if (i < dayOffset - 1) {
-                    prevDate = prevDate.minusDays(1)
-                }
-            }
-
-            // Convert to EthiopicDate and add in correct order
-            dateList.addAll(prevDatesToAdd.reversed().map { EthiopicDate.from(it) })
-        }
-
-        // Add days of current Gregorian month
-        for (day in 1..daysInMonth) {
-            val gregorianDay = LocalDate.of(year, month, day)
-            dateList.add(EthiopicDate.from(gregorianDay))
-        }
-
-        // Add days from next month to complete the grid
-        val remainingCells = 42 - dateList.size
-        if (remainingCells > 0) {
-            var nextDate = LocalDate.of(year, month, daysInMonth).plusDays(1)
-
-            for (i in 0 until remainingCells) {
-                dateList.add(EthiopicDate.from(nextDate))
-                if (i < remainingCells - 1) {
-                    nextDate = nextDate.plusDays(1)
-                }
-            }
-        }
-
-        return dateList
-    }
-
     private fun getDaysInMonth(year: Int, month: Int): Int {
-        return when (month) {
-            13 -> if (year % 4 == 3) 6 else 5  // Pagume
-            else -> 30
-        }
+        return EthiopicDays.lengthOfMonth(year, month)
     }
 
     /**
      * Calculate which Gregorian month to display for a given Ethiopian month
-     * Uses the same logic as generateGregorianMonthGrid
+     * Uses the same logic as MonthGrid.build
      */
     private fun calculateGregorianMonthForDisplay(ethiopianMonth: EthiopicDate): Pair<Int, Int> {
         val ethiopianYear = ethiopianMonth.get(ChronoField.YEAR_OF_ERA)
         val ethiopianMonthValue = ethiopianMonth.get(ChronoField.MONTH_OF_YEAR)
         val daysInEthiopianMonth = getDaysInMonth(ethiopianYear, ethiopianMonthValue)
 
-        // Use the last day of the Ethiopian month
-        val referenceDay = daysInEthiopianMonth
-        val referenceEthiopianDate = EthiopicDate.of(ethiopianYear, ethiopianMonthValue, referenceDay)
-
-        // Convert to Gregorian to find the Gregorian month to display
-        val gregorianDate = LocalDate.from(referenceEthiopianDate)
-        val year = gregorianDate.year
-        val month = gregorianDate.monthValue
+        // Use the last day of the Ethiopian month and convert it to Gregorian
+        val referenceEpochDay = EthiopicDays.toEpochDay(ethiopianYear, ethiopianMonthValue, daysInEthiopianMonth)
+        val gregorianDate = EthiopicDays.epochDayToGregorian(referenceEpochDay)
 
-        return Pair(year, month)
+        return Pair(EthiopicDays.year(gregorianDate), EthiopicDays.month(gregorianDate))
     }
 
     // User actions
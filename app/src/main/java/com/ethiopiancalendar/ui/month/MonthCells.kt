@@ -0,0 +1,118 @@
+package com.ethiopiancalendar.ui.month
+
+import androidx.compose.runtime.Immutable
+import com.ethiopiancalendar.data.local.entity.MonthCellRow
+import com.ethiopiancalendar.data.preferences.CalendarType
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
+import com.ethiopiancalendar.domain.model.HolidayOccurrence
+import com.ethiopiancalendar.ui.model.HolidayUiModel
+import com.ethiopiancalendar.ui.model.toUiModel
+import kotlinx.collections.immutable.ImmutableList
+import kotlinx.collections.immutable.persistentListOf
+import kotlinx.collections.immutable.toImmutableList
+
+/**
+ * Per-cell content of one month page: the holidays and events falling on each of the
+ * [MonthGrid] cells, the day numbers to display and whether the cell is in the shown month.
+ *
+ * Built once per state emission in the view model, so composing a cell is a handful of
+ * index lookups instead of filtering the month's holidays and events and converting dates.
+ */
+@Immutable
+class MonthCells private constructor(
+    private val holidayBuckets: Array<ImmutableList<HolidayUiModel>>,
+    private val eventBuckets: Array<ImmutableList<MonthCellRow>>,
+    // Ethiopian day in bits 0-4, Gregorian day in bits 5-9, IN_MONTH flag above
+    private val days: IntArray,
+    /**
+     * Index of today's cell, or -1 if today is not on this page
+     */
+    val todayIndex: Int
+) {
+
+    fun holidaysAt(index: Int): ImmutableList<HolidayUiModel> = holidayBuckets[index]
+
+    fun eventsAt(index: Int): ImmutableList<MonthCellRow> = eventBuckets[index]
+
+    fun ethiopianDayAt(index: Int): Int = days[index] and DAY_MASK
+
+    fun gregorianDayAt(index: Int): Int = (days[index] shr GREGORIAN_DAY_SHIFT) and DAY_MASK
+
+    fun isInMonthAt(index: Int): Boolean = days[index] and IN_MONTH != 0
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is MonthCells) return false
+        return todayIndex == other.todayIndex &&
+                days.contentEquals(other.days) &&
+                holidayBuckets.contentEquals(other.holidayBuckets) &&
+                eventBuckets.contentEquals(other.eventBuckets)
+    }
+
+    override fun hashCode(): Int {
+        var result = todayIndex
+        result = 31 * result + days.contentHashCode()
+        result = 31 * result + holidayBuckets.contentHashCode()
+        result = 31 * result + eventBuckets.contentHashCode()
+        return result
+    }
+
+    companion object {
+        private const val DAY_MASK = 0x1F
+        private const val GREGORIAN_DAY_SHIFT = 5
+        private const val IN_MONTH = 1 shl 10
+
+        /**
+         * Bucket [holidays] and [events] into the cells of [grid].
+         * Items outside the grid are ignored; bucket order follows the input order.
+         */
+        fun build(
+            grid: MonthGrid,
+            holidays: List<HolidayOccurrence>,
+            events: List<MonthCellRow>,
+            todayEpochDay: Long
+        ): MonthCells {
+            val holidaysByCell = arrayOfNulls<MutableList<HolidayUiModel>>(grid.size)
+            for (holiday in holidays) {
+                val index = grid.indexOf(holiday.actualEpochDay)
+                if (index >= 0) holidaysByCell.bucket(index).add(holiday.toUiModel())
+            }
+
+            val eventsByCell = arrayOfNulls<MutableList<MonthCellRow>>(grid.size)
+            for (event in events) {
+                val index = grid.indexOf(event.epochDay)
+                if (index >= 0) eventsByCell.bucket(index).add(event)
+            }
+
+            // Gregorian-primary pages show the Gregorian month of the grid's middle cells
+            val shownGregorianMonth = EthiopicDays.month(
+                EthiopicDays.epochDayToGregorian(grid.epochDayAt(grid.size / 2))
+            )
+
+            val days = IntArray(grid.size) { index ->
+                val epochDay = grid.epochDayAt(index)
+                val ethiopian = EthiopicDays.fromEpochDay(epochDay)
+                val gregorian = EthiopicDays.epochDayToGregorian(epochDay)
+                val inMonth = when (grid.calendarType) {
+                    CalendarType.GREGOREAN -> EthiopicDays.month(gregorian) == shownGregorianMonth
+                    CalendarType.ETHIOPIAN, CalendarType.HIRJI ->
+                        EthiopicDays.year(ethiopian) == grid.ethiopianYear &&
+                                EthiopicDays.month(ethiopian) == grid.ethiopianMonth
+                }
+                EthiopicDays.day(ethiopian) or
+                        (EthiopicDays.day(gregorian) shl GREGORIAN_DAY_SHIFT) or
+                        (if (inMonth) IN_MONTH else 0)
+            }
+
+            return MonthCells(
+                holidayBuckets = Array(grid.size) { holidaysByCell[it]?.toImmutableList() ?: persistentListOf() },
+                eventBuckets = Array(grid.size) { eventsByCell[it]?.toImmutableList() ?: persistentListOf() },
+                days = days,
+                todayIndex = grid.indexOf(todayEpochDay)
+            )
+        }
+
+        private fun <T> Array<MutableList<T>?>.bucket(index: Int): MutableList<T> =
+            this[index] ?: ArrayList<T>(2).also { this[index] = it }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ethiopiancalendar.ui.month
+
+import androidx.compose.runtime.Immutable
+import com.ethiopiancalendar.data.preferences.CalendarType
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
+import org.threeten.extra.chrono.EthiopicDate
+
+/**
+ * The 42 cells (6 weeks × 7 days) of one month page, stored as consecutive epoch days.
+ *
+ * A grid depends only on the Ethiopian month and the primary calendar type, so it is
+ * built once and cached (see [MonthGridCache]); date selection and preference changes
+ * reuse the same instance.
+ */
+@Immutable
+class MonthGrid private constructor(
+    val ethiopianYear: Int,
+    val ethiopianMonth: Int,
+    val calendarType: CalendarType,
+    private val epochDays: LongArray
+) {
+
+    val size: Int get() = epochDays.size
+
+    val firstEpochDay: Long get() = epochDays[0]
+
+    val lastEpochDay: Long get() = epochDays[epochDays.size - 1]
+
+    fun epochDayAt(index: Int): Long = epochDays[index]
+
+    fun indexOf(epochDay: Long): Int {
+        val index = epochDay - firstEpochDay
+        return if (index in 0 until size) index.toInt() else -1
+    }
+
+    /**
+     * Cells as EthiopicDate, created once per grid for composables that still take EthiopicDate
+     */
+    val dates: List<EthiopicDate> by lazy {
+        List(size) { EthiopicDays.toEthiopicDateFromEpochDay(epochDays[it]) }
+    }
+
+    companion object {
+        const val CELL_COUNT = 42
+
+        /**
+         * Build the grid for an Ethiopian month.
+         *
+         * For [CalendarType.GREGOREAN] the grid shows the Gregorian month containing the last
+         * day of the Ethiopian month, which is more intuitive when Gregorian is primary.
+         */
+        fun build(ethiopianYear: Int, ethiopianMonth: Int, calendarType: CalendarType): MonthGrid {
+            val firstOfMonth = when (calendarType) {
+                CalendarType.GREGOREAN -> {
+                    val lastDay = EthiopicDays.lengthOfMonth(ethiopianYear, ethiopianMonth)
+                    val reference = EthiopicDays.epochDayToGregorian(
+                        EthiopicDays.toEpochDay(ethiopianYear, ethiopianMonth, lastDay)
+                    )
+                    EthiopicDays.gregorianToEpochDay(EthiopicDays.year(reference), EthiopicDays.month(reference), 1)
+                }
+                // Hijri falls back to the Ethiopian grid for now
+                CalendarType.ETHIOPIAN, CalendarType.HIRJI -> EthiopicDays.toEpochDay(ethiopianYear, ethiopianMonth, 1)
+            }
+
+            // Weeks start on Monday; lead with days from the previous month
+            val start = firstOfMonth - (EthiopicDays.dayOfWeek(firstOfMonth) - 1)
+            val epochDays = LongArray(CELL_COUNT) { start + it }
+            return MonthGrid(ethiopianYear, ethiopianMonth, calendarType, epochDays)
+        }
+    }
+}
+
+/**
+ * Small LRU cache of month grids keyed by (year, month, calendar type)
+ */
+class MonthGridCache(private val maxSize: Int = 24) {
+
+    private val grids = object : LinkedHashMap<Long, MonthGrid>(maxSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Long, MonthGrid>?): Boolean {
+            return size > maxSize
+        }
+    }
+
+    fun get(ethiopianYear: Int, ethiopianMonth: Int, calendarType: CalendarType): MonthGrid {
+        val key = (EthiopicDays.pack(ethiopianYear, ethiopianMonth, 1).toLong() shl 8) or calendarType.ordinal.toLong()
+        synchronized(grids) {
+            return grids.getOrPut(key) { MonthGrid.build(ethiopianYear, ethiopianMonth, calendarType) }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import androidx.lifecycle.viewModelScope
 import com.ethiopiancalendar.data.preferences.CalendarType
 import com.ethiopiancalendar.data.preferences.Language
 import com.ethiopiancalendar.data.preferences.SettingsPreferences
+import com.ethiopiancalendar.widget.CalendarWidgetUpdater
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
@@ -14,7 +15,8 @@ import javax.inject.Inject
 
 @HiltViewModel
 class SettingsViewModel @Inject constructor(
-    private val settingsPreferences: SettingsPreferences
+    private val settingsPreferences: SettingsPreferences,
+    private val calendarWidgetUpdater: CalendarWidgetUpdater
 ) : ViewModel() {
 
     // Calendar Display Settings
@@ -169,6 +171,7 @@ class SettingsViewModel @Inject constructor(
     fun setUse24HourFormat(value: Boolean) {
         viewModelScope.launch {
             settingsPreferences.setUse24HourFormat(value)
+            calendarWidgetUpdater.requestRefresh()
         }
     }
 
@@ -176,24 +179,28 @@ class SettingsViewModel @Inject constructor(
     fun setDisplayTwoClocks(value: Boolean) {
         viewModelScope.launch {
             settingsPreferences.setDisplayTwoClocks(value)
+            calendarWidgetUpdater.requestRefresh()
         }
     }
 
     fun setPrimaryWidgetTimezone(value: String) {
         viewModelScope.launch {
             settingsPreferences.setPrimaryWidgetTimezone(value)
+            calendarWidgetUpdater.requestRefresh()
         }
     }
 
     fun setSecondaryWidgetTimezone(value: String) {
         viewModelScope.launch {
             settingsPreferences.setSecondaryWidgetTimezone(value)
+            calendarWidgetUpdater.requestRefresh()
         }
     }
 
     fun setUseTransparentBackground(value: Boolean) {
         viewModelScope.launch {
             settingsPreferences.setUseTransparentBackground(value)
+            calendarWidgetUpdater.requestRefresh()
         }
     }
 
@@ -3,18 +3,20 @@ package com.ethiopiancalendar.widget
 import android.content.Context
 import android.widget.RemoteViews
 import androidx.compose.runtime.Composable
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.unit.DpSize
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
-import androidx.datastore.preferences.core.booleanPreferencesKey
-import androidx.datastore.preferences.preferencesDataStore
 import androidx.glance.GlanceId
 import androidx.glance.GlanceModifier
 import androidx.glance.GlanceTheme
 import androidx.glance.LocalContext
+import androidx.glance.LocalSize
 import androidx.glance.action.actionStartActivity
 import androidx.glance.action.clickable
 import androidx.glance.appwidget.AndroidRemoteViews
 import androidx.glance.appwidget.GlanceAppWidget
+import androidx.glance.appwidget.SizeMode
 import androidx.glance.appwidget.provideContent
 import androidx.glance.background
 import androidx.glance.currentState
@@ -24,6 +26,7 @@ import androidx.glance.layout.Column
 import androidx.glance.layout.Row
 import androidx.glance.layout.Spacer
 import androidx.glance.layout.fillMaxSize
+import androidx.glance.layout.defaultWeight
 import androidx.glance.layout.fillMaxWidth
 import androidx.glance.layout.height
 import androidx.glance.layout.padding
@@ -31,6 +34,7 @@ import androidx.glance.layout.width
 import androidx.glance.state.GlanceStateDefinition
 import androidx.glance.text.FontWeight
 import androidx.glance.text.Text
+import androidx.glance.text.TextAlign
 import androidx.glance.text.TextStyle
 import com.ethiopiancalendar.MainActivity
 import java.time.Instant
@@ -38,22 +42,31 @@ import java.time.ZoneId
 import java.time.ZonedDateTime
 import java.time.format.DateTimeFormatter
 import  com.ethiopiancalendar.R;
-import kotlinx.coroutines.flow.first
-import kotlinx.coroutines.runBlocking
 
-private val Context.settingsDataStore by preferencesDataStore(name = "settings_preferences")
 /**
  * CalendarGlanceWidget - Home screen widget for Ethiopian Calendar
  *
  * Displays:
  * - Current date (large numeric and formatted)
- * - Dual time zones (Nairobi & Local)
+ * - Dual time zones (Nairobi & Local by default, configurable in settings)
  * - Upcoming reminders/events list
+ * - Month grid with Ethiopian and Gregorian dates and holiday markers (large sizes)
+ *
+ * Rendering only reads CalendarWidgetState: preferences are resolved by CalendarWidgetWorker,
+ * so composing the widget never blocks on DataStore.
  */
 class CalendarGlanceWidget : GlanceAppWidget() {
 
+    companion object {
+        private val COMPACT_SIZE = DpSize(250.dp, 250.dp)
+        internal val MONTH_GRID_SIZE = DpSize(250.dp, 480.dp)
+    }
+
     override val stateDefinition: GlanceStateDefinition<CalendarWidgetState> = CalendarWidgetStateDefinition
 
+    // Lay out once per supported size; the month grid is shown from MONTH_GRID_SIZE up
+    override val sizeMode: SizeMode = SizeMode.Responsive(setOf(COMPACT_SIZE, MONTH_GRID_SIZE))
+
     override suspend fun provideGlance(context: Context, id: GlanceId) {
         provideContent {
             GlanceTheme {
@@ -69,42 +82,57 @@ class CalendarGlanceWidget : GlanceAppWidget() {
 
 @Composable
 fun CalendarWidgetContent() {
-    val context = LocalContext.current
     val widgetState = currentState<CalendarWidgetState>()
 
     // Get current widget data
-    val widgetData = getWidgetData(context, widgetState)
+    val widgetData = getWidgetData(widgetState)
+    val background = if (widgetState.transparentBackground) {
+        GlanceModifier.background(Color.Transparent)
+    } else {
+        GlanceModifier.background(GlanceTheme.colors.background)
+    }
 
-    Box(modifier = GlanceModifier.fillMaxSize().background(GlanceTheme.colors.background).padding(16.dp).clickable(actionStartActivity<MainActivity>()), contentAlignment = Alignment.TopCenter) {
+    Box(modifier = GlanceModifier.fillMaxSize().then(background).padding(16.dp).clickable(actionStartActivity<MainActivity>()), contentAlignment = Alignment.TopCenter) {
         Column(modifier = GlanceModifier.fillMaxSize(), horizontalAlignment = Alignment.CenterHorizontally) { // Top Section: Date Display
             val packageName = LocalContext.current.packageName
 
             AndroidRemoteViews(RemoteViews(packageName, R.layout.clock_text_layout))
 
             Spacer(modifier = GlanceModifier.height(16.dp))
-            TimeZonesSection(nairobiTime = widgetData.nairobiTime, nairobiDate = widgetData.nairobiTime, localTime = widgetData.localTime)
+            TimeZonesSection(widgetData = widgetData)
 
             Spacer(modifier = GlanceModifier.height(16.dp))
 
+            // Middle Section: Month grid on large widgets
+            val month = widgetState.month
+            if (month != null && widgetState.sizeClass == WidgetSizeClass.LARGE &&
+                LocalSize.current.height >= CalendarGlanceWidget.MONTH_GRID_SIZE.height
+            ) {
+                MonthGridSection(month = month)
+                Spacer(modifier = GlanceModifier.height(16.dp))
+            }
+
             // Bottom Section: Upcoming Events/Reminders
-            RemindersSection(events = widgetData.upcomingEvents)
+            RemindersSection(events = widgetData.upcomingEvents, use24HourFormat = widgetData.use24HourFormat)
         }
     }
 }
 
 @Composable
-fun TimeZonesSection(nairobiTime: String, nairobiDate: String, localTime: String) {
-    Column(modifier = GlanceModifier.fillMaxWidth(), horizontalAlignment = Alignment.CenterHorizontally, verticalAlignment = Alignment.CenterVertically) { // Nairobi Time
+fun TimeZonesSection(widgetData: WidgetData) {
+    Column(modifier = GlanceModifier.fillMaxWidth(), horizontalAlignment = Alignment.CenterHorizontally, verticalAlignment = Alignment.CenterVertically) { // Primary zone (Nairobi by default)
         //TextClock(pattern = "HH:mm:ss", timeZoneId = "Africa/Nairobi")
 
-        TimeZoneItem(label = "Nairobi", date = nairobiDate, time = nairobiTime)
+        TimeZoneItem(label = widgetData.primaryLabel, date = widgetData.primaryDate, zoneId = widgetData.primaryZoneId, timePattern = widgetData.timePattern)
         Spacer(modifier = GlanceModifier.width(4.dp))
-        TimeZoneItem(label = "Local", date = nairobiDate, time = localTime)
+        TimeZoneItem(label = widgetData.secondaryLabel, date = widgetData.secondaryDate, zoneId = widgetData.secondaryZoneId, timePattern = widgetData.timePattern)
     }
 }
 
+// Times are rendered by a TextClock so they stay current between widget updates
 @Composable
-fun TimeZoneItem(label: String, date: String, time: String) {
+fun TimeZoneItem(label: String, date: String, zoneId: String, timePattern: String) {
+    val packageName = LocalContext.current.packageName
     Row(verticalAlignment = Alignment.CenterVertically, horizontalAlignment = Alignment.CenterHorizontally) {
         Column(horizontalAlignment = Alignment.Start) {
             Text(text = label, style = TextStyle(fontSize = 16.sp, color = GlanceTheme.colors.onSurfaceVariant))
@@ -112,12 +140,73 @@ fun TimeZoneItem(label: String, date: String, time: String) {
             Text(text = date, style = TextStyle(fontSize = 16.sp, color = GlanceTheme.colors.onSurfaceVariant))
         }
         Spacer(modifier = GlanceModifier.width(12.dp))
-        Text(text = time, style = TextStyle(fontSize = 40.sp, fontWeight = FontWeight.Medium, color = GlanceTheme.colors.onBackground))
+        val clock = RemoteViews(packageName, R.layout.widget_zone_clock).apply {
+            setString(R.id.txtc_zone_clock, "setTimeZone", zoneId)
+            setCharSequence(R.id.txtc_zone_clock, "setFormat12Hour", timePattern)
+            setCharSequence(R.id.txtc_zone_clock, "setFormat24Hour", timePattern)
+        }
+        AndroidRemoteViews(clock)
+    }
+}
+
+@Composable
+fun MonthGridSection(month: WidgetMonth) {
+    val weekdays = LocalContext.current.resources.getStringArray(R.array.weekday_names_short)
+    Column(modifier = GlanceModifier.fillMaxWidth()) {
+        Row(modifier = GlanceModifier.fillMaxWidth(), verticalAlignment = Alignment.CenterVertically) {
+            Text(text = month.title, style = TextStyle(fontSize = 14.sp, fontWeight = FontWeight.Bold, color = GlanceTheme.colors.onBackground), modifier = GlanceModifier.defaultWeight())
+            Text(text = month.gregorianTitle, style = TextStyle(fontSize = 12.sp, color = GlanceTheme.colors.onSurfaceVariant))
+        }
+
+        Spacer(modifier = GlanceModifier.height(4.dp))
+
+        Row(modifier = GlanceModifier.fillMaxWidth()) {
+            weekdays.forEach { weekday ->
+                Text(text = weekday, style = TextStyle(fontSize = 10.sp, textAlign = TextAlign.Center, color = GlanceTheme.colors.onSurfaceVariant), modifier = GlanceModifier.defaultWeight())
+            }
+        }
+
+        month.cells.chunked(7).forEach { week ->
+            Row(modifier = GlanceModifier.fillMaxWidth()) {
+                week.forEach { cell ->
+                    MonthGridCell(cell = cell, modifier = GlanceModifier.defaultWeight())
+                }
+            }
+        }
+    }
+}
+
+@Composable
+fun MonthGridCell(cell: Int, modifier: GlanceModifier) {
+    val inMonth = WidgetMonthCell.hasFlag(cell, WidgetMonthCell.FLAG_IN_MONTH)
+    val isToday = WidgetMonthCell.hasFlag(cell, WidgetMonthCell.FLAG_TODAY)
+    val dayColor = when {
+        WidgetMonthCell.hasFlag(cell, WidgetMonthCell.FLAG_HOLIDAY) -> GlanceTheme.colors.error
+        isToday -> GlanceTheme.colors.onPrimary
+        inMonth -> GlanceTheme.colors.onBackground
+        else -> GlanceTheme.colors.outline
+    }
+    val cellModifier = if (isToday) modifier.background(GlanceTheme.colors.primary) else modifier
+
+    Column(modifier = cellModifier.padding(vertical = 2.dp), horizontalAlignment = Alignment.CenterHorizontally) {
+        Text(
+            text = WidgetMonthCell.ethiopianDay(cell).toString(),
+            style = TextStyle(
+                fontSize = 13.sp,
+                fontWeight = if (WidgetMonthCell.hasFlag(cell, WidgetMonthCell.FLAG_EVENT)) FontWeight.Bold else FontWeight.Normal,
+                textAlign = TextAlign.Center,
+                color = dayColor
+            )
+        )
+        Text(
+            text = WidgetMonthCell.gregorianDay(cell).toString(),
+            style = TextStyle(fontSize = 9.sp, textAlign = TextAlign.Center, color = if (isToday) GlanceTheme.colors.onPrimary else GlanceTheme.colors.onSurfaceVariant)
+        )
     }
 }
 
 @Composable
-fun RemindersSection(events: List<WidgetEvent>) {
+fun RemindersSection(events: List<WidgetEvent>, use24HourFormat: Boolean) {
     Column(modifier = GlanceModifier.fillMaxWidth()) { // Section header
         Text(text = "Reminders", style = TextStyle(fontSize = 14.sp, fontWeight = FontWeight.Bold, color = GlanceTheme.colors.onBackground))
 
@@ -128,7 +217,7 @@ fun RemindersSection(events: List<WidgetEvent>) {
             Text(text = "No reminders yet", style = TextStyle(fontSize = 14.sp, color = GlanceTheme.colors.onSurfaceVariant), modifier = GlanceModifier.padding(start = 8.dp))
         } else { // Show up to 4 upcoming events
             events.take(4).forEach { event ->
-                EventItem(event = event)
+                EventItem(event = event, use24HourFormat = use24HourFormat)
                 Spacer(modifier = GlanceModifier.height(8.dp))
             }
         }
@@ -136,8 +225,7 @@ fun RemindersSection(events: List<WidgetEvent>) {
 }
 
 @Composable
-fun EventItem(event: WidgetEvent) {
-    val context = LocalContext.current
+fun EventItem(event: WidgetEvent, use24HourFormat: Boolean) {
     Row(modifier = GlanceModifier.fillMaxWidth().padding(start = 8.dp), verticalAlignment = Alignment.CenterVertically) { // Color indicator dot
         //        Box(
         //            modifier = GlanceModifier
@@ -153,7 +241,7 @@ fun EventItem(event: WidgetEvent) {
             Spacer(modifier = GlanceModifier.height(2.dp))
 
             // Event time
-            Text(text = formatEventTime(event, context), style = TextStyle(fontSize = 12.sp, color = GlanceTheme.colors.onSurfaceVariant))
+            Text(text = formatEventTime(event, use24HourFormat), style = TextStyle(fontSize = 12.sp, color = GlanceTheme.colors.onSurfaceVariant))
         }
     }
 }
@@ -165,56 +253,66 @@ fun EventItem(event: WidgetEvent) {
 //    return androidx.glance.unit.ColorProvider(color)
 //}
 
+// Formatters are immutable and thread-safe; create them once instead of per render and per row
+private val DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, MMM d, yyyy")
+private val ZONE_DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, MMM d")
+private val EVENT_DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM d")
+private val TIME_FORMATTER_24H = DateTimeFormatter.ofPattern("HH:mm")
+private val TIME_FORMATTER_12H = DateTimeFormatter.ofPattern("h:mm a")
+
 // Data class to hold widget display data
 data class WidgetData(
-    val currentDate: ZonedDateTime, val formattedDate: String, val nairobiTime: String, val localTime: String, val upcomingEvents: List<WidgetEvent>
+    val currentDate: ZonedDateTime,
+    val formattedDate: String,
+    val primaryLabel: String,
+    val primaryZoneId: String,
+    val primaryDate: String,
+    val secondaryLabel: String,
+    val secondaryZoneId: String,
+    val secondaryDate: String,
+    val use24HourFormat: Boolean,
+    val timePattern: String,
+    val upcomingEvents: List<WidgetEvent>
 )
 
-// Get widget data from context and state
-fun getWidgetData(context: Context, state: CalendarWidgetState): WidgetData {
+// Get widget data from state; pure, no I/O
+fun getWidgetData(state: CalendarWidgetState): WidgetData {
     val now = ZonedDateTime.now()
 
     // Format date: "Thu, Oct 30, 2025"
-    val dateFormatter = DateTimeFormatter.ofPattern("EEE, MMM d, yyyy")
-    val formattedDate = now.format(dateFormatter)
-
-    // Read 24-hour format preference
-    val use24HourFormat = runBlocking {
-        val preferences = context.settingsDataStore.data.first()
-        preferences[booleanPreferencesKey("use_24_hour_format_in_widgets")] ?: false
-    }
+    val formattedDate = now.format(DATE_FORMATTER)
 
     // Format time based on preference (include AM/PM for 12-hour format)
-    val timePattern = if (use24HourFormat) "HH:mm" else "h:mm a"
-    val timeFormatter = DateTimeFormatter.ofPattern(timePattern)
-
-    // Get Nairobi time
-    val nairobiZone = ZoneId.of("Africa/Nairobi")
-    val nairobiTime = now.withZoneSameInstant(nairobiZone).format(timeFormatter)
-
-    // Get local time
-    val localTime = now.format(timeFormatter)
-
-    return WidgetData(currentDate = now, formattedDate = formattedDate, nairobiTime = nairobiTime, localTime = localTime, upcomingEvents = state.events)
+    val timePattern = if (state.use24HourFormat) "HH:mm" else "h:mm a"
+
+    // Dates next to the clocks; they change at midnight, when the worker refreshes the widget
+    val primaryZone = ZoneId.of(state.primaryTimeZoneId)
+    val secondaryZone = if (state.secondaryTimeZoneId.isEmpty()) now.zone else ZoneId.of(state.secondaryTimeZoneId)
+
+    return WidgetData(
+        currentDate = now,
+        formattedDate = formattedDate,
+        primaryLabel = state.primaryTimeZoneLabel,
+        primaryZoneId = primaryZone.id,
+        primaryDate = now.withZoneSameInstant(primaryZone).format(ZONE_DATE_FORMATTER),
+        secondaryLabel = state.secondaryTimeZoneLabel,
+        secondaryZoneId = secondaryZone.id,
+        secondaryDate = now.withZoneSameInstant(secondaryZone).format(ZONE_DATE_FORMATTER),
+        use24HourFormat = state.use24HourFormat,
+        timePattern = timePattern,
+        upcomingEvents = state.events
+    )
 }
 
 // Format event time for display
-fun formatEventTime(event: WidgetEvent, context: Context): String {
-    // Read 24-hour format preference
-    val use24HourFormat = runBlocking {
-        val preferences = context.settingsDataStore.data.first()
-        preferences[booleanPreferencesKey("use_24_hour_format_in_widgets")] ?: false
-    }
-
-    val timePattern = if (use24HourFormat) "HH:mm" else "h:mm a"
-    val timeFormatter = DateTimeFormatter.ofPattern(timePattern)
-    val dateFormatter = DateTimeFormatter.ofPattern("MMM d")
+fun formatEventTime(event: WidgetEvent, use24HourFormat: Boolean): String {
+    val timeFormatter = if (use24HourFormat) TIME_FORMATTER_24H else TIME_FORMATTER_12H
 
     val startTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(event.startTime), ZoneId.systemDefault())
 
     return if (event.isAllDay) {
-        startTime.format(dateFormatter)
+        startTime.format(EVENT_DATE_FORMATTER)
     } else {
-        "${startTime.format(timeFormatter)} – ${startTime.format(dateFormatter)}"
+        "${startTime.format(timeFormatter)} – ${startTime.format(EVENT_DATE_FORMATTER)}"
     }
 }
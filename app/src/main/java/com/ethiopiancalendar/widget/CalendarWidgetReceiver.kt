@@ -1,5 +1,9 @@
 package com.ethiopiancalendar.widget
 
+import android.appwidget.AppWidgetManager
+import android.content.Context
+import android.content.Intent
+import android.os.Bundle
 import androidx.glance.appwidget.GlanceAppWidget
 import androidx.glance.appwidget.GlanceAppWidgetReceiver
 
@@ -11,8 +15,43 @@ import androidx.glance.appwidget.GlanceAppWidgetReceiver
  * - Widget updated
  * - Widget removed from home screen
  * - Widget configuration changed
+ *
+ * It also receives the time boundary alarm armed by CalendarWidgetWorker
+ * (ACTION_REFRESH_WIDGET) and turns it into a widget refresh.
  */
 class CalendarWidgetReceiver : GlanceAppWidgetReceiver() {
 
+    companion object {
+        /**
+         * Action of the time boundary alarm (next midnight).
+         */
+        const val ACTION_REFRESH_WIDGET = "com.ethiopiancalendar.ACTION_REFRESH_WIDGET"
+    }
+
     override val glanceAppWidget: GlanceAppWidget = CalendarGlanceWidget()
+
+    override fun onReceive(context: Context, intent: Intent) {
+        if (intent.action == ACTION_REFRESH_WIDGET) {
+            CalendarWidgetWorker.enqueueRefresh(context)
+            return
+        }
+        super.onReceive(context, intent)
+    }
+
+    override fun onUpdate(context: Context, appWidgetManager: AppWidgetManager, appWidgetIds: IntArray) {
+        super.onUpdate(context, appWidgetManager, appWidgetIds)
+        // New widgets start from whatever state is stored; make sure it is current
+        CalendarWidgetWorker.enqueueRefresh(context)
+    }
+
+    override fun onAppWidgetOptionsChanged(
+        context: Context,
+        appWidgetManager: AppWidgetManager,
+        appWidgetId: Int,
+        newOptions: Bundle
+    ) {
+        super.onAppWidgetOptionsChanged(context, appWidgetManager, appWidgetId, newOptions)
+        // A resize can change the instance's size class and with it the payload it needs
+        CalendarWidgetWorker.enqueueRefresh(context)
+    }
 }
@@ -4,62 +4,116 @@ import android.content.Context
 import androidx.datastore.core.CorruptionException
 import androidx.datastore.core.DataStore
 import androidx.datastore.core.Serializer
-import androidx.datastore.dataStore
+import androidx.datastore.core.DataStoreFactory
+import androidx.datastore.core.handlers.ReplaceFileCorruptionHandler
 import androidx.datastore.dataStoreFile
 import androidx.glance.state.GlanceStateDefinition
+import com.ethiopiancalendar.ui.month.MonthGrid
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
+import timber.log.Timber
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
 import java.io.File
+import java.io.IOException
 import java.io.InputStream
 import java.io.OutputStream
-import kotlinx.serialization.Serializable
-import kotlinx.serialization.json.Json
-import kotlinx.serialization.encodeToString
-import kotlinx.serialization.decodeFromString
 
 /**
  * CalendarWidgetStateDefinition - Defines how widget state is stored and retrieved
  *
+ * Each widget instance has its own state file, keyed by the fileKey Glance derives from
+ * the instance's GlanceId, so instances can carry different sizes and payloads.
+ *
  * Stores:
  * - List of upcoming events for display in widget
+ * - Resolved widget preferences (time format, clock zones, background)
+ * - Size class of the instance and the month grid if it is large enough to show one
+ * - Hash of the rendered payload, so unchanged refreshes can be skipped
  */
 object CalendarWidgetStateDefinition : GlanceStateDefinition<CalendarWidgetState> {
 
-    private const val DATA_STORE_FILENAME = "calendar_widget_state"
-    private val json = Json {
-        ignoreUnknownKeys = true
-        coerceInputValues = true
-    }
+    // Single file shared by all instances in older versions
+    private const val LEGACY_DATA_STORE_FILENAME = "calendar_widget_state"
+    private const val DATA_STORE_FILENAME_PREFIX = "calendar_widget_state_"
+
+    // DataStore allows one instance per file, so instances are created once per fileKey
+    private val dataStores = HashMap<String, DataStore<CalendarWidgetState>>()
 
     override suspend fun getDataStore(
         context: Context,
         fileKey: String
     ): DataStore<CalendarWidgetState> {
-        return context.calendarWidgetStateDataStore
+        val appContext = context.applicationContext
+        synchronized(dataStores) {
+            return dataStores.getOrPut(fileKey) {
+                DataStoreFactory.create(
+                    serializer = CalendarWidgetStateSerializer,
+                    // Unreadable state is only a cache of the database; start empty and let the worker rewrite it
+                    corruptionHandler = ReplaceFileCorruptionHandler { CalendarWidgetState() },
+                    produceFile = { getLocation(appContext, fileKey) }
+                )
+            }
+        }
     }
 
     override fun getLocation(context: Context, fileKey: String): File {
-        return context.dataStoreFile(DATA_STORE_FILENAME)
+        return context.dataStoreFile(DATA_STORE_FILENAME_PREFIX + fileKey)
     }
 
-    private val Context.calendarWidgetStateDataStore by dataStore(
-        fileName = DATA_STORE_FILENAME,
-        serializer = CalendarWidgetStateSerializer
-    )
+    /**
+     * Delete the shared JSON state file of older versions. It is not migrated: it only held
+     * upcoming events, which the worker reloads from the database into each instance's file.
+     */
+    fun deleteLegacyState(context: Context) {
+        val legacyFile = context.dataStoreFile(LEGACY_DATA_STORE_FILENAME)
+        if (legacyFile.exists()) {
+            legacyFile.delete()
+        }
+    }
+}
+
+/**
+ * Layout size class of a widget instance
+ */
+enum class WidgetSizeClass {
+    COMPACT,    // Clocks and reminders
+    LARGE       // Also shows the month grid
 }
 
 /**
  * CalendarWidgetState - State data for the widget
+ *
+ * Everything the widget renders is resolved by CalendarWidgetWorker, including the widget
+ * preferences, so composing the widget reads no preferences and does no disk I/O.
+ *
+ * - primaryTimeZoneId / secondaryTimeZoneId: Zones of the two clocks; empty = device zone
+ * - sizeClass: Size class of this instance
+ * - month: Current month grid, only computed for LARGE instances
+ * - contentHash: Hash of the payload computed by CalendarWidgetWorker (0 = never written)
  */
-@Serializable
 data class CalendarWidgetState(
-    val events: List<WidgetEvent> = emptyList()
-)
+    val events: List<WidgetEvent> = emptyList(),
+    val use24HourFormat: Boolean = false,
+    val primaryTimeZoneId: String = DEFAULT_PRIMARY_TIME_ZONE_ID,
+    val primaryTimeZoneLabel: String = "Nairobi",
+    val secondaryTimeZoneId: String = "",
+    val secondaryTimeZoneLabel: String = "Local",
+    val transparentBackground: Boolean = false,
+    val sizeClass: WidgetSizeClass = WidgetSizeClass.COMPACT,
+    val month: WidgetMonth? = null,
+    val contentHash: Int = 0
+) {
+    companion object {
+        const val DEFAULT_PRIMARY_TIME_ZONE_ID = "Africa/Nairobi"
+    }
+}
 
 /**
  * WidgetEvent - Simplified event model for widget display
  */
-@Serializable
 data class WidgetEvent(
     val id: String,
     val title: String,
@@ -71,14 +125,58 @@ data class WidgetEvent(
 )
 
 /**
- * Serializer for CalendarWidgetState using JSON
+ * WidgetMonth - Precomputed month grid for the large widget layout
+ *
+ * The worker builds it from MonthGrid, HolidayRepository and EventRepository, so the
+ * widget only lays out ready cells. Each of the [MonthGrid.CELL_COUNT] cells is one Int,
+ * see [WidgetMonthCell].
+ */
+data class WidgetMonth(
+    val title: String,           // e.g. "Meskerem 2018"
+    val gregorianTitle: String,  // e.g. "Sep – Oct 2025"
+    val cells: List<Int> = emptyList()
+)
+
+/**
+ * Packing of a WidgetMonth cell: Ethiopian day (bits 0-4), Gregorian day (bits 5-9), flags (bits 10+)
+ */
+object WidgetMonthCell {
+    const val FLAG_IN_MONTH = 1
+    const val FLAG_TODAY = 2
+    const val FLAG_HOLIDAY = 4
+    const val FLAG_EVENT = 8
+
+    fun pack(ethiopianDay: Int, gregorianDay: Int, flags: Int): Int =
+        ethiopianDay or (gregorianDay shl 5) or (flags shl 10)
+
+    fun ethiopianDay(cell: Int): Int = cell and 0x1F
+
+    fun gregorianDay(cell: Int): Int = (cell shr 5) and 0x1F
+
+    fun hasFlag(cell: Int, flag: Int): Boolean = (cell shr 10) and flag != 0
+}
+
+/**
+ * Serializer for CalendarWidgetState using a compact versioned binary layout
+ *
+ * Layout (integers are LEB128 varints, signed ones zigzag encoded; strings are a varint
+ * byte length followed by UTF-8):
+ * - magic byte [MAGIC], format version
+ * - use24HourFormat, primary zone id and label, secondary zone id and label,
+ *   transparentBackground, contentHash
+ * - event count, then per event: id, title, startTime, endTime (0 = none, else value + 1
+ *   zigzag encoded), isAllDay, color, category
+ * - month present flag, then title, gregorianTitle, cell count and cells
+ * - size class ordinal
+ *
+ * State is streamed straight from and to the DataStore file without building a String.
+ * Any other magic or version is reported as corruption; the state is only a cache of the
+ * database, so the worker simply rewrites it.
  */
 object CalendarWidgetStateSerializer : Serializer<CalendarWidgetState> {
 
-    private val json = Json {
-        ignoreUnknownKeys = true
-        coerceInputValues = true
-    }
+    private const val MAGIC = 0xCA
+    private const val FORMAT_VERSION = 1
 
     override val defaultValue: CalendarWidgetState
         get() = CalendarWidgetState()
@@ -86,24 +184,182 @@ object CalendarWidgetStateSerializer : Serializer<CalendarWidgetState> {
     override suspend fun readFrom(input: InputStream): CalendarWidgetState {
         return try {
             withContext(Dispatchers.IO) {
-                val text = input.readBytes().decodeToString()
-                if (text.isEmpty()) {
-                    defaultValue
-                } else {
-                    json.decodeFromString(text)
+                val stream = BufferedInputStream(input)
+                when (val first = stream.read()) {
+                    -1 -> defaultValue
+                    MAGIC -> readBinary(stream)
+                    else -> throw IOException("Unknown widget state format: $first")
                 }
             }
         } catch (e: Exception) {
-            e.printStackTrace()
+            Timber.e(e, "Cannot read widget state")
             throw CorruptionException("Cannot read widget state", e)
         }
     }
 
     override suspend fun writeTo(t: CalendarWidgetState, output: OutputStream) {
         withContext(Dispatchers.IO) {
-            output.write(
-                json.encodeToString(t).encodeToByteArray()
+            // Buffer the many small writes; flush without closing the DataStore stream
+            val stream = BufferedOutputStream(output)
+            write(t, stream)
+            stream.flush()
+        }
+    }
+
+    /**
+     * Hash of everything the widget renders from [state] on [epochDay], ignoring the stored
+     * contentHash. It is computed over the encoded bytes rather than with hashCode(), because
+     * enum hash codes differ between processes and the worker compares against a hash written
+     * by an earlier process.
+     */
+    fun contentHash(epochDay: Long, state: CalendarWidgetState): Int {
+        val output = ByteArrayOutputStream()
+        write(state.copy(contentHash = 0), output)
+        return 31 * epochDay.hashCode() + output.toByteArray().contentHashCode()
+    }
+
+    private fun write(t: CalendarWidgetState, stream: OutputStream) {
+        stream.write(MAGIC)
+        stream.writeVarInt(FORMAT_VERSION)
+        stream.writeBoolean(t.use24HourFormat)
+        stream.writeString(t.primaryTimeZoneId)
+        stream.writeString(t.primaryTimeZoneLabel)
+        stream.writeString(t.secondaryTimeZoneId)
+        stream.writeString(t.secondaryTimeZoneLabel)
+        stream.writeBoolean(t.transparentBackground)
+        stream.writeSignedVarLong(t.contentHash.toLong())
+        stream.writeVarInt(t.events.size)
+        for (event in t.events) {
+            stream.writeString(event.id)
+            stream.writeString(event.title)
+            stream.writeSignedVarLong(event.startTime)
+            stream.writeVarLong(event.endTime?.let { zigzag(it) + 1 } ?: 0L)
+            stream.writeBoolean(event.isAllDay)
+            stream.writeSignedVarLong(event.color.toLong())
+            stream.writeString(event.category)
+        }
+        val month = t.month
+        stream.writeBoolean(month != null)
+        if (month != null) {
+            stream.writeString(month.title)
+            stream.writeString(month.gregorianTitle)
+            stream.writeVarInt(month.cells.size)
+            month.cells.forEach { stream.writeVarInt(it) }
+        }
+        stream.writeVarInt(t.sizeClass.ordinal)
+    }
+
+    private fun readBinary(input: InputStream): CalendarWidgetState {
+        val version = input.readVarInt()
+        if (version != FORMAT_VERSION) throw IOException("Unsupported widget state version $version")
+
+        val use24HourFormat = input.readBoolean()
+        val primaryTimeZoneId = input.readString()
+        val primaryTimeZoneLabel = input.readString()
+        val secondaryTimeZoneId = input.readString()
+        val secondaryTimeZoneLabel = input.readString()
+        val transparentBackground = input.readBoolean()
+        val contentHash = input.readSignedVarLong().toInt()
+        val eventCount = input.readVarInt()
+        val events = ArrayList<WidgetEvent>(eventCount)
+        repeat(eventCount) {
+            events.add(
+                WidgetEvent(
+                    id = input.readString(),
+                    title = input.readString(),
+                    startTime = input.readSignedVarLong(),
+                    endTime = input.readVarLong().let { if (it == 0L) null else unzigzag(it - 1) },
+                    isAllDay = input.readBoolean(),
+                    color = input.readSignedVarLong().toInt(),
+                    category = input.readString()
+                )
             )
         }
+        val month = if (input.readBoolean()) {
+            WidgetMonth(
+                title = input.readString(),
+                gregorianTitle = input.readString(),
+                cells = List(input.readVarInt()) { input.readVarInt() }
+            )
+        } else {
+            null
+        }
+        val sizeClass = WidgetSizeClass.entries.getOrElse(input.readVarInt()) { WidgetSizeClass.COMPACT }
+        return CalendarWidgetState(
+            events = events,
+            use24HourFormat = use24HourFormat,
+            primaryTimeZoneId = primaryTimeZoneId,
+            primaryTimeZoneLabel = primaryTimeZoneLabel,
+            secondaryTimeZoneId = secondaryTimeZoneId,
+            secondaryTimeZoneLabel = secondaryTimeZoneLabel,
+            transparentBackground = transparentBackground,
+            sizeClass = sizeClass,
+            month = month,
+            contentHash = contentHash
+        )
+    }
+
+    // ========== Primitives ==========
+
+    private fun zigzag(value: Long): Long = (value shl 1) xor (value shr 63)
+
+    private fun unzigzag(value: Long): Long = (value ushr 1) xor -(value and 1)
+
+    private fun OutputStream.writeBoolean(value: Boolean) = write(if (value) 1 else 0)
+
+    private fun OutputStream.writeVarInt(value: Int) = writeVarLong(value.toLong() and 0xFFFFFFFFL)
+
+    private fun OutputStream.writeSignedVarLong(value: Long) = writeVarLong(zigzag(value))
+
+    private fun OutputStream.writeVarLong(value: Long) {
+        var remaining = value
+        while (remaining and 0x7FL.inv() != 0L) {
+            write(((remaining and 0x7F) or 0x80).toInt())
+            remaining = remaining ushr 7
+        }
+        write(remaining.toInt())
+    }
+
+    private fun OutputStream.writeString(value: String) {
+        val bytes = value.encodeToByteArray()
+        writeVarInt(bytes.size)
+        write(bytes)
+    }
+
+    private fun InputStream.readByteOrThrow(): Int {
+        val value = read()
+        if (value == -1) throw EOFException("Truncated widget state")
+        return value
+    }
+
+    private fun InputStream.readBoolean(): Boolean = readByteOrThrow() != 0
+
+    private fun InputStream.readVarInt(): Int = readVarLong().toInt()
+
+    private fun InputStream.readSignedVarLong(): Long = unzigzag(readVarLong())
+
+    private fun InputStream.readVarLong(): Long {
+        var result = 0L
+        var shift = 0
+        while (shift < 64) {
+            val byte = readByteOrThrow()
+            result = result or ((byte and 0x7F).toLong() shl shift)
+            if (byte and 0x80 == 0) return result
+            shift += 7
+        }
+        throw IOException("Malformed varint in widget state")
+    }
+
+    private fun InputStream.readString(): String {
+        val length = readVarInt()
+        if (length < 0) throw IOException("Malformed string length in widget state")
+        val bytes = ByteArray(length)
+        var offset = 0
+        while (offset < length) {
+            val count = read(bytes, offset, length - offset)
+            if (count == -1) throw EOFException("Truncated widget state")
+            offset += count
+        }
+        return bytes.decodeToString()
     }
 }
@@ -0,0 +1,59 @@
+package com.ethiopiancalendar.widget
+
+import android.content.Context
+import androidx.room.InvalidationTracker
+import com.ethiopiancalendar.data.local.CalendarDatabase
+import dagger.hilt.android.qualifiers.ApplicationContext
+import timber.log.Timber
+import java.util.concurrent.atomic.AtomicBoolean
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Drives widget refreshes from database changes instead of periodic polling.
+ *
+ * Observes Room invalidation of the events table; every change enqueues a debounced
+ * CalendarWidgetWorker run, so a burst of writes (an import, an edit that also refreshes
+ * instances) results in a single widget update. The date changing at midnight is covered
+ * by the worker's own time boundary alarm, and settings changes call [requestRefresh].
+ */
+@Singleton
+class CalendarWidgetUpdater @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val database: CalendarDatabase
+) {
+
+    companion object {
+        private const val EVENTS_TABLE = "events"
+    }
+
+    private val started = AtomicBoolean(false)
+
+    private val eventsObserver = object : InvalidationTracker.Observer(EVENTS_TABLE) {
+        override fun onInvalidated(tables: Set<String>) {
+            CalendarWidgetWorker.enqueueRefresh(context, CalendarWidgetWorker.DEBOUNCE_MILLIS)
+        }
+    }
+
+    /**
+     * Start observing the database and bring the widgets up to date.
+     * Called once from CalendarApplication.onCreate; later calls do nothing.
+     */
+    fun start() {
+        if (!started.compareAndSet(false, true)) return
+
+        // Replaced by this event-driven path
+        CalendarWidgetWorker.cancelPeriodicWork(context)
+
+        database.invalidationTracker.addObserver(eventsObserver)
+        CalendarWidgetWorker.enqueueRefresh(context)
+        Timber.d("Widget updates driven by database invalidation")
+    }
+
+    /**
+     * Refresh the widgets after something other than events changed (e.g. widget settings).
+     */
+    fun requestRefresh() {
+        CalendarWidgetWorker.enqueueRefresh(context)
+    }
+}
@@ -1,107 +1,319 @@
 package com.ethiopiancalendar.widget
 
+import android.app.AlarmManager
+import android.app.PendingIntent
 import android.content.Context
+import android.content.Intent
+import androidx.compose.ui.unit.DpSize
 import androidx.glance.appwidget.GlanceAppWidgetManager
+import androidx.glance.appwidget.state.getAppWidgetState
 import androidx.glance.appwidget.state.updateAppWidgetState
-import androidx.glance.appwidget.updateAll
 import androidx.hilt.work.HiltWorker
 import androidx.work.CoroutineWorker
-import androidx.work.ExistingPeriodicWorkPolicy
-import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequestBuilder
 import androidx.work.WorkManager
 import androidx.work.WorkerParameters
+import com.ethiopiancalendar.data.preferences.SettingsPreferences
+import com.ethiopiancalendar.data.preferences.WidgetPreferences
+import com.ethiopiancalendar.R
+import com.ethiopiancalendar.data.preferences.CalendarType
 import com.ethiopiancalendar.data.repository.EventRepository
+import com.ethiopiancalendar.data.repository.HolidayRepository
+import com.ethiopiancalendar.domain.calendar.EthiopicDays
+import com.ethiopiancalendar.ui.month.MonthGrid
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
 import kotlinx.coroutines.flow.first
+import timber.log.Timber
+import java.time.Instant
+import java.time.LocalDate
+import java.time.Month
+import java.time.ZoneId
 import java.time.ZonedDateTime
+import java.time.format.TextStyle
+import java.util.Locale
 import java.util.concurrent.TimeUnit
 
 /**
  * CalendarWidgetWorker - Background worker to update the Calendar Widget
  *
  * This worker:
- * - Runs periodically (every 15 minutes)
+ * - Runs on demand, as debounced unique one-time work (see [enqueueRefresh])
  * - Fetches upcoming events from EventRepository
- * - Updates all widget instances with fresh data
+ * - Resolves the widget preferences once, so rendering the widget reads nothing
+ * - Precomputes the current month grid with holiday and event markers, for large instances only
+ * - Updates only the widget instances whose payload actually changed
+ * - Arms an alarm for the next time boundary (midnight in the device zone or a clock zone)
+ *
+ * Refreshes are requested by CalendarWidgetUpdater when the events table is invalidated,
+ * by CalendarWidgetReceiver when a widget is added, and by the time boundary alarm.
  */
 @HiltWorker
 class CalendarWidgetWorker @AssistedInject constructor(
     @Assisted private val context: Context,
     @Assisted workerParams: WorkerParameters,
-    private val eventRepository: EventRepository
+    private val eventRepository: EventRepository,
+    private val holidayRepository: HolidayRepository,
+    private val settingsPreferences: SettingsPreferences
 ) : CoroutineWorker(context, workerParams) {
 
     override suspend fun doWork(): Result {
         return try {
-            // Fetch upcoming events from repository
-            val upcomingEvents = eventRepository.getUpcomingEvents(limit = 4).first()
+            // Get all widget instances; nothing to do without any
+            val glanceAppWidgetManager = GlanceAppWidgetManager(context)
+            val glanceIds = glanceAppWidgetManager.getGlanceIds(CalendarGlanceWidget::class.java)
+            if (glanceIds.isEmpty()) {
+                cancelTimeBoundary(context)
+                return Result.success()
+            }
 
-            // Convert to WidgetEvent
-            val widgetEvents = upcomingEvents.map { event ->
+            val now = ZonedDateTime.now()
+
+            // Fetch upcoming events from repository, widget columns only
+            val widgetEvents = eventRepository.getUpcomingWidgetRows(limit = 4).map { row ->
                 WidgetEvent(
-                    id = event.eventId,
-                    title = event.summary,
-                    startTime = event.instanceStart.toInstant().toEpochMilli(),
-                    endTime = event.instanceEnd?.toInstant()?.toEpochMilli(),
-                    isAllDay = event.isAllDay,
-                    color = event.color,
-                    category = event.category
+                    id = row.id,
+                    title = row.summary,
+                    startTime = row.startMillis,
+                    endTime = row.endMillis,
+                    isAllDay = row.isAllDay,
+                    color = row.color,
+                    category = row.category
                 )
             }
 
-            // Create new widget state
-            val widgetState = CalendarWidgetState(events = widgetEvents)
-
-            // Get all widget instances
-            val glanceAppWidgetManager = GlanceAppWidgetManager(context)
-            val glanceIds = glanceAppWidgetManager.getGlanceIds(CalendarGlanceWidget::class.java)
+            // Resolve what every instance shares once; the month grid only if a large instance needs it
+            val preferences = settingsPreferences.widgetPreferences.first()
+            val sharedState = resolveState(widgetEvents, preferences)
+            var month: WidgetMonth? = null
 
-            // Update each widget instance with new state
+            // Update only the instances whose payload changed
+            val widget = CalendarGlanceWidget()
+            var updatedCount = 0
             glanceIds.forEach { glanceId ->
-                updateAppWidgetState(
-                    context = context,
-                    definition = CalendarWidgetStateDefinition,
-                    glanceId = glanceId,
-                    updateState = { widgetState }
+                val sizeClass = sizeClassOf(glanceAppWidgetManager.getAppWidgetSizes(glanceId))
+                val instanceMonth = if (sizeClass == WidgetSizeClass.LARGE) {
+                    month ?: buildMonth(now.toLocalDate()).also { month = it }
+                } else {
+                    null
+                }
+                val payload = sharedState.copy(sizeClass = sizeClass, month = instanceMonth)
+                val widgetState = payload.copy(
+                    contentHash = CalendarWidgetStateSerializer.contentHash(now.toLocalDate().toEpochDay(), payload)
                 )
+
+                // Skip the state write and the Glance update when this instance already shows the payload
+                val currentState = getAppWidgetState(context, CalendarWidgetStateDefinition, glanceId)
+                if (currentState.contentHash != widgetState.contentHash) {
+                    updateAppWidgetState(
+                        context = context,
+                        definition = CalendarWidgetStateDefinition,
+                        glanceId = glanceId,
+                        updateState = { widgetState }
+                    )
+                    widget.update(context, glanceId)
+                    updatedCount++
+                }
             }
+            Timber.d("Widget refresh: updated $updatedCount of ${glanceIds.size} instances")
 
-            // Trigger widget update to refresh UI
-            CalendarGlanceWidget().updateAll(context)
+            CalendarWidgetStateDefinition.deleteLegacyState(context)
+            scheduleTimeBoundary(context, nextTimeBoundary(now, sharedState))
 
             Result.success()
         } catch (e: Exception) {
-            e.printStackTrace()
+            Timber.e(e, "Error updating calendar widget")
             Result.retry()
         }
     }
 
+    /**
+     * Widget state with the preferences resolved: clock zones fall back to Nairobi and the
+     * device zone, and invalid zone ids are treated as not set.
+     */
+    private fun resolveState(events: List<WidgetEvent>, preferences: WidgetPreferences): CalendarWidgetState {
+        val primaryZoneId = validZoneId(preferences.primaryTimezone)
+            ?: CalendarWidgetState.DEFAULT_PRIMARY_TIME_ZONE_ID
+        val secondaryZoneId = validZoneId(preferences.secondaryTimezone)
+        return CalendarWidgetState(
+            events = events,
+            use24HourFormat = preferences.use24HourFormat,
+            primaryTimeZoneId = primaryZoneId,
+            primaryTimeZoneLabel = zoneLabel(primaryZoneId),
+            secondaryTimeZoneId = secondaryZoneId ?: "",
+            secondaryTimeZoneLabel = secondaryZoneId?.let { zoneLabel(it) } ?: "Local",
+            transparentBackground = preferences.useTransparentBackground
+        )
+    }
+
+    /**
+     * LARGE if any of the sizes the launcher reports for the instance fits the month grid
+     */
+    private fun sizeClassOf(sizes: List<DpSize>): WidgetSizeClass {
+        val fitsMonthGrid = sizes.any { it.height >= CalendarGlanceWidget.MONTH_GRID_SIZE.height }
+        return if (fitsMonthGrid) WidgetSizeClass.LARGE else WidgetSizeClass.COMPACT
+    }
+
+    /**
+     * Month grid of the Ethiopian month containing [today], with Ethiopian and Gregorian day
+     * numbers and holiday/event markers resolved per cell.
+     */
+    private suspend fun buildMonth(today: LocalDate): WidgetMonth {
+        val todayEpochDay = today.toEpochDay()
+        val todayEthiopian = EthiopicDays.fromEpochDay(todayEpochDay)
+        val year = EthiopicDays.year(todayEthiopian)
+        val month = EthiopicDays.month(todayEthiopian)
+        val grid = MonthGrid.build(year, month, CalendarType.ETHIOPIAN)
+
+        val holidayDays = HashSet<Long>()
+        holidayRepository.getHolidaysForDays(grid.firstEpochDay, grid.lastEpochDay + 1).first().forEach { holiday ->
+            holidayDays.add(holiday.actualEpochDay)
+        }
+
+        val eventDays = HashSet<Long>()
+        eventRepository.getMonthCellRows(grid.firstEpochDay, grid.lastEpochDay + 1).first().forEach { row ->
+            eventDays.add(row.epochDay)
+        }
+
+        val cells = List(grid.size) { index ->
+            val epochDay = grid.epochDayAt(index)
+            val ethiopian = EthiopicDays.fromEpochDay(epochDay)
+            val gregorian = EthiopicDays.epochDayToGregorian(epochDay)
+            var flags = 0
+            if (EthiopicDays.month(ethiopian) == month) flags = flags or WidgetMonthCell.FLAG_IN_MONTH
+            if (epochDay == todayEpochDay) flags = flags or WidgetMonthCell.FLAG_TODAY
+            if (epochDay in holidayDays) flags = flags or WidgetMonthCell.FLAG_HOLIDAY
+            if (epochDay in eventDays) flags = flags or WidgetMonthCell.FLAG_EVENT
+            WidgetMonthCell.pack(EthiopicDays.day(ethiopian), EthiopicDays.day(gregorian), flags)
+        }
+
+        val monthNames = context.resources.getStringArray(R.array.ethiopian_months)
+        val firstGregorian = EthiopicDays.epochDayToGregorian(EthiopicDays.toEpochDay(year, month, 1))
+        val lastGregorian = EthiopicDays.epochDayToGregorian(
+            EthiopicDays.toEpochDay(year, month, EthiopicDays.lengthOfMonth(year, month))
+        )
+        return WidgetMonth(
+            title = "${monthNames[month - 1]} $year",
+            gregorianTitle = gregorianRangeTitle(firstGregorian, lastGregorian),
+            cells = cells
+        )
+    }
+
+    // "Sep – Oct 2025", or "Dec 2025 – Jan 2026" across a year change
+    private fun gregorianRangeTitle(first: Int, last: Int): String {
+        fun monthName(packed: Int) =
+            Month.of(EthiopicDays.month(packed)).getDisplayName(TextStyle.SHORT, Locale.getDefault())
+
+        val firstYear = EthiopicDays.year(first)
+        val lastYear = EthiopicDays.year(last)
+        return when {
+            EthiopicDays.month(first) == EthiopicDays.month(last) && firstYear == lastYear ->
+                "${monthName(last)} $lastYear"
+            firstYear == lastYear -> "${monthName(first)} – ${monthName(last)} $lastYear"
+            else -> "${monthName(first)} $firstYear – ${monthName(last)} $lastYear"
+        }
+    }
+
+    private fun validZoneId(zoneId: String): String? {
+        if (zoneId.isBlank()) return null
+        return try {
+            ZoneId.of(zoneId).id
+        } catch (e: Exception) {
+            null
+        }
+    }
+
+    // "America/Puerto_Rico" -> "Puerto Rico"
+    private fun zoneLabel(zoneId: String): String = zoneId.substringAfterLast('/').replace('_', ' ')
+
+    /**
+     * Next instant at which the widget content changes without any database write:
+     * the next midnight in the device zone or either clock zone, whichever comes first.
+     *
+     * Event starts are not boundaries: the event list runs from the start of today and the
+     * month grid marks whole days, so the payload only changes with the date.
+     */
+    private fun nextTimeBoundary(now: ZonedDateTime, state: CalendarWidgetState): Long {
+        val zones = listOf(state.primaryTimeZoneId, state.secondaryTimeZoneId)
+            .filter { it.isNotEmpty() }
+            .map { ZoneId.of(it) } + now.zone
+        return zones.minOf { zone ->
+            now.withZoneSameInstant(zone).toLocalDate().plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+        }
+    }
+
     companion object {
         private const val WORK_NAME = "CalendarWidgetUpdateWork"
+        private const val REFRESH_WORK_NAME = "CalendarWidgetRefreshWork"
+
+        // Request code of the time boundary alarm
+        private const val TIME_BOUNDARY_REQUEST_CODE = 0x57494447 // "WIDG"
 
         /**
-         * Schedule periodic widget updates
-         * Updates every 15 minutes to keep time and events fresh
+         * Delay that coalesces bursts of database writes into one refresh
          */
-        fun schedule(context: Context) {
-            val workRequest = PeriodicWorkRequestBuilder<CalendarWidgetWorker>(
-                repeatInterval = 15,
-                repeatIntervalTimeUnit = TimeUnit.MINUTES
-            ).build()
-
-            WorkManager.getInstance(context).enqueueUniquePeriodicWork(
-                WORK_NAME,
-                ExistingPeriodicWorkPolicy.KEEP,
+        const val DEBOUNCE_MILLIS = 2_000L
+
+        /**
+         * Request a widget refresh.
+         * Enqueued as unique work that replaces a pending request, so calls made within
+         * [delayMillis] of each other result in a single worker run.
+         */
+        fun enqueueRefresh(context: Context, delayMillis: Long = 0L) {
+            val workRequest = OneTimeWorkRequestBuilder<CalendarWidgetWorker>()
+                .setInitialDelay(delayMillis, TimeUnit.MILLISECONDS)
+                .build()
+
+            WorkManager.getInstance(context).enqueueUniqueWork(
+                REFRESH_WORK_NAME,
+                ExistingWorkPolicy.REPLACE,
                 workRequest
             )
         }
 
         /**
-         * Cancel scheduled widget updates
+         * Cancel scheduled widget updates, including the periodic work of older versions
          */
         fun cancel(context: Context) {
+            val workManager = WorkManager.getInstance(context)
+            workManager.cancelUniqueWork(WORK_NAME)
+            workManager.cancelUniqueWork(REFRESH_WORK_NAME)
+            cancelTimeBoundary(context)
+        }
+
+        /**
+         * Cancel the 15 minute periodic work scheduled by older versions
+         */
+        fun cancelPeriodicWork(context: Context) {
             WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME)
         }
+
+        /**
+         * Arm an inexact, non-waking alarm that requests a refresh at [triggerMillis].
+         * Re-arming replaces the previous time since the PendingIntent is always the same.
+         */
+        private fun scheduleTimeBoundary(context: Context, triggerMillis: Long) {
+            val alarmManager = context.getSystemService(Context.ALARM_SERVICE) as AlarmManager
+            alarmManager.set(AlarmManager.RTC, triggerMillis, createTimeBoundaryPendingIntent(context))
+            Timber.d("Next widget time boundary at ${Instant.ofEpochMilli(triggerMillis)}")
+        }
+
+        private fun cancelTimeBoundary(context: Context) {
+            val alarmManager = context.getSystemService(Context.ALARM_SERVICE) as AlarmManager
+            alarmManager.cancel(createTimeBoundaryPendingIntent(context))
+        }
+
+        private fun createTimeBoundaryPendingIntent(context: Context): PendingIntent {
+            val intent = Intent(context, CalendarWidgetReceiver::class.java).apply {
+                action = CalendarWidgetReceiver.ACTION_REFRESH_WIDGET
+            }
+            return PendingIntent.getBroadcast(
+                context,
+                TIME_BOUNDARY_REQUEST_CODE,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+            )
+        }
     }
 }
@@ -0,0 +1,136 @@
+package com.ethiopiancalendar.data.local.entity
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import java.time.DayOfWeek
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.ZoneOffset
+
+class RecurrenceRuleParsingTest {
+
+    private fun utcMillis(year: Int, month: Int, day: Int, hour: Int, minute: Int, second: Int): Long =
+        LocalDateTime.of(year, month, day, hour, minute, second).toInstant(ZoneOffset.UTC).toEpochMilli()
+
+    @Test
+    fun `text without the rrule prefix is not a rule`() {
+        assertThat(compileRRule("")).isNull()
+        assertThat(compileRRule("FREQ=DAILY")).isNull()
+        assertThat(compileRRule("EXDATE:20250101T000000Z")).isNull()
+    }
+
+    @Test
+    fun `weekly rule with days`() {
+        val rule = compileRRule("RRULE:FREQ=WEEKLY;BYDAY=TU,TH")!!
+
+        assertThat(rule.frequency).isEqualTo(RecurrenceFrequency.WEEKLY)
+        assertThat(rule.weekDays).containsExactly(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY)
+        assertThat(rule.weekDayValues.toList()).containsExactly(2, 4).inOrder()
+        assertThat(rule.endOption).isEqualTo(RecurrenceEndOption.NEVER)
+        assertThat(rule.interval).isEqualTo(1)
+        assertThat(rule.calendarScale).isEqualTo(RecurrenceCalendar.GREGORIAN)
+    }
+
+    @Test
+    fun `unknown frequency and day tokens are ignored`() {
+        val rule = compileRRule("RRULE:FREQ=HOURLY;BYDAY=XX,FR,1MO,")!!
+
+        assertThat(rule.frequency).isEqualTo(RecurrenceFrequency.NONE)
+        assertThat(rule.weekDays).containsExactly(DayOfWeek.FRIDAY)
+    }
+
+    @Test
+    fun `parts without a value are skipped`() {
+        val rule = compileRRule("RRULE:;FREQ=DAILY;=5;COUNT")!!
+
+        assertThat(rule.frequency).isEqualTo(RecurrenceFrequency.DAILY)
+        assertThat(rule.endOption).isEqualTo(RecurrenceEndOption.NEVER)
+    }
+
+    @Test
+    fun `until date-time is read as utc`() {
+        val rule = compileRRule("RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20251231T235959Z")!!
+
+        assertThat(rule.endOption).isEqualTo(RecurrenceEndOption.UNTIL)
+        assertThat(rule.endDate).isEqualTo(utcMillis(2025, 12, 31, 23, 59, 59))
+    }
+
+    @Test
+    fun `until date is the end of that day in utc`() {
+        val rule = compileRRule("RRULE:FREQ=DAILY;UNTIL=20251231")!!
+
+        assertThat(rule.endDate).isEqualTo(
+            LocalDate.of(2025, 12, 31).atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC).toEpochMilli()
+        )
+    }
+
+    @Test
+    fun `unparsable until keeps the end option without a date`() {
+        val rule = compileRRule("RRULE:FREQ=DAILY;UNTIL=tomorrow")!!
+
+        assertThat(rule.endOption).isEqualTo(RecurrenceEndOption.UNTIL)
+        assertThat(rule.endDate).isNull()
+    }
+
+    @Test
+    fun `count`() {
+        val rule = compileRRule("RRULE:FREQ=DAILY;COUNT=10")!!
+
+        assertThat(rule.endOption).isEqualTo(RecurrenceEndOption.COUNT)
+        assertThat(rule.count).isEqualTo(10)
+    }
+
+    @Test
+    fun `interval below one or unparsable falls back to one`() {
+        assertThat(compileRRule("RRULE:FREQ=WEEKLY;INTERVAL=2")!!.interval).isEqualTo(2)
+        assertThat(compileRRule("RRULE:FREQ=WEEKLY;INTERVAL=0")!!.interval).isEqualTo(1)
+        assertThat(compileRRule("RRULE:FREQ=WEEKLY;INTERVAL=-3")!!.interval).isEqualTo(1)
+        assertThat(compileRRule("RRULE:FREQ=WEEKLY;INTERVAL=two")!!.interval).isEqualTo(1)
+    }
+
+    @Test
+    fun `rscale is case insensitive and unknown calendars fall back to gregorian`() {
+        assertThat(compileRRule("RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY")!!.calendarScale)
+            .isEqualTo(RecurrenceCalendar.ETHIOPIC)
+        assertThat(compileRRule("RRULE:RSCALE=ethiopic;FREQ=YEARLY")!!.calendarScale)
+            .isEqualTo(RecurrenceCalendar.ETHIOPIC)
+        assertThat(compileRRule("RRULE:RSCALE=HEBREW;FREQ=YEARLY")!!.calendarScale)
+            .isEqualTo(RecurrenceCalendar.GREGORIAN)
+    }
+
+    @Test
+    fun `week days cannot be modified`() {
+        val rule = compileRRule("RRULE:FREQ=WEEKLY;BYDAY=MO")!!
+
+        @Suppress("UNCHECKED_CAST")
+        val days = rule.weekDays as MutableSet<DayOfWeek>
+        assertThrows(UnsupportedOperationException::class.java) { days.add(DayOfWeek.SUNDAY) }
+    }
+
+    @Test
+    fun `rules round-trip through rrule text`() {
+        val rules = listOf(
+            "RRULE:FREQ=DAILY",
+            "RRULE:FREQ=DAILY;COUNT=10",
+            "RRULE:FREQ=WEEKLY;BYDAY=TU,TH",
+            "RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,FR;UNTIL=20251231T235959Z",
+            "RRULE:FREQ=MONTHLY;INTERVAL=3",
+            "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY",
+            "RRULE:RSCALE=ETHIOPIC;FREQ=MONTHLY;COUNT=13"
+        )
+
+        for (rrule in rules) {
+            assertThat(compileRRule(rrule)!!.toRRuleString()).isEqualTo(rrule)
+        }
+    }
+
+    @Test
+    fun `rrule text is written in canonical order`() {
+        val rule = compileRRule("RRULE:BYDAY=TH,TU;COUNT=4;FREQ=WEEKLY;RSCALE=ETHIOPIC")!!
+
+        assertThat(rule.toRRuleString()).isEqualTo("RRULE:RSCALE=ETHIOPIC;FREQ=WEEKLY;BYDAY=TU,TH;COUNT=4")
+        assertThat(RecurrenceRule().toRRuleString()).isNull()
+    }
+}
@@ -0,0 +1,62 @@
+package com.ethiopiancalendar.data.repository
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class EventRepositoryFtsMatchTest {
+
+    private fun match(query: String) = EventRepository.toFtsMatch(query)
+
+    @Test
+    fun `blank and separator-only queries have no match expression`() {
+        assertThat(match("")).isNull()
+        assertThat(match("   ")).isNull()
+        assertThat(match("\"*-()")).isNull()
+        assertThat(match("፡ ። ፣")).isNull()
+    }
+
+    @Test
+    fun `latin terms become quoted prefix terms`() {
+        assertThat(match("meet")).isEqualTo("\"meet\"*")
+        assertThat(match("  team   meeting ")).isEqualTo("\"team\"* \"meeting\"*")
+        assertThat(match("2018")).isEqualTo("\"2018\"*")
+    }
+
+    @Test
+    fun `geez terms become quoted prefix terms`() {
+        assertThat(match("መስ")).isEqualTo("\"መስ\"*")
+        assertThat(match("የቤተሰብ ስብሰባ")).isEqualTo("\"የቤተሰብ\"* \"ስብሰባ\"*")
+    }
+
+    @Test
+    fun `ethiopic word space and punctuation separate terms`() {
+        assertThat(match("መስቀል፡በዓል")).isEqualTo("\"መስቀል\"* \"በዓል\"*")
+        assertThat(match("ገና። ጥምቀት፣ ፋሲካ")).isEqualTo("\"ገና\"* \"ጥምቀት\"* \"ፋሲካ\"*")
+    }
+
+    @Test
+    fun `combining marks stay inside a term`() {
+        val decomposed = "cafe\u0301"
+
+        assertThat(match(decomposed)).isEqualTo("\"$decomposed\"*")
+    }
+
+    @Test
+    fun `fts operators in user input are quoted as plain terms`() {
+        assertThat(match("a OR b")).isEqualTo("\"a\"* \"OR\"* \"b\"*")
+        assertThat(match("x AND NOT y")).isEqualTo("\"x\"* \"AND\"* \"NOT\"* \"y\"*")
+        assertThat(match("lunch NEAR/3 team")).isEqualTo("\"lunch\"* \"NEAR\"* \"3\"* \"team\"*")
+        assertThat(match("summary:lunch")).isEqualTo("\"summary\"* \"lunch\"*")
+        assertThat(match("-lunch +team")).isEqualTo("\"lunch\"* \"team\"*")
+        assertThat(match("lun*")).isEqualTo("\"lun\"*")
+        assertThat(match("(lunch)")).isEqualTo("\"lunch\"*")
+    }
+
+    @Test
+    fun `quotes in user input cannot unbalance the expression`() {
+        val expression = match("say \"hi\" it's \"")
+
+        assertThat(expression).isEqualTo("\"say\"* \"hi\"* \"it\"* \"s\"*")
+        assertThat(expression!!.count { it == '"' } % 2).isEqualTo(0)
+    }
+}
@@ -0,0 +1,197 @@
+package com.ethiopiancalendar.domain.calendar
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.threeten.extra.chrono.EthiopicChronology
+import org.threeten.extra.chrono.EthiopicDate
+import java.time.LocalDate
+import java.time.Year
+import java.time.YearMonth
+import java.time.chrono.HijrahDate
+import java.time.temporal.ChronoField
+import java.time.temporal.ChronoUnit
+
+class EthiopicDaysTest {
+
+    companion object {
+        // Every day from 1800-01-01 to 2200-12-31
+        private val DENSE_RANGE = LocalDate.of(1800, 1, 1).toEpochDay()..LocalDate.of(2200, 12, 31).toEpochDay()
+
+        // Every 97th day over roughly +-27 centuries, including Ethiopian years before year 1
+        private val SPARSE_RANGE = -1_000_000L..1_000_000L step 97
+
+        // Umm al-Qura range supported by java.time's HijrahChronology, with a margin
+        private val HIJRI_RANGE = LocalDate.of(1900, 1, 1).toEpochDay()..LocalDate.of(2075, 12, 31).toEpochDay()
+    }
+
+    private fun epochDays(): Sequence<Long> = DENSE_RANGE.asSequence() + SPARSE_RANGE.asSequence()
+
+    @Test
+    fun `fromEpochDay matches threeten-extra`() {
+        for (epochDay in epochDays()) {
+            val packed = EthiopicDays.fromEpochDay(epochDay)
+            val expected = EthiopicChronology.INSTANCE.dateEpochDay(epochDay)
+
+            assertThat(EthiopicDays.year(packed)).isEqualTo(expected.get(ChronoField.YEAR))
+            assertThat(EthiopicDays.month(packed)).isEqualTo(expected.get(ChronoField.MONTH_OF_YEAR))
+            assertThat(EthiopicDays.day(packed)).isEqualTo(expected.get(ChronoField.DAY_OF_MONTH))
+        }
+    }
+
+    @Test
+    fun `toEpochDay inverts fromEpochDay`() {
+        for (epochDay in epochDays()) {
+            val packed = EthiopicDays.fromEpochDay(epochDay)
+
+            assertThat(EthiopicDays.toEpochDay(packed)).isEqualTo(epochDay)
+            assertThat(EthiopicDays.toEpochDay(EthiopicDays.year(packed), EthiopicDays.month(packed), EthiopicDays.day(packed)))
+                .isEqualTo(epochDay)
+        }
+    }
+
+    @Test
+    fun `gregorian conversion matches java time`() {
+        for (epochDay in epochDays()) {
+            val packed = EthiopicDays.epochDayToGregorian(epochDay)
+            val expected = LocalDate.ofEpochDay(epochDay)
+
+            assertThat(EthiopicDays.year(packed)).isEqualTo(expected.year)
+            assertThat(EthiopicDays.month(packed)).isEqualTo(expected.monthValue)
+            assertThat(EthiopicDays.day(packed)).isEqualTo(expected.dayOfMonth)
+            assertThat(EthiopicDays.gregorianToEpochDay(expected.year, expected.monthValue, expected.dayOfMonth))
+                .isEqualTo(epochDay)
+        }
+    }
+
+    @Test
+    fun `day of week matches java time`() {
+        for (epochDay in epochDays()) {
+            assertThat(EthiopicDays.dayOfWeek(epochDay)).isEqualTo(LocalDate.ofEpochDay(epochDay).dayOfWeek.value)
+        }
+    }
+
+    @Test
+    fun `leap years and month lengths match threeten-extra`() {
+        for (year in -3000..3000) {
+            assertThat(EthiopicDays.isLeapYear(year)).isEqualTo(EthiopicChronology.INSTANCE.isLeapYear(year.toLong()))
+            assertThat(EthiopicDays.lengthOfYear(year)).isEqualTo(EthiopicDate.of(year, 1, 1).lengthOfYear())
+            for (month in 1..EthiopicDays.MONTHS_PER_YEAR) {
+                assertThat(EthiopicDays.lengthOfMonth(year, month))
+                    .isEqualTo(EthiopicDate.of(year, month, 1).lengthOfMonth())
+            }
+        }
+    }
+
+    @Test
+    fun `gregorian leap years and month lengths match java time`() {
+        for (year in -3000..3000) {
+            assertThat(EthiopicDays.isGregorianLeapYear(year)).isEqualTo(Year.isLeap(year.toLong()))
+            for (month in 1..12) {
+                assertThat(EthiopicDays.lengthOfGregorianMonth(year, month))
+                    .isEqualTo(YearMonth.of(year, month).lengthOfMonth())
+            }
+        }
+    }
+
+    @Test
+    fun `firstOfMonthPlus matches threeten-extra month arithmetic`() {
+        for (year in listOf(-1, 0, 1, 1999, 2015, 2016, 2017, 2018, 2019)) {
+            for (month in 1..EthiopicDays.MONTHS_PER_YEAR) {
+                for (monthsToAdd in -40..40) {
+                    val expected = EthiopicDate.of(year, month, 1).plus(monthsToAdd.toLong(), ChronoUnit.MONTHS)
+
+                    assertThat(EthiopicDays.firstOfMonthPlus(year, month, monthsToAdd)).isEqualTo(expected.toEpochDay())
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `hijri conversion matches java time`() {
+        for (epochDay in HIJRI_RANGE) {
+            val packed = EthiopicDays.epochDayToHijri(epochDay)
+            val expected = HijrahDate.from(LocalDate.ofEpochDay(epochDay))
+
+            assertThat(EthiopicDays.year(packed)).isEqualTo(expected.get(ChronoField.YEAR_OF_ERA))
+            assertThat(EthiopicDays.month(packed)).isEqualTo(expected.get(ChronoField.MONTH_OF_YEAR))
+            assertThat(EthiopicDays.day(packed)).isEqualTo(expected.get(ChronoField.DAY_OF_MONTH))
+            assertThat(EthiopicDays.hijriToEpochDay(EthiopicDays.year(packed), EthiopicDays.month(packed), EthiopicDays.day(packed)))
+                .isEqualTo(epochDay)
+        }
+    }
+
+    @Test
+    fun `known dates`() {
+        // Enkutatash 2018 and, after the leap year 2015, Enkutatash 2016
+        assertThat(EthiopicDays.toEpochDay(2018, 1, 1)).isEqualTo(LocalDate.of(2025, 9, 11).toEpochDay())
+        assertThat(EthiopicDays.toEpochDay(2016, 1, 1)).isEqualTo(LocalDate.of(2023, 9, 12).toEpochDay())
+        // Pagume 6 only exists in leap years
+        assertThat(EthiopicDays.toEpochDay(2015, 13, 6)).isEqualTo(LocalDate.of(2023, 9, 11).toEpochDay())
+        assertThat(EthiopicDays.lengthOfMonth(2015, 13)).isEqualTo(6)
+        assertThat(EthiopicDays.lengthOfMonth(2016, 13)).isEqualTo(5)
+        // Unix epoch
+        assertThat(EthiopicDays.fromEpochDay(0)).isEqualTo(EthiopicDays.pack(1962, 4, 23))
+    }
+
+    @Test
+    fun `packed dates keep their fields`() {
+        for (year in listOf(-5000, -1, 0, 1, 2018, 9999)) {
+            for (month in 1..13) {
+                for (day in listOf(1, 5, 6, 29, 30, 31)) {
+                    val packed = EthiopicDays.pack(year, month, day)
+
+                    assertThat(EthiopicDays.year(packed)).isEqualTo(year)
+                    assertThat(EthiopicDays.month(packed)).isEqualTo(month)
+                    assertThat(EthiopicDays.day(packed)).isEqualTo(day)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `primitive conversion is faster than threeten-extra`() {
+        val range = DENSE_RANGE
+        fun primitive(): Long {
+            var checksum = 0L
+            for (epochDay in range) checksum += EthiopicDays.fromEpochDay(epochDay)
+            return checksum
+        }
+        fun threeten(): Long {
+            var checksum = 0L
+            for (epochDay in range) {
+                val date = EthiopicChronology.INSTANCE.dateEpochDay(epochDay)
+                checksum += EthiopicDays.pack(
+                    date.get(ChronoField.YEAR),
+                    date.get(ChronoField.MONTH_OF_YEAR),
+                    date.get(ChronoField.DAY_OF_MONTH)
+                )
+            }
+            return checksum
+        }
+
+        assertThat(primitive()).isEqualTo(threeten())
+        val primitiveNanos = medianNanos { primitive() }
+        val threetenNanos = medianNanos { threeten() }
+
+        println(
+            "fromEpochDay over ${range.last - range.first + 1} days: primitive ${primitiveNanos / 1000} us, " +
+                    "EthiopicDate ${threetenNanos / 1000} us"
+        )
+        assertThat(primitiveNanos).isLessThan(threetenNanos)
+    }
+
+    private fun medianNanos(block: () -> Long): Long {
+        var sink = 0L
+        repeat(5) { sink += block() }
+        val samples = LongArray(11)
+        for (i in samples.indices) {
+            val start = System.nanoTime()
+            sink += block()
+            samples[i] = System.nanoTime() - start
+        }
+        // Keep the results alive so the loops cannot be optimised away
+        assertThat(sink).isNotEqualTo(Long.MIN_VALUE)
+        samples.sort()
+        return samples[samples.size / 2]
+    }
+}
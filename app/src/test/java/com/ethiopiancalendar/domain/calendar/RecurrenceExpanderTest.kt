@@ -0,0 +1,387 @@
+package com.ethiopiancalendar.domain.calendar
+
+import com.ethiopiancalendar.data.local.entity.RecurrenceCalendar
+import com.ethiopiancalendar.data.local.entity.RecurrenceFrequency
+import com.ethiopiancalendar.data.local.entity.RecurrenceRule
+import com.ethiopiancalendar.data.local.entity.compileRRule
+import com.google.common.truth.Truth.assertThat
+import com.google.common.truth.Truth.assertWithMessage
+import org.junit.Test
+import org.threeten.extra.chrono.EthiopicDate
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+
+class RecurrenceExpanderTest {
+
+    companion object {
+        private val ADDIS_ABABA: ZoneId = ZoneId.of("Africa/Addis_Ababa")
+        private val NEW_YORK: ZoneId = ZoneId.of("America/New_York")
+    }
+
+    private fun rule(rrule: String): RecurrenceRule = requireNotNull(compileRRule(rrule)) { rrule }
+
+    private fun at(year: Int, month: Int, day: Int, hour: Int = 9, minute: Int = 0, zone: ZoneId = ADDIS_ABABA) =
+        ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone)
+
+    private fun ethiopic(year: Int, month: Int, day: Int, zone: ZoneId = ADDIS_ABABA) =
+        ZonedDateTime.of(LocalDate.from(EthiopicDate.of(year, month, day)), LocalTime.of(9, 0), zone)
+
+    private fun expand(
+        start: ZonedDateTime,
+        rrule: String,
+        rangeStart: ZonedDateTime = start,
+        rangeEnd: ZonedDateTime = start.plusYears(50),
+        recurrenceEnd: ZonedDateTime? = null
+    ): List<ZonedDateTime> = RecurrenceExpander.expand(start, rule(rrule), rangeStart, rangeEnd, recurrenceEnd)
+
+    private fun dates(occurrences: List<ZonedDateTime>): List<LocalDate> = occurrences.map { it.toLocalDate() }
+
+    // ========== DAILY ==========
+
+    @Test
+    fun `daily count stops after count occurrences`() {
+        val start = at(2025, 1, 1)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=DAILY;COUNT=5")))
+            .containsExactly(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 3),
+                LocalDate.of(2025, 1, 4), LocalDate.of(2025, 1, 5)
+            ).inOrder()
+    }
+
+    @Test
+    fun `count is honoured when the range starts mid-series`() {
+        val start = at(2025, 1, 1)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=DAILY;COUNT=5", rangeStart = at(2025, 1, 4, hour = 0))))
+            .containsExactly(LocalDate.of(2025, 1, 4), LocalDate.of(2025, 1, 5)).inOrder()
+        assertThat(expand(start, "RRULE:FREQ=DAILY;COUNT=5", rangeStart = at(2025, 1, 6, hour = 0))).isEmpty()
+    }
+
+    @Test
+    fun `daily interval skips days`() {
+        val start = at(2025, 1, 1)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=DAILY;INTERVAL=3;COUNT=4")))
+            .containsExactly(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 4),
+                LocalDate.of(2025, 1, 7), LocalDate.of(2025, 1, 10)
+            ).inOrder()
+    }
+
+    @Test
+    fun `until is inclusive`() {
+        // 09:00 in Addis Ababa is 06:00 UTC
+        val start = at(2025, 1, 1)
+
+        assertThat(expand(start, "RRULE:FREQ=DAILY;UNTIL=20250105T060000Z")).hasSize(5)
+        assertThat(expand(start, "RRULE:FREQ=DAILY;UNTIL=20250105T055959Z")).hasSize(4)
+    }
+
+    @Test
+    fun `recurrence end combines with until`() {
+        val start = at(2025, 1, 1)
+
+        assertThat(expand(start, "RRULE:FREQ=DAILY;UNTIL=20250110T060000Z", recurrenceEnd = at(2025, 1, 3))).hasSize(3)
+        assertThat(expand(start, "RRULE:FREQ=DAILY;UNTIL=20250103T060000Z", recurrenceEnd = at(2025, 1, 10))).hasSize(3)
+    }
+
+    // ========== WEEKLY ==========
+
+    @Test
+    fun `weekly byday expands each selected day`() {
+        // Tuesday
+        val start = at(2025, 1, 7)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=WEEKLY;BYDAY=TU,TH;COUNT=5")))
+            .containsExactly(
+                LocalDate.of(2025, 1, 7), LocalDate.of(2025, 1, 9), LocalDate.of(2025, 1, 14),
+                LocalDate.of(2025, 1, 16), LocalDate.of(2025, 1, 21)
+            ).inOrder()
+    }
+
+    @Test
+    fun `weekly byday skips selected days before the start in the first week`() {
+        // Wednesday; Monday of the first week is before the start
+        val start = at(2025, 1, 8)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=4")))
+            .containsExactly(
+                LocalDate.of(2025, 1, 8), LocalDate.of(2025, 1, 10),
+                LocalDate.of(2025, 1, 13), LocalDate.of(2025, 1, 15)
+            ).inOrder()
+    }
+
+    @Test
+    fun `weekly interval skips weeks`() {
+        val start = at(2025, 1, 7)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH;COUNT=4")))
+            .containsExactly(
+                LocalDate.of(2025, 1, 7), LocalDate.of(2025, 1, 9),
+                LocalDate.of(2025, 1, 21), LocalDate.of(2025, 1, 23)
+            ).inOrder()
+    }
+
+    @Test
+    fun `weekly without byday repeats on the start day`() {
+        val start = at(2025, 1, 7)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=WEEKLY;COUNT=3")))
+            .containsExactly(LocalDate.of(2025, 1, 7), LocalDate.of(2025, 1, 14), LocalDate.of(2025, 1, 21)).inOrder()
+    }
+
+    // ========== MONTHLY / YEARLY ==========
+
+    @Test
+    fun `monthly on the 31st skips shorter months`() {
+        val start = at(2025, 1, 31)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=MONTHLY;COUNT=5")))
+            .containsExactly(
+                LocalDate.of(2025, 1, 31), LocalDate.of(2025, 3, 31), LocalDate.of(2025, 5, 31),
+                LocalDate.of(2025, 7, 31), LocalDate.of(2025, 8, 31)
+            ).inOrder()
+    }
+
+    @Test
+    fun `yearly on february 29 only occurs in leap years`() {
+        val start = at(2024, 2, 29)
+
+        assertThat(dates(expand(start, "RRULE:FREQ=YEARLY", rangeEnd = at(2037, 1, 1))))
+            .containsExactly(LocalDate.of(2024, 2, 29), LocalDate.of(2028, 2, 29), LocalDate.of(2032, 2, 29), LocalDate.of(2036, 2, 29))
+            .inOrder()
+        assertThat(dates(expand(start, "RRULE:FREQ=YEARLY;COUNT=2", rangeStart = at(2025, 1, 1))))
+            .containsExactly(LocalDate.of(2028, 2, 29))
+        assertThat(expand(start, "RRULE:FREQ=YEARLY;COUNT=2", rangeStart = at(2029, 1, 1))).isEmpty()
+    }
+
+    @Test
+    fun `ethiopic yearly repeats on the same ethiopian date`() {
+        // Meskerem 1, 2017
+        val start = ethiopic(2017, 1, 1)
+
+        assertThat(expand(start, "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY;COUNT=4"))
+            .containsExactly(ethiopic(2017, 1, 1), ethiopic(2018, 1, 1), ethiopic(2019, 1, 1), ethiopic(2020, 1, 1))
+            .inOrder()
+        // Enkutatash moves to September 12 after an Ethiopian leap year
+        assertThat(ethiopic(2018, 1, 1).toLocalDate()).isEqualTo(LocalDate.of(2025, 9, 11))
+        assertThat(ethiopic(2020, 1, 1).toLocalDate()).isEqualTo(LocalDate.of(2027, 9, 12))
+    }
+
+    @Test
+    fun `ethiopic yearly on pagume 6 only occurs in leap years`() {
+        // 2015 and 2019 are Ethiopian leap years
+        val start = ethiopic(2015, 13, 6)
+
+        assertThat(expand(start, "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY;COUNT=3"))
+            .containsExactly(ethiopic(2015, 13, 6), ethiopic(2019, 13, 6), ethiopic(2023, 13, 6))
+            .inOrder()
+        assertThat(expand(start, "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY;COUNT=2", rangeStart = ethiopic(2020, 1, 1)))
+            .isEmpty()
+    }
+
+    @Test
+    fun `ethiopic monthly on day 30 skips pagume`() {
+        val start = ethiopic(2017, 1, 30)
+
+        val occurrences = expand(start, "RRULE:RSCALE=ETHIOPIC;FREQ=MONTHLY;COUNT=13")
+
+        assertThat(occurrences).containsExactlyElementsIn(
+            (1..12).map { ethiopic(2017, it, 30) } + ethiopic(2018, 1, 30)
+        ).inOrder()
+    }
+
+    @Test
+    fun `ethiopic monthly on day 5 includes pagume`() {
+        val start = ethiopic(2017, 11, 5)
+
+        assertThat(expand(start, "RRULE:RSCALE=ETHIOPIC;FREQ=MONTHLY;COUNT=4"))
+            .containsExactly(ethiopic(2017, 11, 5), ethiopic(2017, 12, 5), ethiopic(2017, 13, 5), ethiopic(2018, 1, 5))
+            .inOrder()
+    }
+
+    // ========== DST ==========
+
+    @Test
+    fun `occurrences keep the local time across dst changes`() {
+        // Clocks in New York go forward on 2025-03-09 and back on 2025-11-02
+        val start = at(2025, 3, 7, zone = NEW_YORK)
+
+        val spring = expand(start, "RRULE:FREQ=DAILY;COUNT=4")
+        assertThat(spring.map { it.toLocalTime() }).containsExactly(
+            LocalTime.of(9, 0), LocalTime.of(9, 0), LocalTime.of(9, 0), LocalTime.of(9, 0)
+        )
+        assertThat(spring.map { it.offset }).containsExactly(
+            ZoneOffset.ofHours(-5), ZoneOffset.ofHours(-5), ZoneOffset.ofHours(-4), ZoneOffset.ofHours(-4)
+        ).inOrder()
+
+        val autumn = expand(start, "RRULE:FREQ=WEEKLY", rangeStart = at(2025, 10, 25, zone = NEW_YORK), rangeEnd = at(2025, 11, 9, zone = NEW_YORK))
+        assertThat(autumn.map { it.toLocalDateTime() }).containsExactly(
+            LocalDateTime.of(2025, 10, 31, 9, 0), LocalDateTime.of(2025, 11, 7, 9, 0)
+        ).inOrder()
+        assertThat(autumn.map { it.offset }).containsExactly(ZoneOffset.ofHours(-4), ZoneOffset.ofHours(-5)).inOrder()
+    }
+
+    @Test
+    fun `occurrence in the spring gap moves forward by the gap`() {
+        // 02:30 does not exist in New York on 2025-03-09
+        val start = at(2025, 3, 8, hour = 2, minute = 30, zone = NEW_YORK)
+
+        val occurrences = expand(start, "RRULE:FREQ=DAILY;COUNT=3")
+
+        assertThat(occurrences.map { it.toLocalDateTime() }).containsExactly(
+            LocalDateTime.of(2025, 3, 8, 2, 30), LocalDateTime.of(2025, 3, 9, 3, 30), LocalDateTime.of(2025, 3, 10, 2, 30)
+        ).inOrder()
+    }
+
+    // ========== nextOccurrence ==========
+
+    @Test
+    fun `next occurrence of a decades old series`() {
+        // Monday
+        val start = at(1990, 1, 1)
+        val after = at(2025, 6, 11, hour = 12)
+
+        val next = RecurrenceExpander.nextOccurrence(start, rule("RRULE:FREQ=WEEKLY;BYDAY=MO,FR"), after.toInstant().toEpochMilli())
+
+        assertThat(next).isEqualTo(at(2025, 6, 13))
+    }
+
+    @Test
+    fun `next occurrence is strictly after`() {
+        val start = at(2025, 1, 1)
+        val millis = at(2025, 1, 2).toInstant().toEpochMilli()
+
+        assertThat(RecurrenceExpander.nextOccurrence(start, rule("RRULE:FREQ=DAILY"), millis)).isEqualTo(at(2025, 1, 3))
+        assertThat(RecurrenceExpander.nextOccurrence(start, rule("RRULE:FREQ=DAILY"), millis - 1)).isEqualTo(at(2025, 1, 2))
+    }
+
+    @Test
+    fun `next occurrence is null once the series ended`() {
+        val start = at(2025, 1, 1)
+        val after = at(2025, 2, 1).toInstant().toEpochMilli()
+
+        assertThat(RecurrenceExpander.nextOccurrence(start, rule("RRULE:FREQ=DAILY;COUNT=10"), after)).isNull()
+        assertThat(RecurrenceExpander.nextOccurrence(start, rule("RRULE:FREQ=DAILY;UNTIL=20250120T000000Z"), after)).isNull()
+        assertThat(RecurrenceExpander.nextOccurrence(start, rule("RRULE:FREQ=DAILY"), after, recurrenceEnd = at(2025, 1, 31))).isNull()
+    }
+
+    @Test
+    fun `non recurring rule yields only the start inside the range`() {
+        val start = at(2025, 1, 1)
+        val none = RecurrenceRule(frequency = RecurrenceFrequency.NONE)
+
+        assertThat(RecurrenceExpander.expand(start, none, at(2024, 12, 31), at(2025, 1, 2))).containsExactly(start)
+        assertThat(RecurrenceExpander.expand(start, none, at(2025, 1, 2), at(2025, 1, 3))).isEmpty()
+    }
+
+    @Test
+    fun `max occurrences limits the result`() {
+        val start = at(2025, 1, 1)
+
+        val occurrences = RecurrenceExpander.expand(start, rule("RRULE:FREQ=DAILY"), start, start.plusYears(1), maxOccurrences = 3)
+
+        assertThat(occurrences).hasSize(3)
+    }
+
+    // ========== Reference ==========
+
+    @Test
+    fun `expansion matches a day by day reference`() {
+        val rules = listOf(
+            "RRULE:FREQ=DAILY",
+            "RRULE:FREQ=DAILY;INTERVAL=5;COUNT=40",
+            "RRULE:FREQ=WEEKLY",
+            "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=25",
+            "RRULE:FREQ=WEEKLY;INTERVAL=3;BYDAY=SU,SA",
+            "RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;UNTIL=20270101T000000Z",
+            "RRULE:FREQ=MONTHLY",
+            "RRULE:FREQ=MONTHLY;INTERVAL=2;COUNT=9",
+            "RRULE:FREQ=YEARLY",
+            "RRULE:FREQ=YEARLY;INTERVAL=3;COUNT=4",
+            "RRULE:RSCALE=ETHIOPIC;FREQ=MONTHLY",
+            "RRULE:RSCALE=ETHIOPIC;FREQ=MONTHLY;INTERVAL=4;COUNT=12",
+            "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY",
+            "RRULE:RSCALE=ETHIOPIC;FREQ=YEARLY;COUNT=3"
+        )
+        val starts = listOf(
+            at(2023, 1, 1),
+            at(2024, 1, 31, hour = 23, minute = 30),
+            at(2024, 2, 29),
+            at(2025, 3, 8, hour = 2, minute = 30, zone = NEW_YORK),
+            ethiopic(2015, 13, 6),
+            ethiopic(2016, 4, 30),
+            ethiopic(2017, 13, 5)
+        )
+        val ranges = listOf(
+            at(2022, 1, 1) to at(2030, 1, 1),
+            at(2025, 6, 15, hour = 13) to at(2025, 9, 20),
+            at(2026, 9, 1) to at(2031, 9, 15)
+        )
+
+        for (rrule in rules) {
+            val rule = rule(rrule)
+            for (start in starts) {
+                for ((rangeStart, rangeEnd) in ranges) {
+                    val expected = referenceExpand(start, rule, rangeStart, rangeEnd)
+                    val actual = RecurrenceExpander.expand(start, rule, rangeStart, rangeEnd)
+
+                    assertWithMessage("$rrule from $start in [$rangeStart, $rangeEnd)").that(actual).isEqualTo(expected)
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks every day from the start and keeps the ones the rule selects
+     */
+    private fun referenceExpand(
+        start: ZonedDateTime,
+        rule: RecurrenceRule,
+        rangeStart: ZonedDateTime,
+        rangeEnd: ZonedDateTime
+    ): List<ZonedDateTime> {
+        val ethiopic = rule.calendarScale == RecurrenceCalendar.ETHIOPIC
+        val startDay = start.toLocalDate().toEpochDay()
+        val startDate = if (ethiopic) EthiopicDays.fromEpochDay(startDay) else EthiopicDays.epochDayToGregorian(startDay)
+        val monthsPerYear = if (ethiopic) EthiopicDays.MONTHS_PER_YEAR else 12
+        val weekDays = if (rule.weekDays.isEmpty()) setOf(start.dayOfWeek.value) else rule.weekDays.map { it.value }.toSet()
+        val firstMonday = startDay - (start.dayOfWeek.value - 1)
+        val count = rule.count ?: Int.MAX_VALUE
+        val until = rule.endDate ?: Long.MAX_VALUE
+        val lastDay = rangeEnd.toLocalDate().toEpochDay() + 1
+
+        val result = ArrayList<ZonedDateTime>()
+        var occurrence = 0
+        for (day in startDay..lastDay) {
+            val date = if (ethiopic) EthiopicDays.fromEpochDay(day) else EthiopicDays.epochDayToGregorian(day)
+            val monthsApart = (EthiopicDays.year(date) - EthiopicDays.year(startDate)) * monthsPerYear +
+                    EthiopicDays.month(date) - EthiopicDays.month(startDate)
+            val yearsApart = EthiopicDays.year(date) - EthiopicDays.year(startDate)
+            val selected = when (rule.frequency) {
+                RecurrenceFrequency.NONE -> day == startDay
+                RecurrenceFrequency.DAILY -> (day - startDay) % rule.interval == 0L
+                RecurrenceFrequency.WEEKLY -> EthiopicDays.dayOfWeek(day) in weekDays &&
+                        Math.floorDiv(day - firstMonday, 7L) % rule.interval == 0L
+                RecurrenceFrequency.MONTHLY -> EthiopicDays.day(date) == EthiopicDays.day(startDate) &&
+                        monthsApart % rule.interval == 0
+                RecurrenceFrequency.YEARLY -> EthiopicDays.day(date) == EthiopicDays.day(startDate) &&
+                        EthiopicDays.month(date) == EthiopicDays.month(startDate) &&
+                        yearsApart % rule.interval == 0
+            }
+            if (!selected) continue
+            if (occurrence >= count) break
+            occurrence++
+
+            val instance = ZonedDateTime.of(LocalDate.ofEpochDay(day), start.toLocalTime(), start.zone)
+            if (instance.toInstant().toEpochMilli() > until) break
+            if (!instance.isBefore(rangeStart) && instance.isBefore(rangeEnd)) result.add(instance)
+        }
+        return result
+    }
+}
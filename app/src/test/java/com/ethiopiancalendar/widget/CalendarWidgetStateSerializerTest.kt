@@ -0,0 +1,262 @@
+package com.ethiopiancalendar.widget
+
+import androidx.datastore.core.CorruptionException
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.test.runTest
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonNull
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.boolean
+import kotlinx.serialization.json.int
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import kotlinx.serialization.json.long
+import kotlinx.serialization.json.longOrNull
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+class CalendarWidgetStateSerializerTest {
+
+    @Test
+    fun `default state round-trips`() = runTest {
+        val state = CalendarWidgetState()
+
+        assertThat(roundTrip(state)).isEqualTo(state)
+    }
+
+    @Test
+    fun `full state round-trips`() = runTest {
+        val state = stateWithEvents(50).copy(
+            use24HourFormat = true,
+            primaryTimeZoneId = "Africa/Addis_Ababa",
+            primaryTimeZoneLabel = "አዲስ አበባ",
+            secondaryTimeZoneId = "America/Los_Angeles",
+            secondaryTimeZoneLabel = "Los Angeles",
+            transparentBackground = true,
+            sizeClass = WidgetSizeClass.LARGE,
+            month = WidgetMonth(
+                title = "መስከረም 2018",
+                gregorianTitle = "Sep – Oct 2025",
+                cells = List(42) { WidgetMonthCell.pack(1 + it % 30, 1 + it % 31, it % 16) }
+            ),
+            contentHash = -123_456_789
+        )
+
+        assertThat(roundTrip(state)).isEqualTo(state)
+    }
+
+    @Test
+    fun `extreme values round-trip`() = runTest {
+        val state = CalendarWidgetState(
+            events = listOf(
+                WidgetEvent("", "", Long.MIN_VALUE, Long.MAX_VALUE, true, Int.MIN_VALUE, ""),
+                WidgetEvent("a", "b", Long.MAX_VALUE, Long.MIN_VALUE, false, Int.MAX_VALUE, "c"),
+                WidgetEvent("zero", "zero", 0L, 0L, false, 0, "zero"),
+                WidgetEvent("no end", "no end", -1L, null, false, -1, "PERSONAL")
+            ),
+            contentHash = Int.MIN_VALUE
+        )
+
+        assertThat(roundTrip(state)).isEqualTo(state)
+    }
+
+    @Test
+    fun `empty file reads as the default state`() = runTest {
+        assertThat(read(ByteArray(0))).isEqualTo(CalendarWidgetState())
+    }
+
+    @Test
+    fun `legacy json state is reported as corruption`() = runTest {
+        val legacy = """{"events":[{"id":"1","title":"Coffee","startTime":0,"endTime":null,""" +
+                """"isAllDay":false,"color":-15108398,"category":"PERSONAL"}]}"""
+
+        assertCorrupt(legacy.encodeToByteArray())
+    }
+
+    @Test
+    fun `every truncation of a valid state is reported as corruption`() = runTest {
+        val bytes = write(stateWithEvents(4).copy(month = WidgetMonth("t", "g", listOf(1, 2, 3))))
+
+        for (length in 1 until bytes.size) {
+            assertCorrupt(bytes.copyOf(length))
+        }
+    }
+
+    @Test
+    fun `unknown magic and version are reported as corruption`() = runTest {
+        val bytes = write(stateWithEvents(4))
+
+        assertCorrupt(bytes.copyOf().also { it[0] = 0x00 })
+        assertCorrupt(bytes.copyOf().also { it[1] = 2 })
+        assertCorrupt(bytes.copyOf().also { it[1] = 0 })
+    }
+
+    @Test
+    fun `overlong varint is reported as corruption`() = runTest {
+        // Magic, version, then a boolean followed by a string length that never terminates
+        val bytes = byteArrayOf(0xCA.toByte(), 1, 0) + ByteArray(11) { 0xFF.toByte() }
+
+        assertCorrupt(bytes)
+    }
+
+    @Test
+    fun `binary state is smaller and timed against the legacy json at 4, 50 and 500 events`() = runTest {
+        for (count in listOf(4, 50, 500)) {
+            val state = stateWithEvents(count)
+            val binary = write(state)
+            val json = toLegacyJson(state)
+
+            val binaryEncode = medianNanos { write(state).size }
+            val binaryDecode = medianNanos { read(binary).events.size }
+            val jsonEncode = medianNanos { toLegacyJson(state).size }
+            val jsonDecode = medianNanos { fromLegacyJson(json).events.size }
+
+            println(
+                "$count events: binary ${binary.size} B, encode ${binaryEncode / 1000} us, " +
+                        "decode ${binaryDecode / 1000} us | json ${json.size} B, " +
+                        "encode ${jsonEncode / 1000} us, decode ${jsonDecode / 1000} us"
+            )
+            assertThat(fromLegacyJson(json)).isEqualTo(state)
+            assertThat(binary.size.toDouble() / json.size).isLessThan(0.6)
+        }
+    }
+
+    @Test
+    fun `content hash is equal for equal payloads built separately`() {
+        fun payload() = stateWithEvents(4).copy(
+            sizeClass = WidgetSizeClass.LARGE,
+            month = WidgetMonth("መስከረም 2018", "Sep – Oct 2025", List(42) { it })
+        )
+
+        assertThat(CalendarWidgetStateSerializer.contentHash(20_000L, payload()))
+            .isEqualTo(CalendarWidgetStateSerializer.contentHash(20_000L, payload()))
+        // The stored hash itself is not part of the content
+        assertThat(CalendarWidgetStateSerializer.contentHash(20_000L, payload().copy(contentHash = 7)))
+            .isEqualTo(CalendarWidgetStateSerializer.contentHash(20_000L, payload()))
+    }
+
+    @Test
+    fun `content hash does not depend on the process`() {
+        // Pinned value: an identity based hash of the size class enum would differ on every run
+        val state = CalendarWidgetState(
+            events = listOf(WidgetEvent("a", "Coffee", 1_760_000_000_000L, null, false, -15108398, "PERSONAL")),
+            sizeClass = WidgetSizeClass.LARGE
+        )
+
+        assertThat(CalendarWidgetStateSerializer.contentHash(20_000L, state)).isEqualTo(1_153_985_412)
+    }
+
+    @Test
+    fun `content hash changes with the day and the size class`() {
+        val state = stateWithEvents(4)
+
+        assertThat(CalendarWidgetStateSerializer.contentHash(20_001L, state))
+            .isNotEqualTo(CalendarWidgetStateSerializer.contentHash(20_000L, state))
+        assertThat(CalendarWidgetStateSerializer.contentHash(20_000L, state.copy(sizeClass = WidgetSizeClass.LARGE)))
+            .isNotEqualTo(CalendarWidgetStateSerializer.contentHash(20_000L, state))
+    }
+
+    // ========== Helpers ==========
+
+    private suspend fun write(state: CalendarWidgetState): ByteArray {
+        val output = ByteArrayOutputStream()
+        CalendarWidgetStateSerializer.writeTo(state, output)
+        return output.toByteArray()
+    }
+
+    private suspend fun read(bytes: ByteArray): CalendarWidgetState =
+        CalendarWidgetStateSerializer.readFrom(ByteArrayInputStream(bytes))
+
+    private suspend fun roundTrip(state: CalendarWidgetState): CalendarWidgetState = read(write(state))
+
+    private suspend fun assertCorrupt(bytes: ByteArray) {
+        try {
+            read(bytes)
+            fail("Expected CorruptionException for ${bytes.size} bytes")
+        } catch (e: CorruptionException) {
+            // Expected
+        }
+    }
+
+    private suspend fun medianNanos(block: suspend () -> Int): Long {
+        repeat(WARMUP_RUNS) { block() }
+        val samples = LongArray(TIMED_RUNS)
+        for (i in samples.indices) {
+            val start = System.nanoTime()
+            block()
+            samples[i] = System.nanoTime() - start
+        }
+        samples.sort()
+        return samples[TIMED_RUNS / 2]
+    }
+
+    private fun stateWithEvents(count: Int): CalendarWidgetState = CalendarWidgetState(
+        events = List(count) { i ->
+            val start = 1_760_000_000_000L + i * 3_600_000L
+            WidgetEvent(
+                id = "0f8fad5b-d9cb-469f-a165-70867728%04d".format(i),
+                title = if (i % 2 == 0) "Team meeting $i" else "የቤተሰብ ስብሰባ $i",
+                startTime = start,
+                endTime = if (i % 3 == 0) null else start + 1_800_000L,
+                isAllDay = i % 5 == 0,
+                color = 0xFF1976D2.toInt(),
+                category = "PERSONAL"
+            )
+        },
+        contentHash = count * 31
+    )
+
+    /**
+     * The JSON the app wrote before the binary layout: kotlinx.serialization's default
+     * encoding of the state, without default-valued fields
+     */
+    private fun toLegacyJson(state: CalendarWidgetState): ByteArray {
+        val events = JsonArray(state.events.map { event ->
+            JsonObject(
+                mapOf(
+                    "id" to JsonPrimitive(event.id),
+                    "title" to JsonPrimitive(event.title),
+                    "startTime" to JsonPrimitive(event.startTime),
+                    "endTime" to (event.endTime?.let { JsonPrimitive(it) } ?: JsonNull),
+                    "isAllDay" to JsonPrimitive(event.isAllDay),
+                    "color" to JsonPrimitive(event.color),
+                    "category" to JsonPrimitive(event.category)
+                )
+            )
+        })
+        val root = JsonObject(mapOf("events" to events, "contentHash" to JsonPrimitive(state.contentHash)))
+        return json.encodeToString(JsonElement.serializer(), root).encodeToByteArray()
+    }
+
+    private fun fromLegacyJson(bytes: ByteArray): CalendarWidgetState {
+        val root = json.parseToJsonElement(bytes.decodeToString()).jsonObject
+        return CalendarWidgetState(
+            events = root.getValue("events").jsonArray.map { element ->
+                val event = element.jsonObject
+                WidgetEvent(
+                    id = event.getValue("id").jsonPrimitive.content,
+                    title = event.getValue("title").jsonPrimitive.content,
+                    startTime = event.getValue("startTime").jsonPrimitive.long,
+                    endTime = event.getValue("endTime").jsonPrimitive.longOrNull,
+                    isAllDay = event.getValue("isAllDay").jsonPrimitive.boolean,
+                    color = event.getValue("color").jsonPrimitive.int,
+                    category = event.getValue("category").jsonPrimitive.content
+                )
+            },
+            contentHash = root.getValue("contentHash").jsonPrimitive.int
+        )
+    }
+
+    private companion object {
+        const val WARMUP_RUNS = 20
+        const val TIMED_RUNS = 50
+
+        val json = Json { ignoreUnknownKeys = true }
+    }
+}
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+#
+# Re-exports app/schemas/<database>/<version>.json from a real build of every schema version,
+# so MigrationTestHelper and Room see the identity hash the Room compiler actually generated.
+# A version is built from the last commit before the next version bump, or HEAD for the
+# current version.
+#
+# Usage: scripts/export-room-schemas.sh   (from anywhere inside the repository)
+#
+# Each commit is built in a temporary worktree with room.schemaLocation pointing at the
+# worktree's own schemas/ folder (the commits before schema export was set up lack it), and
+# only the version that commit defines is copied back.
+
+set -euo pipefail
+
+ROOT=$(git rev-parse --show-toplevel)
+DATABASE_SOURCE=app/src/main/java/com/ethiopiancalendar/data/local/CalendarDatabase.kt
+SCHEMA_DIR=app/schemas/com.ethiopiancalendar.data.local.CalendarDatabase
+
+cd "$ROOT"
+mkdir -p "$SCHEMA_DIR"
+
+bumps=($(git log --reverse --format=%H -G'^ *version = [0-9]+,' -- "$DATABASE_SOURCE"))
+
+for i in "${!bumps[@]}"; do
+    if (( i + 1 < ${#bumps[@]} )); then
+        commit=$(git rev-parse "${bumps[i + 1]}^")
+    else
+        commit=$(git rev-parse HEAD)
+    fi
+    version=$(git show "$commit:$DATABASE_SOURCE" | sed -n 's/^ *version = \([0-9]*\),.*/\1/p')
+    worktree=$(mktemp -d)
+    git worktree add --quiet --detach "$worktree" "$commit"
+    [[ -f local.properties ]] && cp local.properties "$worktree/"
+
+    if ! grep -q 'room.schemaLocation' "$worktree/app/build.gradle.kts"; then
+        printf '\nksp {\n    arg("room.schemaLocation", "$projectDir/schemas")\n}\n' \
+            >> "$worktree/app/build.gradle.kts"
+    fi
+
+    echo "Exporting schema $version from $(git log -1 --format='%h %s' "$commit")"
+    (cd "$worktree" && ./gradlew --quiet :app:kspDebugKotlin)
+    cp "$worktree/$SCHEMA_DIR/$version.json" "$SCHEMA_DIR/$version.json"
+
+    git worktree remove --force "$worktree"
+done
+
+git status --short -- "$SCHEMA_DIR"